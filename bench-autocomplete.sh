@@ -0,0 +1,33 @@
+#!/bin/bash
+
+# Compares the two autocomplete paths directly against Elasticsearch:
+#   completion - completion suggester on titleSuggest (current default)
+#   contains   - the old "*prefix*" query_string on title
+# Both run against the same "courses" index, so load the sample data first.
+#
+# Usage: ./bench-autocomplete.sh [iterations] [es-url]
+
+ITERATIONS=${1:-200}
+ES_URL=${2:-http://localhost:9200}
+PREFIXES=("m" "ma" "mat" "sci" "art" "comp" "mus" "coo" "rob" "pho")
+
+source "$(dirname "$0")/bench-lib.sh"
+
+contains_body() {
+    local prefix=${PREFIXES[$(($1 % ${#PREFIXES[@]}))]}
+    echo '{"size":10,"_source":["title"],"query":{"query_string":{"default_field":"title","query":"*'$prefix'*","analyze_wildcard":true}}}'
+}
+
+completion_body() {
+    local prefix=${PREFIXES[$(($1 % ${#PREFIXES[@]}))]}
+    echo '{"size":0,"_source":["title"],"suggest":{"t":{"prefix":"'$prefix'","completion":{"field":"titleSuggest","size":20,"skip_duplicates":true}}}}'
+}
+
+echo "=== Autocomplete benchmark ($ITERATIONS requests per path against $ES_URL) ==="
+
+# Warm up both paths so the first requests do not skew the numbers
+warm_up es_search_path "warmup" contains_body
+warm_up es_search_path "warmup" completion_body
+
+es_search_path "contains" contains_body
+es_search_path "completion" completion_body
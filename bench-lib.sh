@@ -0,0 +1,61 @@
+#!/bin/bash
+
+# Shared helpers for the bench-*.sh scripts; source it, do not run it:
+#   source "$(dirname "$0")/bench-lib.sh"
+#
+# es_search_path expects ES_URL and ITERATIONS to be set by the sourcing script.
+
+# Prints n/avg/p50/p95/p99 for a file of curl time_total samples (seconds), one per line.
+# Lines may also be "<http_code> <time_total>"; then non-200 codes are counted as errors.
+# With a start and end timestamp (date +%s.%N) the throughput over that window is printed too.
+#
+# Usage: report_latencies <name> <times-file> [start end]
+report_latencies() {
+    python3 - "$@" <<'PY'
+import sys
+name, path = sys.argv[1], sys.argv[2]
+rows = [line.split() for line in open(path) if line.strip()]
+errors = sum(1 for row in rows if len(row) > 1 and row[0] != "200")
+times = sorted(float(row[-1]) * 1000 for row in rows)
+if not times:
+    print(f"{name:<12} no samples")
+    sys.exit()
+pct = lambda p: times[min(len(times) - 1, int(len(times) * p))]
+line = f"{name:<12} n={len(times):<6} "
+if any(len(row) > 1 for row in rows):
+    line += f"errors={errors:<4} "
+if len(sys.argv) > 4:
+    line += f"rps={len(times) / (float(sys.argv[4]) - float(sys.argv[3])):8.1f} "
+print(line + f"avg={sum(times) / len(times):7.2f}ms "
+      f"p50={pct(0.50):7.2f}ms p95={pct(0.95):7.2f}ms p99={pct(0.99):7.2f}ms")
+PY
+}
+
+# Sends ITERATIONS searches to $ES_URL/courses/_search, one after the other, and reports their latencies.
+# The request body of iteration i is the output of "<body-fn> i".
+#
+# Usage: es_search_path <name> <body-fn> [query-string]
+es_search_path() {
+    local name="$1"
+    local body_fn="$2"
+    local params="$3"
+    local times_file
+    times_file=$(mktemp)
+
+    for ((i = 0; i < ITERATIONS; i++)); do
+        curl -s -o /dev/null -w "%{time_total}\n" -H "Content-Type: application/json" \
+            -X POST "$ES_URL/courses/_search$params" -d "$($body_fn "$i")" >> "$times_file"
+    done
+
+    report_latencies "$name" "$times_file"
+    rm -f "$times_file"
+}
+
+# Runs a benchmark command with 20 iterations and discards its output, so JIT, caches and
+# connection pools are warm before the measured runs.
+#
+# Usage: warm_up <command> [args...]
+warm_up() {
+    local ITERATIONS=20
+    "$@" > /dev/null
+}
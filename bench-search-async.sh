@@ -0,0 +1,50 @@
+#!/bin/bash
+
+# Compares the blocking and the non-blocking search endpoints of a running application under concurrency:
+#   blocking - GET /api/search        (Tomcat thread waits for Elasticsearch)
+#   async    - GET /api/async/search  (Mono; the Tomcat thread is released while Elasticsearch answers)
+# Start the application with the reactive path enabled, the result cache off and a small, fixed thread pool,
+# so both paths run under the same heap and thread limits, e.g.:
+#   java -Xmx512m -jar target/course-search-*.jar --course-search.reactive.enabled=true \
+#        --course-search.cache.enabled=false --server.tomcat.threads.max=20
+#
+# Usage: ./bench-search-async.sh [requests] [concurrency] [app-url]
+
+REQUESTS=${1:-2000}
+CONCURRENCY=${2:-50}
+APP_URL=${3:-http://localhost:8080}
+QUERIES=("math" "science" "art" "robotics" "music" "coding" "painting" "soccer" "chess" "dance")
+
+source "$(dirname "$0")/bench-lib.sh"
+
+run_path() {
+    local name="$1"
+    local path="$2"
+    local count="$3"
+    local times_file
+    times_file=$(mktemp)
+
+    local start end
+    start=$(date +%s.%N)
+    for ((i = 0; i < count; i++)); do
+        echo "$APP_URL$path?q=${QUERIES[$((i % ${#QUERIES[@]}))]}&size=10"
+    done | xargs -P "$CONCURRENCY" -n 1 curl -s -o /dev/null -w "%{http_code} %{time_total}\n" >> "$times_file"
+    end=$(date +%s.%N)
+
+    report_latencies "$name" "$times_file" "$start" "$end"
+    rm -f "$times_file"
+}
+
+if [ "$(curl -s -o /dev/null -w "%{http_code}" "$APP_URL/api/async/search?q=math")" != "200" ]; then
+    echo "$APP_URL/api/async/search is not available, start the application with course-search.reactive.enabled=true"
+    exit 1
+fi
+
+echo "=== Search load test ($REQUESTS requests per path, concurrency $CONCURRENCY, against $APP_URL) ==="
+
+# Warm up both paths (JIT, connection pool) so the first requests do not skew the numbers
+run_path "warmup" "/api/search" 200 > /dev/null
+run_path "warmup" "/api/async/search" 200 > /dev/null
+
+run_path "blocking" "/api/search" "$REQUESTS"
+run_path "async" "/api/async/search" "$REQUESTS"
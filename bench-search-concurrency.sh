@@ -0,0 +1,59 @@
+#!/bin/bash
+
+# Concurrency scaling of /api/search and /api/search/suggest on a running application, using hey
+# (https://github.com/rakyll/hey). Run it once per execution mode and compare the tables:
+#   platform threads: java -Xmx1g -jar target/course-search-*.jar --course-search.cache.enabled=false
+#   virtual threads:  java -Xmx1g -jar target/course-search-*.jar --course-search.cache.enabled=false \
+#                          --spring.profiles.active=virtual-threads        (Java 21+)
+# 10k concurrent clients need as many sockets on both sides: raise "ulimit -n" in both shells first.
+#
+# Usage: ./bench-search-concurrency.sh [duration] [app-url] [concurrency levels...]
+
+DURATION=${1:-20s}
+APP_URL=${2:-http://localhost:8080}
+LEVELS=(${@:3})
+[ ${#LEVELS[@]} -eq 0 ] && LEVELS=(100 1000 10000)
+
+if ! command -v hey > /dev/null; then
+    echo "hey is required: go install github.com/rakyll/hey@latest"
+    exit 1
+fi
+
+run_level() {
+    local name="$1"
+    local url="$2"
+    local concurrency="$3"
+    local out_file
+    out_file=$(mktemp)
+
+    hey -z "$DURATION" -c "$concurrency" -t 30 "$url" > "$out_file"
+
+    python3 - "$name" "$concurrency" "$out_file" <<'PY'
+import re, sys
+name, concurrency, path = sys.argv[1], sys.argv[2], sys.argv[3]
+out = open(path).read()
+def seconds(pattern):
+    match = re.search(pattern, out)
+    return f"{float(match.group(1)) * 1000:8.1f}ms" if match else "       -"
+rps = re.search(r"Requests/sec:\s+([\d.]+)", out)
+codes = {code: int(n) for code, n in re.findall(r"\[(\d+)\]\s+(\d+) responses", out)}
+# Non-200 responses plus client-side failures (timeouts, refused connections) from the error section
+errors = sum(n for code, n in codes.items() if code != "200")
+errors += sum(int(n) for n in re.findall(r"^\s+\[(\d+)\]\s+Get ", out, re.M))
+p50, p99 = seconds(r"50%+ in ([\d.]+) secs"), seconds(r"99%+ in ([\d.]+) secs")
+print(f"{name:<8} c={concurrency:<6} rps={rps.group(1) if rps else '-':>10} p50={p50} p99={p99} errors={errors}")
+PY
+    rm -f "$out_file"
+}
+
+echo "=== Concurrency scaling ($DURATION per level against $APP_URL) ==="
+curl -s "$APP_URL/actuator/health" > /dev/null || { echo "$APP_URL is not reachable"; exit 1; }
+
+# Warm up (JIT, connection pool)
+hey -z 5s -c 50 "$APP_URL/api/search?q=math" > /dev/null
+hey -z 5s -c 50 "$APP_URL/api/search/suggest?q=ma" > /dev/null
+
+for concurrency in "${LEVELS[@]}"; do
+    run_level "search" "$APP_URL/api/search?q=science&size=10" "$concurrency"
+    run_level "suggest" "$APP_URL/api/search/suggest?q=sci" "$concurrency"
+done
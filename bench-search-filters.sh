@@ -0,0 +1,37 @@
+#!/bin/bash
+
+# Compares the two search query shapes directly against Elasticsearch:
+#   scored - category/type/age/price clauses in bool must, scored with the text match (old Criteria query)
+#   filter - the same clauses in bool filter context (current default, cached by the node query cache)
+# Both run against the same "courses" index, so load the sample data first.
+#
+# Usage: ./bench-search-filters.sh [iterations] [es-url]
+
+ITERATIONS=${1:-200}
+ES_URL=${2:-http://localhost:9200}
+CATEGORIES=("Math" "Science" "Art" "Music" "Technology")
+
+source "$(dirname "$0")/bench-lib.sh"
+
+# bool body with the category/age/price clauses under the given occurrence (must or filter)
+clause_body() {
+    local clause="$1"
+    local category=${CATEGORIES[$(($2 % ${#CATEGORIES[@]}))]}
+    local filters='{"term":{"category":"'$category'"}},{"range":{"maxAge":{"gte":8}}},{"range":{"price":{"lte":150}}}'
+    echo '{"size":10,"sort":[{"nextSessionDate":"asc"}],"query":{"bool":{"'$clause'":['$filters']}}}'
+}
+
+scored_body() { clause_body must "$1"; }
+filter_body() { clause_body filter "$1"; }
+
+echo "=== Search filter benchmark ($ITERATIONS requests per path against $ES_URL) ==="
+
+# Warm up both paths so the first requests do not skew the numbers
+warm_up es_search_path "warmup" scored_body "?request_cache=false"
+warm_up es_search_path "warmup" filter_body "?request_cache=false"
+
+es_search_path "scored" scored_body "?request_cache=false"
+es_search_path "filter" filter_body "?request_cache=false"
+
+# Query cache usage after the run (hit_count only grows in filter context)
+curl -s "$ES_URL/courses/_stats/query_cache?filter_path=_all.total.query_cache" && echo
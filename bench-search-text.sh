@@ -0,0 +1,48 @@
+#!/bin/bash
+
+# Compares the two text matching modes for q directly against Elasticsearch:
+#   contains   - "*q*" query_string on title and description OR'ed with a fuzzy title query (legacy)
+#   multimatch - one multi_match over title^3 and description with fuzziness AUTO (current default)
+# Both run against the same "courses" index, so load the sample data first.
+#
+# Usage: ./bench-search-text.sh [iterations] [es-url]
+
+ITERATIONS=${1:-200}
+ES_URL=${2:-http://localhost:9200}
+QUERIES=("math" "science" "dinasaur" "art" "robotics" "scince" "music" "coding" "painting" "soccer")
+
+source "$(dirname "$0")/bench-lib.sh"
+
+contains_body() {
+    local q="$1"
+    echo '{"size":10,"query":{"bool":{"should":[
+        {"query_string":{"fields":["title"],"query":"*'$q'*","analyze_wildcard":true}},
+        {"query_string":{"fields":["description"],"query":"*'$q'*","analyze_wildcard":true}},
+        {"fuzzy":{"title":{"value":"'$q'"}}}],"minimum_should_match":1}}}'
+}
+
+multimatch_body() {
+    local q="$1"
+    echo '{"size":10,"query":{"multi_match":{"query":"'$q'","fields":["title^3","description"],
+        "type":"best_fields","fuzziness":"AUTO","prefix_length":1,"max_expansions":20}}}'
+}
+
+# Body functions for es_search_path, which passes the iteration number
+contains_path() { contains_body "${QUERIES[$(($1 % ${#QUERIES[@]}))]}"; }
+multimatch_path() { multimatch_body "${QUERIES[$(($1 % ${#QUERIES[@]}))]}"; }
+
+echo "=== Search text benchmark ($ITERATIONS requests per path against $ES_URL) ==="
+
+# Warm up both paths so the first requests do not skew the numbers
+warm_up es_search_path "warmup" contains_path "?request_cache=false"
+warm_up es_search_path "warmup" multimatch_path "?request_cache=false"
+
+es_search_path "contains" contains_path "?request_cache=false"
+es_search_path "multimatch" multimatch_path "?request_cache=false"
+
+# Hit counts per query, to check recall did not regress
+for q in "${QUERIES[@]}"; do
+    old=$(curl -s -H "Content-Type: application/json" "$ES_URL/courses/_count" -d "{\"query\":$(contains_body "$q" | python3 -c 'import json,sys; print(json.dumps(json.load(sys.stdin)["query"]))')}" | python3 -c 'import json,sys; print(json.load(sys.stdin).get("count"))')
+    new=$(curl -s -H "Content-Type: application/json" "$ES_URL/courses/_count" -d "{\"query\":$(multimatch_body "$q" | python3 -c 'import json,sys; print(json.dumps(json.load(sys.stdin)["query"]))')}" | python3 -c 'import json,sys; print(json.load(sys.stdin).get("count"))')
+    printf "%-12s contains=%-4s multimatch=%s\n" "$q" "$old" "$new"
+done
@@ -0,0 +1,58 @@
+package com.example.coursesearch;
+
+import com.example.coursesearch.model.CourseDocument;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic generated course catalog for the benchmarks, shaped like sample-courses.json.
+ */
+public final class CourseCatalog {
+
+    public static final String[] CATEGORIES = {"Math", "Science", "Art", "Music", "Technology", "Sports", "Language"};
+    public static final String[] TYPES = {"ONE_TIME", "COURSE", "CLUB"};
+    public static final String[] WORDS = {"Math", "Adventures", "Advanced", "Mathematics", "Science", "Robotics",
+            "Painting", "Young", "Artists", "Coding", "Music", "Piano", "Soccer", "Chess", "Dinosaur", "Discovery",
+            "Photography", "Spanish", "Creative", "Writing", "Engineering", "Club", "Workshop", "Challenge"};
+
+    private static final Instant START = Instant.parse("2025-06-01T09:00:00Z");
+
+    private CourseCatalog() {
+    }
+
+    public static List<CourseDocument> generate(int size) {
+        Random random = new Random(42);
+        List<CourseDocument> courses = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            CourseDocument course = new CourseDocument();
+            course.setId("bench-" + i);
+            course.setTitle(words(random, 2 + random.nextInt(3)));
+            course.setDescription(words(random, 8 + random.nextInt(12)));
+            course.setCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+            course.setType(TYPES[random.nextInt(TYPES.length)]);
+            int minAge = 4 + random.nextInt(10);
+            course.setMinAge(minAge);
+            course.setMaxAge(minAge + 2 + random.nextInt(6));
+            course.setGradeRange("K-12");
+            course.setPrice(Math.round(random.nextDouble() * 30000) / 100.0);
+            course.setNextSessionDate(START.plus(random.nextInt(180 * 24), ChronoUnit.HOURS).toString());
+            courses.add(course);
+        }
+        return courses;
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.coursesearch;
+
+import com.example.coursesearch.dto.CourseSearchRequest;
+import com.example.coursesearch.dto.CourseSearchResponse;
+import com.example.coursesearch.model.CourseDocument;
+import com.example.coursesearch.service.CourseService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.elasticsearch.ElasticsearchContainer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * End-to-end search latency through CourseService against a real Elasticsearch container loaded with a
+ * generated catalog, or against the embedded engine (no container). Elasticsearch needs Docker; the
+ * catalog size and engine are parameters. {@code elasticsearch} sends every search to Elasticsearch,
+ * {@code elasticsearch-local-filters} answers the searches without q (filteredSearch) from the in-memory
+ * mirror as the default configuration does:
+ * ./mvnw -Pbenchmark -DskipTests test-compile exec:exec -Djmh.args="SearchEndToEndBenchmark -p catalogSize=100000"
+ * ./mvnw -Pbenchmark -DskipTests test-compile exec:exec -Djmh.args="SearchEndToEndBenchmark -p catalogSize=5000 -p engine=embedded"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Threads(4)
+@Fork(1)
+public class SearchEndToEndBenchmark {
+
+    private static final String IMAGE = "docker.elastic.co/elasticsearch/elasticsearch:8.11.0";
+    private static final int LOAD_BATCH = 1000;
+
+    @Param({"10000"})
+    private int catalogSize;
+
+    @Param({"elasticsearch", "elasticsearch-local-filters", "embedded"})
+    private String engine;
+
+    private ElasticsearchContainer elasticsearch;
+    private ConfigurableApplicationContext context;
+    private CourseService courseService;
+
+    private final AtomicInteger next = new AtomicInteger();
+    private CourseSearchRequest[] keywordRequests;
+    private CourseSearchRequest[] filteredRequests;
+
+    @Setup
+    public void setUp() {
+        SpringApplicationBuilder application = new SpringApplicationBuilder(CourseSearchApplication.class);
+        if ("embedded".equals(engine)) {
+            application.profiles("embedded");
+        } else {
+            elasticsearch = new ElasticsearchContainer(IMAGE)
+                    .withEnv("discovery.type", "single-node")
+                    .withEnv("xpack.security.enabled", "false")
+                    .withEnv("ES_JAVA_OPTS", "-Xms1g -Xmx1g");
+            elasticsearch.start();
+            application.properties("spring.elasticsearch.uris=" + elasticsearch.getHttpHostAddress());
+        }
+
+        // Result cache off, so every invocation goes to the engine; the filter mirror only where asked for
+        boolean localFilters = "elasticsearch-local-filters".equals(engine);
+        context = application
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "course-search.seed.enabled=false",
+                        "course-search.cache.enabled=false",
+                        "course-search.snapshot.enabled=false",
+                        "course-search.search.local-filters.enabled=" + localFilters,
+                        "logging.level.com.example.coursesearch=WARN")
+                .run();
+        courseService = context.getBean(CourseService.class);
+
+        List<CourseDocument> catalog = CourseCatalog.generate(catalogSize);
+        for (int from = 0; from < catalog.size(); from += LOAD_BATCH) {
+            courseService.indexBatch(from / LOAD_BATCH, catalog.subList(from, Math.min(from + LOAD_BATCH, catalog.size())));
+        }
+        courseService.refreshIndex();
+        courseService.rebuildLocalIndexes();
+
+        keywordRequests = new CourseSearchRequest[CourseCatalog.WORDS.length];
+        filteredRequests = new CourseSearchRequest[CourseCatalog.CATEGORIES.length];
+        for (int i = 0; i < keywordRequests.length; i++) {
+            keywordRequests[i] = new CourseSearchRequest();
+            keywordRequests[i].setQuery(CourseCatalog.WORDS[i].toLowerCase());
+        }
+        for (int i = 0; i < filteredRequests.length; i++) {
+            filteredRequests[i] = new CourseSearchRequest();
+            filteredRequests[i].setCategory(CourseCatalog.CATEGORIES[i]);
+            filteredRequests[i].setMinAge(8);
+            filteredRequests[i].setMaxPrice(150.0);
+            filteredRequests[i].setSortBy("priceAsc");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+        if (elasticsearch != null) {
+            elasticsearch.stop();
+        }
+    }
+
+    @Benchmark
+    public CourseSearchResponse keywordSearch() {
+        return courseService.searchCourses(keywordRequests[next.getAndIncrement() % keywordRequests.length]);
+    }
+
+    @Benchmark
+    public CourseSearchResponse filteredSearch() {
+        return courseService.searchCourses(filteredRequests[next.getAndIncrement() % filteredRequests.length]);
+    }
+
+    @Benchmark
+    public List<String> autocomplete() {
+        String word = CourseCatalog.WORDS[next.getAndIncrement() % CourseCatalog.WORDS.length];
+        return courseService.getAutocompleteSuggestions(word.substring(0, 3).toLowerCase());
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.coursesearch.controller;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.AsyncAppenderBase;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.example.coursesearch.CourseCatalog;
+import com.example.coursesearch.component.AccessLogFilter;
+import com.example.coursesearch.dto.CourseSearchRequest;
+import com.example.coursesearch.dto.CourseSearchResponse;
+import com.example.coursesearch.dto.CourseSummary;
+import com.example.coursesearch.model.CourseDocument;
+import com.example.coursesearch.service.CourseChangeFeed;
+import com.example.coursesearch.service.CourseMetrics;
+import com.example.coursesearch.service.CourseService;
+import com.example.coursesearch.service.ElasticsearchCircuitBreaker;
+import com.example.coursesearch.service.EmbeddedCourseIndex;
+import com.example.coursesearch.service.SearchCoalescer;
+import com.example.coursesearch.service.SearchRequestKey;
+import com.example.coursesearch.service.SearchResultCache;
+import com.example.coursesearch.service.SlowQueryLog;
+import com.example.coursesearch.service.SuggestionIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of /api/search (served from the result cache) and /api/search/suggest (local suggestion index)
+ * through the access log filter, with the logging set up as before and after the change: "legacy" logs the
+ * application at DEBUG through a synchronous appender, "sampled" is the shipped
+ * setup of INFO, an async appender and a 1% access log. Log output is discarded, so this measures formatting
+ * and appender overhead only, not disk or console I/O, which widens the gap further in production.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class RequestLoggingBenchmark {
+
+    @Param({"legacy", "sampled"})
+    private String logging;
+
+    private SearchController controller;
+    private AccessLogFilter accessLogFilter;
+    private LoggerContext loggerContext;
+
+    @Setup
+    public void setUp() {
+        configureLogging("legacy".equals(logging));
+        // There was no access log before; the per-request lines came from the controllers and CourseService
+        accessLogFilter = new AccessLogFilter("legacy".equals(logging) ? 0 : 0.01, Duration.ofSeconds(1));
+
+        List<CourseDocument> courses = CourseCatalog.generate(500);
+        SearchResultCache cache = new SearchResultCache(true, 1000, Duration.ofHours(1));
+        SuggestionIndex suggestionIndex = new SuggestionIndex(true);
+        suggestionIndex.rebuild(courses.stream());
+        EmbeddedCourseIndex embeddedIndex = new EmbeddedCourseIndex("elasticsearch", false);
+        CourseService courseService = new CourseService(null, null, cache, suggestionIndex,
+                new ElasticsearchCircuitBreaker(5, Duration.ofSeconds(30)), new SearchCoalescer(true),
+                new CourseMetrics(new SimpleMeterRegistry()), new SlowQueryLog(new ObjectMapper(), Duration.ofSeconds(1)),
+                embeddedIndex, new CourseChangeFeed(1024, 64, List.of(cache, suggestionIndex, embeddedIndex)));
+        controller = new SearchController(courseService, null);
+
+        CourseSearchRequest request = SearchController.toSearchRequest("math", null, null, null, null, null,
+                null, null, null, "upcoming", 0, 10, null, false);
+        CourseSearchResponse response = new CourseSearchResponse();
+        response.setCourses(courses.subList(0, 10));
+        response.setTotalElements(courses.size());
+        response.setPageSize(10);
+        cache.put(SearchRequestKey.from(request, CourseSummary.SOURCE_FIELDS), cache.generation(), response);
+    }
+
+    @TearDown
+    public void tearDown() {
+        loggerContext.reset();
+    }
+
+    @Benchmark
+    public Object search() throws Exception {
+        MockHttpServletRequest request = request("/api/search", "/api/search", "q=math");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        Object[] result = new Object[1];
+        accessLogFilter.doFilter(request, response, (req, res) -> result[0] = controller.searchCourses("math",
+                null, null, null, null, null, null, null, null, "upcoming", 0, 10, null, false, false));
+        return result[0];
+    }
+
+    @Benchmark
+    public Object suggest() throws Exception {
+        MockHttpServletRequest request = request("/api/search/suggest", "/api/search/suggest", "q=ma");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        Object[] result = new Object[1];
+        accessLogFilter.doFilter(request, response, (req, res) -> result[0] = controller.getSuggestions("ma", null));
+        return result[0];
+    }
+
+    private static MockHttpServletRequest request(String uri, String pattern, String query) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.setQueryString(query);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        return request;
+    }
+
+    private void configureLogging(boolean legacy) {
+        loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+        loggerContext.reset();
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(loggerContext);
+        encoder.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p [%t] %logger{40} : %m%n");
+        encoder.start();
+
+        OutputStreamAppender<ILoggingEvent> output = new OutputStreamAppender<>();
+        output.setContext(loggerContext);
+        output.setName("OUTPUT");
+        output.setEncoder(encoder);
+        output.setOutputStream(OutputStream.nullOutputStream());
+        output.start();
+
+        Appender<ILoggingEvent> appender = output;
+        if (!legacy) {
+            ch.qos.logback.classic.AsyncAppender async = new ch.qos.logback.classic.AsyncAppender();
+            async.setContext(loggerContext);
+            async.setName("ASYNC_OUTPUT");
+            async.setQueueSize(AsyncAppenderBase.DEFAULT_QUEUE_SIZE * 32);
+            async.setNeverBlock(true);
+            async.addAppender(output);
+            async.start();
+            appender = async;
+        }
+
+        ch.qos.logback.classic.Logger root = loggerContext.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.INFO);
+        root.addAppender(appender);
+        loggerContext.getLogger("com.example.coursesearch").setLevel(legacy ? Level.DEBUG : Level.INFO);
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.coursesearch.controller;
+
+import com.example.coursesearch.CourseCatalog;
+import com.example.coursesearch.dto.CourseSummary;
+import com.example.coursesearch.model.CourseDocument;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Cost of mapping a page of hits for /api/search, alone and including JSON serialization: the CourseSummary
+ * record used now against the per-hit HashMap it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseMappingBenchmark {
+
+    @Param({"10", "100"})
+    private int pageSize;
+
+    private List<CourseDocument> page;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        page = CourseCatalog.generate(pageSize);
+        objectMapper = new ObjectMapper();
+    }
+
+    @Benchmark
+    public List<CourseSummary> mapPage() {
+        return page.stream().map(CourseSummary::from).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public byte[] mapAndSerializePage() throws Exception {
+        return objectMapper.writeValueAsBytes(Map.of("total", page.size(), "courses", mapPage()));
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> mapPageToHashMaps() {
+        return page.stream().map(ResponseMappingBenchmark::toCourseMap).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public byte[] mapAndSerializePageAsHashMaps() throws Exception {
+        return objectMapper.writeValueAsBytes(Map.of("total", page.size(), "courses", mapPageToHashMaps()));
+    }
+
+    // The mapping SearchController did before CourseSummary
+    private static Map<String, Object> toCourseMap(CourseDocument course) {
+        Map<String, Object> courseMap = new HashMap<>();
+        courseMap.put("id", course.getId());
+        courseMap.put("title", course.getTitle());
+        courseMap.put("category", course.getCategory());
+        courseMap.put("price", course.getPrice());
+        courseMap.put("nextSessionDate", course.getNextSessionDate());
+        courseMap.put("description", course.getDescription());
+        courseMap.put("type", course.getType());
+        courseMap.put("gradeRange", course.getGradeRange());
+        courseMap.put("minAge", course.getMinAge());
+        courseMap.put("maxAge", course.getMaxAge());
+        return courseMap;
+    }
+}
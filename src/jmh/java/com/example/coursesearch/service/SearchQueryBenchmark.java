@@ -0,0 +1,74 @@
+package com.example.coursesearch.service;
+
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import com.example.coursesearch.dto.CourseSearchRequest;
+import com.example.coursesearch.service.CourseQueryBuilder.TextMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Sort;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning a search request into the Elasticsearch query and sort (CourseService.buildSearchQuery/createSort).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchQueryBenchmark {
+
+    // Generated benchmark classes live in another package, so the package-private enum goes by name
+    @Param({"MULTI_MATCH", "CONTAINS"})
+    private String mode;
+
+    private TextMode textMode;
+
+    private CourseSearchRequest keywordOnly;
+    private CourseSearchRequest allFilters;
+
+    @Setup
+    public void setUp() {
+        textMode = TextMode.valueOf(mode);
+
+        keywordOnly = new CourseSearchRequest();
+        keywordOnly.setQuery("math");
+
+        allFilters = new CourseSearchRequest();
+        allFilters.setQuery("robotics club");
+        allFilters.setCategory("Technology");
+        allFilters.setType("CLUB");
+        allFilters.setMinAge(10);
+        allFilters.setMaxAge(14);
+        allFilters.setMinPrice(50.0);
+        allFilters.setMaxPrice(200.0);
+        allFilters.setNextSessionDate("2025-06-15T10:00:00Z");
+        allFilters.setSortBy("priceAsc");
+    }
+
+    @Benchmark
+    public Query buildKeywordQuery() {
+        return CourseQueryBuilder.build(keywordOnly, textMode, true);
+    }
+
+    @Benchmark
+    public Query buildFilteredQuery() {
+        return CourseQueryBuilder.build(allFilters, textMode, true);
+    }
+
+    @Benchmark
+    public Sort createSort() {
+        return CourseQueryBuilder.sort(allFilters);
+    }
+}
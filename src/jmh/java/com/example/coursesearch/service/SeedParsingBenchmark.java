@@ -0,0 +1,87 @@
+package com.example.coursesearch.service;
+
+import com.example.coursesearch.CourseCatalog;
+import com.example.coursesearch.dto.BulkIngestResponse;
+import com.example.coursesearch.model.CourseDocument;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing cost of the seed file: DataInitializer's streaming path through BulkIngestService (with indexing
+ * stubbed out) against reading the whole JSON array into a list as it used to.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SeedParsingBenchmark {
+
+    @Param({"1000", "50000"})
+    private int documents;
+
+    private byte[] seedJson;
+    private ObjectMapper objectMapper;
+    private BulkIngestService bulkIngestService;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = new ObjectMapper();
+        seedJson = objectMapper.writeValueAsBytes(CourseCatalog.generate(documents));
+        bulkIngestService = new BulkIngestService(new NoOpCourseService(), objectMapper, 1000, DataSize.ofMegabytes(5), 4);
+    }
+
+    @TearDown
+    public void tearDown() {
+        bulkIngestService.shutdown();
+    }
+
+    @Benchmark
+    public BulkIngestResponse streamingIngest() {
+        return bulkIngestService.ingest(new ByteArrayInputStream(seedJson));
+    }
+
+    @Benchmark
+    public List<CourseDocument> readWholeArray() throws Exception {
+        return objectMapper.readValue(seedJson, new TypeReference<List<CourseDocument>>() {
+        });
+    }
+
+    private static final class NoOpCourseService extends CourseService {
+
+        NoOpCourseService() {
+            super(null, null, null, null, null, null, null, null, null, null);
+        }
+
+        @Override
+        public BulkIngestResponse.BatchResult indexBatch(int batchNumber, List<CourseDocument> courses) {
+            BulkIngestResponse.BatchResult result = new BulkIngestResponse.BatchResult();
+            result.setBatch(batchNumber);
+            result.setDocuments(courses.size());
+            result.setIndexed(courses.size());
+            return result;
+        }
+
+        @Override
+        public void refreshIndex() {
+        }
+    }
+}
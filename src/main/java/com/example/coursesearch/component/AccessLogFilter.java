@@ -0,0 +1,133 @@
+package com.example.coursesearch.component;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sampled access log: one line per request for a fraction of the traffic, plus every slow or failed request.
+ *
+ * Each endpoint logs to its own logger under {@code access}, named after the handler pattern
+ * ({@code /api/search/suggest} logs to {@code access.api.search.suggest}), so endpoints can be raised,
+ * lowered or silenced one by one with logging.level. Sampled lines are INFO, slow and failed ones WARN.
+ *
+ * An asynchronous request (the Mono endpoints under /api/async) is logged when its async processing
+ * completes, with the final status and the time up to then, not when the first dispatch returns.
+ */
+@Component
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    static final String LOGGER_PREFIX = "access";
+
+    private final double sampleRate;
+    private final long slowNanos;
+    private final Map<String, Logger> loggers = new ConcurrentHashMap<>();
+
+    public AccessLogFilter(
+            @Value("${course-search.access-log.sample-rate:0.01}") double sampleRate,
+            @Value("${course-search.access-log.slow-threshold:1s}") Duration slowThreshold) {
+        this.sampleRate = sampleRate;
+        this.slowNanos = slowThreshold.toNanos();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            // Unhandled: the response still says 200 here, the container turns it into a 500 afterwards
+            log(request, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, System.nanoTime() - start, e);
+            throw e;
+        }
+        if (request.isAsyncStarted()) {
+            // The handler returned a Mono: status and duration are only known once the response completes.
+            // The async dispatch itself is not filtered (shouldNotFilterAsyncDispatch), so it is logged once
+            request.getAsyncContext().addListener(new AsyncListener() {
+                private Throwable failure;
+
+                @Override
+                public void onComplete(AsyncEvent event) {
+                    int status = response.getStatus();
+                    if (failure != null && status < HttpServletResponse.SC_INTERNAL_SERVER_ERROR) {
+                        status = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+                    }
+                    log(request, status, System.nanoTime() - start,
+                            failure instanceof Exception e ? e : null);
+                }
+
+                @Override
+                public void onError(AsyncEvent event) {
+                    failure = event.getThrowable();
+                }
+
+                @Override
+                public void onTimeout(AsyncEvent event) {
+                    // Spring writes the timeout response, onComplete follows
+                }
+
+                @Override
+                public void onStartAsync(AsyncEvent event) {
+                    // Started again: keep listening on the new cycle
+                    event.getAsyncContext().addListener(this);
+                }
+            });
+            return;
+        }
+        log(request, response.getStatus(), System.nanoTime() - start, null);
+    }
+
+    private void log(HttpServletRequest request, int status, long elapsedNanos, Exception failure) {
+        boolean notable = status >= 500 || elapsedNanos >= slowNanos;
+        // Decide on the sample before anything is formatted or looked up
+        if (!notable && (sampleRate <= 0 || ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return;
+        }
+
+        Logger logger = loggers.computeIfAbsent(endpoint(request), AccessLogFilter::loggerFor);
+        if (notable ? !logger.isWarnEnabled() : !logger.isInfoEnabled()) {
+            return;
+        }
+        String query = request.getQueryString();
+        String line = String.format(Locale.ROOT, "%s %s%s %d %dms%s",
+                request.getMethod(), request.getRequestURI(), query != null ? "?" + query : "", status,
+                elapsedNanos / 1_000_000, notable ? "" : " (sampled)");
+        if (failure != null) {
+            logger.warn(line, failure);
+        } else if (notable) {
+            logger.warn(line);
+        } else {
+            logger.info(line);
+        }
+    }
+
+    private static String endpoint(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : "unmapped";
+    }
+
+    // "/api/courses/{id}" -> "access.api.courses.id"; "/**" (static resources) -> "access.static"
+    static Logger loggerFor(String endpoint) {
+        String name = endpoint.replaceAll("[^A-Za-z0-9/_-]", "")
+                .replaceAll("/+", ".")
+                .replaceAll("^\\.|\\.$", "");
+        return LoggerFactory.getLogger(LOGGER_PREFIX + "." + (name.isEmpty() ? "static" : name));
+    }
+}
@@ -0,0 +1,281 @@
+package com.example.coursesearch.component;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch.indices.add_block.IndicesBlockOptions;
+import co.elastic.clients.elasticsearch.tasks.GetTasksResponse;
+import com.example.coursesearch.model.CourseDocument;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonObject;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.elasticsearch.annotations.Document.VersionType;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.SearchHitsIterator;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.index.AliasAction;
+import org.springframework.data.elasticsearch.core.index.AliasActionParameters;
+import org.springframework.data.elasticsearch.core.index.AliasActions;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilter;
+import org.springframework.data.elasticsearch.core.query.Query;
+import org.springframework.data.elasticsearch.core.reindex.ReindexRequest;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Brings the course index in line with the CourseDocument mapping without downtime.
+ *
+ * Field types cannot be changed in place, so when the live index has drifted (e.g. nextSessionDate still
+ * mapped as keyword) a new versioned index {@code courses_vN} is created with the current mapping, the
+ * documents are copied with _reindex, and the {@code courses} name is switched over in one atomic alias
+ * update. Searches and writes keep going to the old index while it is copied. Only then is it write-blocked,
+ * and a catch-up pass copies what changed during the copy: a second _reindex with external versions, which
+ * only overwrites documents that have a newer version in the old index, and a delete of the ids that are
+ * gone from it. Writes fail (cluster_block_exception) for the catch-up alone, and nothing written to the old
+ * index is lost when it is dropped. If the migration fails the block is lifted again.
+ *
+ * When several instances start at once, the one that creates {@code courses_vN} migrates; the others see
+ * resource_already_exists_exception and wait for the alias to move. Runs before DataInitializer.
+ */
+@Component
+@ConditionalOnProperty(name = "course-search.engine", havingValue = "elasticsearch", matchIfMissing = true)
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+@Slf4j
+public class CourseIndexMigrator implements ApplicationRunner {
+
+    private static final Pattern VERSIONED_INDEX = Pattern.compile("(.+)_v(\\d+)");
+    private static final Duration REINDEX_POLL_INTERVAL = Duration.ofSeconds(1);
+    private static final String ALREADY_EXISTS = "resource_already_exists_exception";
+
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final ElasticsearchClient elasticsearchClient;
+
+    @Value("${course-search.index.migrate-on-startup:true}")
+    private boolean enabled = true;
+
+    // How long an instance waits for a migration another instance is running
+    @Value("${course-search.index.migration-wait:PT30M}")
+    private Duration migrationWait = Duration.ofMinutes(30);
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (!enabled) {
+            return;
+        }
+        IndexOperations indexOps = elasticsearchOperations.indexOps(CourseDocument.class);
+        if (!indexOps.exists()) {
+            return;
+        }
+
+        Document expected = indexOps.createMapping();
+        List<String> drifted = driftedFields(expected, indexOps.getMapping());
+        if (drifted.isEmpty()) {
+            return;
+        }
+
+        String alias = indexOps.getIndexCoordinates().getIndexName();
+        String current = concreteIndex(alias);
+        String target = nextVersion(alias, current);
+        log.info("Mapping of index {} differs for {}, reindexing {} into {}", alias, drifted, current, target);
+
+        IndexOperations targetOps = elasticsearchOperations.indexOps(IndexCoordinates.of(target));
+        try {
+            targetOps.create(indexOps.createSettings(), expected);
+        } catch (RuntimeException e) {
+            if (!alreadyExists(e)) {
+                throw e;
+            }
+            awaitMigration(alias, current, target);
+            return;
+        }
+
+        try {
+            reindex(current, target);
+        } catch (Exception e) {
+            targetOps.delete();
+            throw e;
+        }
+
+        elasticsearchClient.indices().addBlock(b -> b.index(current).block(IndicesBlockOptions.Write));
+        try {
+            reindex(current, target);
+            deleteRemoved(current, target);
+        } catch (Exception e) {
+            elasticsearchClient.indices().putSettings(p -> p.index(current).settings(st -> st.blocks(b -> b.write(false))));
+            targetOps.delete();
+            throw e;
+        }
+        switchAlias(alias, current, target);
+        log.info("Index {} now points to {}", alias, target);
+    }
+
+    static boolean alreadyExists(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ElasticsearchException elasticsearchException
+                    && ALREADY_EXISTS.equals(elasticsearchException.error().type())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Another instance created the target first: it reindexes, this one waits until the alias has moved
+    private void awaitMigration(String alias, String current, String target) throws IOException, InterruptedException {
+        log.info("Index {} already exists, waiting for another instance to finish migrating {}", target, alias);
+        long deadline = System.nanoTime() + migrationWait.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!concreteIndex(alias).equals(current)) {
+                log.info("Index {} now points to {}", alias, concreteIndex(alias));
+                return;
+            }
+            if (!elasticsearchOperations.indexOps(IndexCoordinates.of(target)).exists()) {
+                // The other migration failed and cleaned up; the old index stays in use
+                log.warn("Migration of {} into {} by another instance was abandoned", alias, target);
+                return;
+            }
+            Thread.sleep(REINDEX_POLL_INTERVAL.toMillis());
+        }
+        throw new IllegalStateException("Migration of " + alias + " into " + target + " did not finish within "
+                + migrationWait + "; if no instance is migrating, delete " + target + " and restart");
+    }
+
+    /**
+     * Fields whose type (or completion contexts) in the live index differ from the entity mapping.
+     */
+    @SuppressWarnings("unchecked")
+    static List<String> driftedFields(Map<String, Object> expected, Map<String, Object> actual) {
+        Map<String, Object> expectedProperties = (Map<String, Object>) expected.getOrDefault("properties", Map.of());
+        Map<String, Object> actualProperties = (Map<String, Object>) actual.getOrDefault("properties", Map.of());
+
+        List<String> drifted = new ArrayList<>();
+        expectedProperties.forEach((field, mapping) -> {
+            Map<String, Object> want = (Map<String, Object>) mapping;
+            Map<String, Object> have = (Map<String, Object>) actualProperties.get(field);
+            if (have == null
+                    || !Objects.equals(want.get("type"), have.get("type"))
+                    || !contexts(want.get("contexts")).equals(contexts(have.get("contexts")))) {
+                drifted.add(field);
+            }
+        });
+        return drifted;
+    }
+
+    // Elasticsearch reports context types upper-case ("CATEGORY"), the entity mapping lower-case
+    private static Set<String> contexts(Object contexts) {
+        if (!(contexts instanceof List<?> list)) {
+            return Set.of();
+        }
+        return list.stream()
+                .map(context -> context instanceof Map<?, ?> map
+                        ? (map.get("name") + ":" + map.get("type") + ":" + map.get("path")).toLowerCase(Locale.ROOT)
+                        : String.valueOf(context))
+                .collect(Collectors.toSet());
+    }
+
+    // "courses" is either the original concrete index or an alias onto the current courses_vN
+    private String concreteIndex(String name) throws IOException {
+        return elasticsearchClient.indices().get(g -> g.index(name)).result().keySet().iterator().next();
+    }
+
+    private static String nextVersion(String alias, String current) {
+        Matcher matcher = VERSIONED_INDEX.matcher(current);
+        int version = matcher.matches() && matcher.group(1).equals(alias) ? Integer.parseInt(matcher.group(2)) : 0;
+        return alias + "_v" + (version + 1);
+    }
+
+    /**
+     * Copies with the source's versions, so running it again only overwrites the documents that changed in
+     * the source since; the others are version conflicts and skipped.
+     */
+    static ReindexRequest reindexRequest(String source, String target) {
+        return ReindexRequest.builder(IndexCoordinates.of(source), IndexCoordinates.of(target))
+                .withDestVersionType(VersionType.EXTERNAL)
+                .withConflicts(ReindexRequest.Conflicts.PROCEED)
+                .withRefresh(true)
+                .build();
+    }
+
+    // Runs as a background task and polls it, so large indices are not bound by the client socket timeout
+    private void reindex(String source, String target) throws IOException, InterruptedException {
+        String taskId = elasticsearchOperations.submitReindex(reindexRequest(source, target));
+
+        GetTasksResponse task = elasticsearchClient.tasks().get(t -> t.taskId(taskId));
+        while (!task.completed()) {
+            Thread.sleep(REINDEX_POLL_INTERVAL.toMillis());
+            task = elasticsearchClient.tasks().get(t -> t.taskId(taskId));
+        }
+
+        if (task.error() != null) {
+            throw new IllegalStateException("Reindex into " + target + " failed: " + task.error().reason());
+        }
+        JsonObject response = task.response().toJson().asJsonObject();
+        JsonArray failures = response.getJsonArray("failures");
+        if (failures != null && !failures.isEmpty()) {
+            throw new IllegalStateException("Reindex into " + target + " failed for "
+                    + failures.size() + " documents, first: " + failures.get(0));
+        }
+        log.info("Reindexed {} documents from {} into {} ({} unchanged)", response.getJsonNumber("total"),
+                source, target, response.getJsonNumber("version_conflicts"));
+    }
+
+    // Courses deleted from the write-blocked source after the first copy; ids only, no _source
+    private void deleteRemoved(String source, String target) {
+        Set<String> removed = ids(target);
+        removed.removeAll(ids(source));
+        IndexCoordinates targetIndex = IndexCoordinates.of(target);
+        removed.forEach(id -> elasticsearchOperations.delete(id, targetIndex));
+        if (!removed.isEmpty()) {
+            elasticsearchOperations.indexOps(targetIndex).refresh();
+            log.info("Deleted {} courses from {} that were removed during the reindex", removed.size(), target);
+        }
+    }
+
+    private Set<String> ids(String index) {
+        Query query = Query.findAll();
+        query.addSourceFilter(new FetchSourceFilter(null, new String[]{"*"}));
+        Set<String> ids = new HashSet<>();
+        try (SearchHitsIterator<CourseDocument> hits =
+                     elasticsearchOperations.searchForStream(query, CourseDocument.class, IndexCoordinates.of(index))) {
+            hits.forEachRemaining(hit -> ids.add(hit.getId()));
+        }
+        return ids;
+    }
+
+    private void switchAlias(String alias, String current, String target) {
+        AliasAction add = new AliasAction.Add(AliasActionParameters.builder()
+                .withIndices(target).withAliases(alias).withIsWriteIndex(true).build());
+        IndexOperations targetOps = elasticsearchOperations.indexOps(IndexCoordinates.of(target));
+
+        // The old index is write-blocked and fully copied, so dropping it loses nothing
+        if (current.equals(alias)) {
+            // An alias cannot share its name with an index: drop the old index in the same atomic update
+            targetOps.alias(new AliasActions(add,
+                    new AliasAction.RemoveIndex(AliasActionParameters.builder().withIndices(current).build())));
+        } else {
+            targetOps.alias(new AliasActions(add, new AliasAction.Remove(AliasActionParameters.builder()
+                    .withIndices(current).withAliases(alias).build())));
+            elasticsearchOperations.indexOps(IndexCoordinates.of(current)).delete();
+        }
+    }
+}
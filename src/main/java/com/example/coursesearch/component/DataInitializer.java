@@ -1,54 +1,68 @@
 package com.example.coursesearch.component;
 
-import com.example.coursesearch.model.CourseDocument;
-import com.example.coursesearch.service.CourseService;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.example.coursesearch.dto.BulkIngestResponse;
+import com.example.coursesearch.service.BulkIngestService;
+import com.example.coursesearch.service.BulkLoadIndexTuner;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
 import java.io.InputStream;
-import java.util.List;
 
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class DataInitializer implements CommandLineRunner {
     
-    private final CourseService courseService;
+    private final BulkIngestService bulkIngestService;
+    private final BulkLoadIndexTuner bulkLoadIndexTuner;
+    
+    // JSON array or NDJSON; streamed, so large seed files do not need to fit in memory
+    @Value("${course-search.seed.location:classpath:sample-courses.json}")
+    private Resource seedResource;
+    
+    @Value("${course-search.seed.enabled:true}")
+    private boolean seedEnabled = true;
+    
+    public boolean isEnabled() {
+        return seedEnabled;
+    }
     
     @Override
     public void run(String... args) throws Exception {
-        log.info("Initializing sample course data...");
-        
+        if (!seedEnabled) {
+            log.info("Sample course data loading is disabled");
+            return;
+        }
         try {
-            ObjectMapper objectMapper = new ObjectMapper();
-            objectMapper.registerModule(new JavaTimeModule());
-            
-            ClassPathResource resource = new ClassPathResource("sample-courses.json");
-            InputStream inputStream = resource.getInputStream();
-            
-            List<CourseDocument> courses = objectMapper.readValue(
-                    inputStream, 
-                    new TypeReference<List<CourseDocument>>() {}
-            );
-            
-            // Set the titleSuggest field for autocomplete
-            courses.forEach(course -> {
-                if (course.getTitle() != null) {
-                    course.setTitleSuggest(course.getTitle());
-                }
-            });
-            
-            courseService.saveAllCourses(courses);
-            log.info("Successfully loaded {} sample courses", courses.size());
-            
+            load();
         } catch (Exception e) {
             log.error("Failed to load sample course data", e);
         }
     }
+    
+    /**
+     * Loads the seed file regardless of course-search.seed.enabled and reports what was indexed.
+     */
+    public BulkIngestResponse load() throws IOException {
+        log.info("Initializing sample course data from {}...", seedResource.getDescription());
+        
+        try (InputStream inputStream = seedResource.getInputStream()) {
+            // Streaming parse, bounded chunks and parallel bulk workers (see BulkIngestService),
+            // with refresh and replicas switched off until the load is done
+            BulkIngestResponse result = bulkLoadIndexTuner.runRelaxed(() -> bulkIngestService.ingest(inputStream));
+            
+            if (result.getError() != null || result.getFailed() > 0) {
+                log.warn("Loaded {} of {} sample courses ({} failed): {}",
+                        result.getIndexed(), result.getDocuments(), result.getFailed(), result.getError());
+            } else {
+                log.info("Successfully loaded {} sample courses in {} ms", result.getIndexed(), result.getTookMs());
+            }
+            return result;
+        }
+    }
 }
@@ -0,0 +1,99 @@
+package com.example.coursesearch.component;
+
+import com.example.coursesearch.model.CourseDocument;
+import com.example.coursesearch.service.CatalogSnapshotFile;
+import com.example.coursesearch.service.CourseService;
+import com.example.coursesearch.service.ElasticsearchCircuitBreaker;
+import com.example.coursesearch.service.EmbeddedCourseIndex;
+import com.example.coursesearch.service.SuggestionIndex;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Loads the in-process suggestion index once the application is up (after DataInitializer has run)
+ * and refreshes it periodically, so the degraded-mode snapshot stays reasonably fresh.
+ * Runs in the background; autocomplete keeps using Elasticsearch until the index is warm. The same scroll
+ * loads the local filter index when it mirrors the catalog, and filter-only searches go to Elasticsearch
+ * until then.
+ *
+ * With {@code course-search.snapshot.enabled} both indexes start from the catalog file written by the last
+ * instance (see CatalogSnapshotFile) before the first request is served, and the background scroll only
+ * catches them up. The file is rewritten after every reload and on shutdown. With the embedded engine it is
+ * what the catalog is restored from, whatever its age; writes since the last reload are lost if the process
+ * dies without shutting down.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SuggestionIndexWarmer {
+
+    private final CourseService courseService;
+    private final ElasticsearchCircuitBreaker circuitBreaker;
+    private final CatalogSnapshotFile catalogSnapshot;
+    private final EmbeddedCourseIndex embeddedIndex;
+    private final SuggestionIndex suggestionIndex;
+
+    @PostConstruct
+    public void restore() {
+        if (!catalogSnapshot.isEnabled() || !holdsCatalog()) {
+            return;
+        }
+        List<CourseDocument> catalog = embeddedIndex.isEnabled()
+                ? catalogSnapshot.readIgnoringAge() : catalogSnapshot.read();
+        if (!catalog.isEmpty()) {
+            embeddedIndex.rebuild(catalog.stream());
+            suggestionIndex.rebuild(catalog.stream());
+        }
+    }
+
+    @PreDestroy
+    public void persist() {
+        writeSnapshot();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        CompletableFuture.runAsync(this::rebuild);
+    }
+
+    @Scheduled(initialDelayString = "${course-search.autocomplete.snapshot-refresh:PT5M}",
+            fixedDelayString = "${course-search.autocomplete.snapshot-refresh:PT5M}")
+    public void refresh() {
+        // Keep serving the last snapshot instead of scanning an index that is already struggling
+        if (!circuitBreaker.isClosed()) {
+            log.debug("Skipping suggestion snapshot refresh while the circuit breaker is {}", circuitBreaker.getState());
+            return;
+        }
+        rebuild();
+    }
+
+    private void rebuild() {
+        try {
+            courseService.rebuildLocalIndexes();
+            writeSnapshot();
+        } catch (Exception e) {
+            log.warn("Could not build suggestion index, keeping the previous snapshot: {}", e.getMessage());
+        }
+    }
+
+    // Only the embedded index holds full documents; the suggestion index keeps titles and categories.
+    // Synchronized: a reload and the shutdown hook must not write at the same time, and the last write wins
+    private synchronized void writeSnapshot() {
+        if (catalogSnapshot.isEnabled() && holdsCatalog() && embeddedIndex.isWarm()) {
+            catalogSnapshot.write(embeddedIndex.findAll());
+        }
+    }
+
+    private boolean holdsCatalog() {
+        return embeddedIndex.isEnabled() || embeddedIndex.mirrorsCatalog();
+    }
+}
@@ -1,13 +1,22 @@
 package com.example.coursesearch.config;
 
+import co.elastic.clients.transport.ElasticsearchTransport;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.elasticsearch.client.ClientConfiguration;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchClients;
 import org.springframework.data.elasticsearch.client.elc.ElasticsearchConfiguration;
+import org.springframework.data.elasticsearch.client.elc.ReactiveElasticsearchClient;
+import org.springframework.data.elasticsearch.client.elc.ReactiveElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.ReactiveElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.convert.ElasticsearchConverter;
 import org.springframework.data.elasticsearch.repository.config.EnableElasticsearchRepositories;
 
 @Configuration
-@EnableElasticsearchRepositories(basePackages = "com.example.coursesearch.repository")
+@Slf4j
 public class ElasticsearchConfig extends ElasticsearchConfiguration {
 
     @Value("${spring.elasticsearch.uris:http://localhost:9200}")
@@ -19,12 +28,53 @@ public class ElasticsearchConfig extends ElasticsearchConfiguration {
     @Value("${spring.elasticsearch.socket-timeout:60s}")
     private String socketTimeout;
 
+    // The Apache async client defaults to 30 connections, 10 per route: far fewer than the concurrent
+    // requests Tomcat can hand over when it runs on virtual threads
+    @Value("${course-search.elasticsearch.max-connections:30}")
+    private int maxConnections;
+
+    @Value("${course-search.elasticsearch.max-connections-per-route:10}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    /**
+     * Creating a repository checks for (and creates) the course index, so with the embedded search engine
+     * there are none and Elasticsearch is never contacted.
+     */
+    @Configuration
+    @ConditionalOnProperty(name = "course-search.engine", havingValue = "elasticsearch", matchIfMissing = true)
+    @EnableElasticsearchRepositories(basePackages = "com.example.coursesearch.repository")
+    static class RepositoryConfig {
+    }
+
+    /**
+     * Reactive client for the non-blocking search path. It shares the transport, and with it the
+     * async HTTP connection pool, with the blocking client.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "course-search.reactive.enabled", havingValue = "true")
+    public ReactiveElasticsearchOperations reactiveElasticsearchOperations(
+            ElasticsearchTransport elasticsearchTransport, ElasticsearchConverter elasticsearchConverter) {
+        return new ReactiveElasticsearchTemplate(new ReactiveElasticsearchClient(elasticsearchTransport), elasticsearchConverter);
+    }
+
     @Override
     public ClientConfiguration clientConfiguration() {
+        if (virtualThreads && Runtime.version().feature() < 21) {
+            log.warn("spring.threads.virtual.enabled is set but Java {} has no virtual threads, requests run on platform threads",
+                    Runtime.version().feature());
+        }
+        log.info("Elasticsearch connection pool: {} connections, {} per node", maxConnections, maxConnectionsPerRoute);
+
         return ClientConfiguration.builder()
                 .connectedTo(elasticsearchUrl.replace("http://", ""))
                 .withConnectTimeout(java.time.Duration.parse("PT" + connectionTimeout.toUpperCase()))
                 .withSocketTimeout(java.time.Duration.parse("PT" + socketTimeout.toUpperCase()))
+                .withClientConfigurer(ElasticsearchClients.ElasticsearchHttpClientConfigurationCallback.from(httpClient -> httpClient
+                        .setMaxConnTotal(maxConnections)
+                        .setMaxConnPerRoute(maxConnectionsPerRoute)))
                 .build();
     }
 }
@@ -0,0 +1,62 @@
+package com.example.coursesearch.controller;
+
+import com.example.coursesearch.dto.CourseSearchRequest;
+import com.example.coursesearch.dto.CourseSearchResponse;
+import com.example.coursesearch.dto.CourseSummary;
+import com.example.coursesearch.service.ReactiveCourseSearchService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Non-blocking twins of GET /api/search and POST /api/courses/search. The handlers return a Mono, so Spring MVC
+ * releases the Tomcat thread while Elasticsearch answers. Enabled with course-search.reactive.enabled=true.
+ */
+@RestController
+@RequestMapping("/api/async")
+@ConditionalOnProperty(name = "course-search.reactive.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class AsyncSearchController {
+    
+    private final ReactiveCourseSearchService reactiveCourseSearchService;
+    
+    @GetMapping("/search")
+    public Mono<ResponseEntity<Map<String, Object>>> searchCourses(
+            @RequestParam(value = "q", required = false) String query,
+            @RequestParam(required = false) Integer minAge,
+            @RequestParam(required = false) Integer maxAge,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String gradeRange,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(defaultValue = "upcoming") String sort,
+            @RequestParam(defaultValue = "0") Integer page,
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean facets) {
+        
+        log.debug("Received async search request - q: {}, category: {}, sort: {}, page: {}, size: {}", 
+                query, category, sort, page, size);
+        
+        CourseSearchRequest request = SearchController.toSearchRequest(query, minAge, maxAge, category, type,
+                gradeRange, minPrice, maxPrice, startDate, sort, page, size, cursor, facets);
+        
+        return reactiveCourseSearchService.searchCourses(request, CourseSummary.SOURCE_FIELDS)
+                .map(response -> ResponseEntity.ok(SearchController.toResult(response, cursor != null)));
+    }
+    
+    @PostMapping("/courses/search")
+    public Mono<ResponseEntity<CourseSearchResponse>> searchCoursesPost(@RequestBody CourseSearchRequest request) {
+        log.debug("Received async POST search request: {}", request);
+        return reactiveCourseSearchService.searchCourses(request, null).map(ResponseEntity::ok);
+    }
+}
@@ -1,15 +1,22 @@
 package com.example.coursesearch.controller;
 
 import com.example.coursesearch.component.DataInitializer;
+import com.example.coursesearch.dto.BulkIngestResponse;
+import com.example.coursesearch.dto.BulkUpdateResponse;
 import com.example.coursesearch.dto.CourseSearchRequest;
 import com.example.coursesearch.dto.CourseSearchResponse;
 import com.example.coursesearch.model.CourseDocument;
+import com.example.coursesearch.service.BulkIngestService;
 import com.example.coursesearch.service.CourseService;
+import com.example.coursesearch.service.CourseUpdateService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 
@@ -22,15 +29,31 @@ public class CourseController {
     
     private final CourseService courseService;
     private final DataInitializer dataInitializer;
+    private final BulkIngestService bulkIngestService;
+    private final CourseUpdateService courseUpdateService;
     
     @PostMapping("/load-sample-data")
     public ResponseEntity<Map<String, Object>> loadSampleData() {
+        if (!dataInitializer.isEnabled()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "message", "Sample data loading is disabled (course-search.seed.enabled=false)",
+                "status", "error"
+            ));
+        }
         try {
             log.info("Manually triggering sample data load...");
-            dataInitializer.run();
+            BulkIngestResponse result = dataInitializer.load();
+            if (result.getError() != null || result.getFailed() > 0) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of(
+                    "message", "Loaded " + result.getIndexed() + " of " + result.getDocuments() + " sample courses: "
+                            + (result.getError() != null ? result.getError() : result.getFailed() + " failed"),
+                    "status", "error"
+                ));
+            }
             return ResponseEntity.ok(Map.of(
                 "message", "Sample data loaded successfully",
-                "status", "success"
+                "status", "success",
+                "indexed", result.getIndexed()
             ));
         } catch (Exception e) {
             log.error("Failed to load sample data", e);
@@ -59,9 +82,10 @@ public class CourseController {
             @RequestParam(defaultValue = "0") Integer page,
             @RequestParam(defaultValue = "10") Integer size,
             @RequestParam(defaultValue = "nextSessionDate") String sortBy,
-            @RequestParam(defaultValue = "asc") String sortDirection) {
+            @RequestParam(defaultValue = "asc") String sortDirection,
+            @RequestParam(required = false) String cursor) {
         
-        log.info("Received search request for query: {}", query);
+        log.debug("Received search request for query: {}", query);
         
         CourseSearchRequest request = new CourseSearchRequest();
         request.setQuery(query);
@@ -81,6 +105,7 @@ public class CourseController {
         request.setSize(size);
         request.setSortBy(sortBy);
         request.setSortDirection(sortDirection);
+        request.setCursor(cursor);
         
         CourseSearchResponse response = courseService.searchCourses(request);
         return ResponseEntity.ok(response);
@@ -88,25 +113,59 @@ public class CourseController {
     
     @PostMapping("/search")
     public ResponseEntity<CourseSearchResponse> searchCoursesPost(@RequestBody CourseSearchRequest request) {
-        log.info("Received POST search request: {}", request);
+        log.debug("Received POST search request: {}", request);
         CourseSearchResponse response = courseService.searchCourses(request);
         return ResponseEntity.ok(response);
     }
     
     @GetMapping("/autocomplete")
-    public ResponseEntity<List<String>> getAutocompleteSuggestions(@RequestParam String query) {
-        log.info("Received autocomplete request for: {}", query);
-        List<String> suggestions = courseService.getAutocompleteSuggestions(query);
+    public ResponseEntity<List<String>> getAutocompleteSuggestions(
+            @RequestParam String query,
+            @RequestParam(required = false) String category) {
+        log.debug("Received autocomplete request for: {}", query);
+        List<String> suggestions = courseService.getAutocompleteSuggestions(query, category);
         return ResponseEntity.ok(suggestions);
     }
     
-    @PostMapping("/bulk")
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<List<CourseDocument>> createCourses(@RequestBody List<CourseDocument> courses) {
         log.info("Creating {} courses", courses.size());
         List<CourseDocument> savedCourses = courseService.saveAllCourses(courses);
         return ResponseEntity.ok(savedCourses);
     }
     
+    /**
+     * Streaming bulk load: one course JSON object per line (application/x-ndjson).
+     * The body is parsed incrementally and only per-batch counts and failures are returned.
+     */
+    @PostMapping(value = "/bulk", consumes = "application/x-ndjson")
+    public ResponseEntity<BulkIngestResponse> ingestCourses(InputStream body) {
+        log.info("Receiving streaming bulk upload");
+        BulkIngestResponse response = bulkIngestService.ingest(body);
+        if (response.getError() != null) {
+            return ResponseEntity.badRequest().body(response);
+        }
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Partial update: only the fields in the body change, e.g. {"price": 95.0}. Answers 404 for an unknown
+     * course and 409 when concurrent writes to the same course kept winning (see CourseUpdateService).
+     */
+    @PatchMapping("/{id}")
+    public ResponseEntity<CourseDocument> updateCourse(@PathVariable String id, @RequestBody Map<String, Object> changes) {
+        log.debug("Updating course {} fields {}", id, changes.keySet());
+        return ResponseEntity.ok(courseUpdateService.updateCourse(id, changes));
+    }
+    
+    /**
+     * Bulk partial update: a JSON array of objects, each with the id of a course and the fields to change.
+     */
+    @PatchMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BulkUpdateResponse> updateCourses(@RequestBody List<Map<String, Object>> changes) {
+        return ResponseEntity.ok(courseUpdateService.updateCourses(changes));
+    }
+    
     @GetMapping("/health")
     public ResponseEntity<String> health() {
         return ResponseEntity.ok("Course Search API is running!");
@@ -2,7 +2,9 @@ package com.example.coursesearch.controller;
 
 import com.example.coursesearch.dto.CourseSearchRequest;
 import com.example.coursesearch.dto.CourseSearchResponse;
+import com.example.coursesearch.dto.CourseSummary;
 import com.example.coursesearch.service.CourseService;
+import com.example.coursesearch.service.SearchProfiler;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -21,6 +23,7 @@ import java.util.stream.Collectors;
 public class SearchController {
     
     private final CourseService courseService;
+    private final SearchProfiler searchProfiler;
     
     @GetMapping("/search")
     public ResponseEntity<Map<String, Object>> searchCourses(
@@ -29,83 +32,102 @@ public class SearchController {
             @RequestParam(required = false) Integer maxAge,
             @RequestParam(required = false) String category,
             @RequestParam(required = false) String type,
+            @RequestParam(required = false) String gradeRange,
             @RequestParam(required = false) Double minPrice,
             @RequestParam(required = false) Double maxPrice,
             @RequestParam(required = false) String startDate,
             @RequestParam(defaultValue = "upcoming") String sort,
             @RequestParam(defaultValue = "0") Integer page,
-            @RequestParam(defaultValue = "10") Integer size) {
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean facets,
+            @RequestParam(defaultValue = "false") boolean profile) {
         
-        log.info("Received search request - q: {}, category: {}, sort: {}, page: {}, size: {}", 
-                query, category, sort, page, size);
+        log.debug("Received search request - q: {}, category: {}, sort: {}, page: {}, size: {}, cursor: {}", 
+                query, category, sort, page, size, cursor != null);
         
-        // Map the request parameters to our internal CourseSearchRequest format
+        CourseSearchRequest request = toSearchRequest(query, minAge, maxAge, category, type, gradeRange, minPrice,
+                maxPrice, startDate, sort, page, size, cursor, facets);
+        
+        // Profiled first, so the profile is not skewed by caches the regular search just warmed
+        Map<String, Object> searchProfile = profile
+                ? searchProfiler.profile(request, CourseSummary.SOURCE_FIELDS) : null;
+        
+        // Execute search using our service, fetching only the fields returned below
+        CourseSearchResponse response = courseService.searchCourses(request, CourseSummary.SOURCE_FIELDS);
+        
+        Map<String, Object> result = toResult(response, cursor != null);
+        if (searchProfile != null) {
+            result.put("profile", searchProfile);
+        }
+        log.debug("Returning {} courses out of {} total", response.getCourses().size(), response.getTotalElements());
+        
+        return ResponseEntity.ok(result);
+    }
+    
+    /**
+     * Maps the request parameters to our internal CourseSearchRequest format
+     */
+    static CourseSearchRequest toSearchRequest(String query, Integer minAge, Integer maxAge, String category,
+                                               String type, String gradeRange, Double minPrice, Double maxPrice,
+                                               String startDate, String sort, Integer page, Integer size,
+                                               String cursor, boolean facets) {
         CourseSearchRequest request = new CourseSearchRequest();
         request.setQuery(query);
         request.setMinAge(minAge);
         request.setMaxAge(maxAge);
         request.setCategory(category);
         request.setType(type);
+        request.setGradeRange(gradeRange);
         request.setMinPrice(minPrice);
         request.setMaxPrice(maxPrice);
         request.setNextSessionDate(startDate);
         request.setPage(page);
         request.setSize(size);
+        request.setCursor(cursor);
+        request.setIncludeFacets(facets);
         
         // Map sort parameter to our internal format
-        String sortBy = mapSortParameter(sort);
-        String sortDirection = getSortDirection(sort);
-        request.setSortBy(sortBy);
-        request.setSortDirection(sortDirection);
-        
-        // Execute search using our service
-        CourseSearchResponse response = courseService.searchCourses(request);
-        
-        // Transform response to match the requested format
+        request.setSortBy(mapSortParameter(sort));
+        request.setSortDirection(getSortDirection(sort));
+        return request;
+    }
+    
+    /**
+     * Transforms the service response to match the requested format
+     */
+    static Map<String, Object> toResult(CourseSearchResponse response, boolean cursorMode) {
         Map<String, Object> result = new HashMap<>();
         result.put("total", response.getTotalElements());
         
         // Extract only the required fields from courses
-        List<Map<String, Object>> courses = response.getCourses().stream()
-                .map(course -> {
-                    Map<String, Object> courseMap = new HashMap<>();
-                    courseMap.put("id", course.getId());
-                    courseMap.put("title", course.getTitle());
-                    courseMap.put("category", course.getCategory());
-                    courseMap.put("price", course.getPrice());
-                    courseMap.put("nextSessionDate", course.getNextSessionDate());
-                    
-                    // Include additional useful fields
-                    courseMap.put("description", course.getDescription());
-                    courseMap.put("type", course.getType());
-                    courseMap.put("gradeRange", course.getGradeRange());
-                    courseMap.put("minAge", course.getMinAge());
-                    courseMap.put("maxAge", course.getMaxAge());
-                    
-                    return courseMap;
-                })
+        List<CourseSummary> courses = response.getCourses().stream()
+                .map(CourseSummary::from)
                 .collect(Collectors.toList());
         
         result.put("courses", courses);
         
         // Include pagination metadata for convenience
-        result.put("pagination", Map.of(
-            "currentPage", response.getCurrentPage(),
-            "pageSize", response.getPageSize(),
-            "totalPages", response.getTotalPages(),
-            "hasNext", response.isHasNext(),
-            "hasPrevious", response.isHasPrevious()
-        ));
-        
-        log.info("Returning {} courses out of {} total", courses.size(), response.getTotalElements());
-        
-        return ResponseEntity.ok(result);
+        Map<String, Object> pagination = new HashMap<>();
+        pagination.put("currentPage", response.getCurrentPage());
+        pagination.put("pageSize", response.getPageSize());
+        pagination.put("totalPages", response.getTotalPages());
+        pagination.put("hasNext", response.isHasNext());
+        pagination.put("hasPrevious", response.isHasPrevious());
+        if (cursorMode) {
+            pagination.put("nextCursor", response.getNextCursor());
+        }
+        result.put("pagination", pagination);
+        if (response.getFacets() != null) {
+            result.put("facets", response.getFacets());
+        }
+        return result;
     }
     
     /**
      * Maps the sort parameter to our internal sortBy field
      */
-    private String mapSortParameter(String sort) {
+    private static String mapSortParameter(String sort) {
         if (sort == null) {
             return "nextSessionDate";
         }
@@ -125,7 +147,7 @@ public class SearchController {
     /**
      * Gets the sort direction for the given sort parameter
      */
-    private String getSortDirection(String sort) {
+    private static String getSortDirection(String sort) {
         if (sort == null) {
             return "asc";
         }
@@ -142,6 +164,25 @@ public class SearchController {
         }
     }
     
+    /**
+     * Runs several searches (e.g. one per home page carousel) in one round trip, each with its own
+     * filters, paging and sort. Results come back in request order, in the same format as GET /search.
+     */
+    @PostMapping("/search/batch")
+    public ResponseEntity<Map<String, Object>> searchCoursesBatch(@RequestBody List<CourseSearchRequest> requests) {
+        log.debug("Received batch search request with {} searches", requests.size());
+        
+        List<Map<String, Object>> results = courseService.searchCoursesBatch(requests, CourseSummary.SOURCE_FIELDS)
+                .stream()
+                .map(response -> toResult(response, false))
+                .collect(Collectors.toList());
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("results", results);
+        result.put("count", results.size());
+        return ResponseEntity.ok(result);
+    }
+    
     @GetMapping("/search/help")
     public ResponseEntity<Map<String, Object>> getSearchHelp() {
         Map<String, Object> help = new HashMap<>();
@@ -155,19 +196,24 @@ public class SearchController {
         parameters.put("maxAge", "Maximum age filter (integer)");
         parameters.put("category", "Course category filter (exact match)");
         parameters.put("type", "Course type filter: ONE_TIME, COURSE, or CLUB");
+        parameters.put("gradeRange", "Grade range filter (exact match)");
         parameters.put("minPrice", "Minimum price filter (decimal)");
         parameters.put("maxPrice", "Maximum price filter (decimal)");
-        parameters.put("startDate", "Filter courses on or after this date (ISO-8601 format)");
+        parameters.put("startDate", "Filter courses on or after this date (ISO-8601, e.g. 2025-06-15 or 2025-06-15T10:00:00Z; other values return 400)");
         parameters.put("sort", "Sort order: upcoming (default), priceAsc, priceDesc");
         parameters.put("page", "Page number (default: 0)");
         parameters.put("size", "Page size (default: 10)");
+        parameters.put("cursor", "Cursor pagination for deep pages: * for the first page, then pagination.nextCursor (page is ignored); keep q, filters and sort unchanged while paging, restart with * on 410 (expired)");
+        parameters.put("facets", "true to also return filter counts for category, type, gradeRange, age and price (default: false)");
+        parameters.put("profile", "Debugging: true to also return the Elasticsearch profile of the query (course-search.search.profile.enabled)");
         
         help.put("parameters", parameters);
         
         Map<String, String> response = new HashMap<>();
         response.put("total", "Total number of matching courses");
         response.put("courses", "Array of course objects with id, title, category, price, nextSessionDate, and more");
-        response.put("pagination", "Pagination metadata including currentPage, pageSize, totalPages, hasNext, hasPrevious");
+        response.put("pagination", "Pagination metadata including currentPage, pageSize, totalPages, hasNext, hasPrevious (and nextCursor in cursor mode)");
+        response.put("facets", "With facets=true: buckets of {key, count} per facet (plus from/to for age and price); each facet counts with all active filters except its own");
         
         help.put("response", response);
         
@@ -176,8 +222,11 @@ public class SearchController {
         examples.put("Filter by category", "/api/search?category=Science&sort=priceAsc");
         examples.put("Age and price range", "/api/search?minAge=10&maxAge=15&minPrice=50&maxPrice=100");
         examples.put("Pagination", "/api/search?page=1&size=5");
+        examples.put("Cursor pagination", "/api/search?sort=priceAsc&size=50&cursor=*");
+        examples.put("Filter counts", "/api/search?q=art&category=Art&facets=true");
         examples.put("Combined filters", "/api/search?q=art&type=CLUB&sort=upcoming&page=0&size=10");
         examples.put("Autocomplete suggestions", "/api/search/suggest?q=mat");
+        examples.put("Autocomplete within a category", "/api/search/suggest?q=mat&category=Math");
         
         help.put("examples", examples);
         
@@ -189,6 +238,7 @@ public class SearchController {
         
         Map<String, String> suggestParams = new HashMap<>();
         suggestParams.put("q", "Query string for suggestions (required)");
+        suggestParams.put("category", "Only suggest titles from this category (optional)");
         suggestEndpoint.put("parameters", suggestParams);
         
         Map<String, String> suggestResponse = new HashMap<>();
@@ -199,14 +249,23 @@ public class SearchController {
         
         help.put("suggestEndpoint", suggestEndpoint);
         
+        Map<String, Object> batchEndpoint = new HashMap<>();
+        batchEndpoint.put("endpoint", "/api/search/batch");
+        batchEndpoint.put("method", "POST");
+        batchEndpoint.put("description", "Run up to 20 searches in one Elasticsearch _msearch; no cursor pagination");
+        batchEndpoint.put("body", "Array of search requests: {query, category, type, gradeRange, minAge, maxAge, minPrice, maxPrice, nextSessionDate, page, size, sortBy, sortDirection, includeFacets}");
+        batchEndpoint.put("response", "results: one object per search in request order, formatted like GET /api/search");
+        help.put("batchEndpoint", batchEndpoint);
+        
         return ResponseEntity.ok(help);
     }
     
     @GetMapping("/search/suggest")
     public ResponseEntity<Map<String, Object>> getSuggestions(
-            @RequestParam(value = "q", required = true) String query) {
+            @RequestParam(value = "q", required = true) String query,
+            @RequestParam(required = false) String category) {
         
-        log.info("Received suggest request for query: {}", query);
+        log.debug("Received suggest request for query: {}", query);
         
         if (query == null || query.trim().isEmpty()) {
             Map<String, Object> result = new HashMap<>();
@@ -215,14 +274,14 @@ public class SearchController {
             return ResponseEntity.ok(result);
         }
         
-        List<String> suggestions = courseService.getAutocompleteSuggestions(query.trim());
+        List<String> suggestions = courseService.getAutocompleteSuggestions(query.trim(), category);
         
         Map<String, Object> result = new HashMap<>();
         result.put("suggestions", suggestions);
         result.put("query", query);
         result.put("count", suggestions.size());
         
-        log.info("Returning {} suggestions for query: {}", suggestions.size(), query);
+        log.debug("Returning {} suggestions for query: {}", suggestions.size(), query);
         return ResponseEntity.ok(result);
     }
 }
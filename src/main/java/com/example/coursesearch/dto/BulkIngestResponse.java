@@ -0,0 +1,28 @@
+package com.example.coursesearch.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class BulkIngestResponse {
+    private long documents;
+    private long indexed;
+    private long failed;
+    private long tookMs;
+    private String error; // set when the upload could not be parsed to the end
+    private List<BatchResult> batches = new ArrayList<>();
+
+    @Data
+    public static class BatchResult {
+        private int batch;
+        private int documents;
+        private int indexed;
+        private int failed;
+        // First failures of the batch (id -> reason); capped so the response stays small
+        private Map<String, String> failures = new LinkedHashMap<>();
+    }
+}
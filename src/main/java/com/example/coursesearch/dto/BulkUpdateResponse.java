@@ -0,0 +1,17 @@
+package com.example.coursesearch.dto;
+
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+public class BulkUpdateResponse {
+    private int documents;
+    private int updated;
+    private int failed;
+    // Documents sent again after a seq_no/primary_term conflict, summed over all attempts
+    private int retried;
+    // First failures (id -> reason); capped so the response stays small
+    private Map<String, String> failures = new LinkedHashMap<>();
+}
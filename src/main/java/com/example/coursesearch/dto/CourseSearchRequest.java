@@ -27,4 +27,10 @@ public class CourseSearchRequest {
     private Integer size = 10;
     private String sortBy = "nextSessionDate";
     private String sortDirection = "asc";
+    
+    // Cursor pagination: "*" starts a cursor, then pass back the nextCursor of the previous page (page is ignored)
+    private String cursor;
+    
+    // Also return filter counts for category, type, gradeRange, age and price (CourseSearchResponse.facets)
+    private boolean includeFacets;
 }
@@ -4,6 +4,7 @@ import com.example.coursesearch.model.CourseDocument;
 import lombok.Data;
 
 import java.util.List;
+import java.util.Map;
 
 @Data
 public class CourseSearchResponse {
@@ -14,4 +15,6 @@ public class CourseSearchResponse {
     private int pageSize;
     private boolean hasNext;
     private boolean hasPrevious;
+    private String nextCursor; // only in cursor mode; null on the last page
+    private Map<String, List<FacetBucket>> facets; // only when requested, keyed by facet name
 }
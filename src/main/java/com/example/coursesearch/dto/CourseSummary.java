@@ -0,0 +1,45 @@
+package com.example.coursesearch.dto;
+
+import com.example.coursesearch.model.CourseDocument;
+
+import java.util.List;
+
+/**
+ * Course as returned by /api/search. Searches for summaries only fetch {@link #SOURCE_FIELDS}
+ * from Elasticsearch, the id comes from the hit metadata.
+ *
+ * Hits are still read as (sparse) CourseDocuments and copied into summaries at the controller: the result
+ * cache, the coalescer and the embedded and mirror indexes all hold CourseSearchResponse with CourseDocument
+ * courses, and the mirror answers most summary searches without Elasticsearch. Reading hits straight into
+ * this record would need a second response type through all of them, to save one small copy per hit.
+ */
+public record CourseSummary(
+        String id,
+        String title,
+        String category,
+        Double price,
+        String nextSessionDate,
+        String description,
+        String type,
+        String gradeRange,
+        Integer minAge,
+        Integer maxAge) {
+
+    // Keep in sync with the components above
+    public static final List<String> SOURCE_FIELDS = List.of(
+            "title", "category", "price", "nextSessionDate", "description", "type", "gradeRange", "minAge", "maxAge");
+
+    public static CourseSummary from(CourseDocument course) {
+        return new CourseSummary(
+                course.getId(),
+                course.getTitle(),
+                course.getCategory(),
+                course.getPrice(),
+                course.getNextSessionDate(),
+                course.getDescription(),
+                course.getType(),
+                course.getGradeRange(),
+                course.getMinAge(),
+                course.getMaxAge());
+    }
+}
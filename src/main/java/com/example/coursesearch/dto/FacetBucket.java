@@ -0,0 +1,15 @@
+package com.example.coursesearch.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One value of a search facet and the number of matching courses. Range facets (price, age) also carry
+ * the bounds to pass back as minPrice/maxPrice or minAge/maxAge; {@code to} is exclusive for price.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record FacetBucket(String key, Double from, Double to, long count) {
+
+    public static FacetBucket of(String key, long count) {
+        return new FacetBucket(key, null, null, count);
+    }
+}
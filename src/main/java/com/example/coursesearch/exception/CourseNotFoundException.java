@@ -0,0 +1,15 @@
+package com.example.coursesearch.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * The course addressed by id does not exist; answered with a 404.
+ */
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class CourseNotFoundException extends RuntimeException {
+
+    public CourseNotFoundException(String id) {
+        super("Course " + id + " not found");
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.coursesearch.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * A partial update kept losing the race against concurrent writes to the same course and gave up;
+ * answered with a 409, the client may retry.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class CourseUpdateConflictException extends RuntimeException {
+
+    public CourseUpdateConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.coursesearch.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * The point-in-time behind a pagination cursor has expired or is unknown to Elasticsearch; answered with
+ * a 410, the client restarts with {@code cursor=*}.
+ */
+@ResponseStatus(HttpStatus.GONE)
+public class ExpiredCursorException extends RuntimeException {
+
+    public ExpiredCursorException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
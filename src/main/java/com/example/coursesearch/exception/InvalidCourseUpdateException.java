@@ -0,0 +1,19 @@
+package com.example.coursesearch.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Rejects a partial update that names an unknown field or a value of the wrong type with a 400.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidCourseUpdateException extends RuntimeException {
+
+    public InvalidCourseUpdateException(String message) {
+        super(message);
+    }
+
+    public InvalidCourseUpdateException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
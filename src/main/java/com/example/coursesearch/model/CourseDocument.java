@@ -1,13 +1,19 @@
 package com.example.coursesearch.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.DateFormat;
 import org.springframework.data.elasticsearch.annotations.Document;
 import org.springframework.data.elasticsearch.annotations.Field;
 import org.springframework.data.elasticsearch.annotations.FieldType;
+import org.springframework.data.elasticsearch.annotations.CompletionContext;
 import org.springframework.data.elasticsearch.annotations.CompletionField;
+import org.springframework.data.elasticsearch.annotations.ValueConverter;
+import org.springframework.data.elasticsearch.core.query.SeqNoPrimaryTerm;
+import org.springframework.data.elasticsearch.core.suggest.Completion;
 
 import java.util.List;
 
@@ -24,12 +30,16 @@ public class CourseDocument {
     private String title;
     
     /**
-     * Completion field for Elasticsearch completion suggester.
-     * Currently populated but not actively used - implementation uses substring matching instead.
-     * This field is ready for future enhancement to use Elasticsearch's completion suggester API.
+     * Completion field backing the Elasticsearch completion suggester used for autocomplete.
+     * Derived from the title on every write (see CourseService), one input per word so that
+     * "art" also completes "Young Artists Club". The category context is read from the
+     * category field at index time, so suggestions can be restricted to one category.
      */
-    @CompletionField(maxInputLength = 100)
-    private String titleSuggest;
+    @JsonIgnore
+    @CompletionField(maxInputLength = 100, contexts = {
+            @CompletionContext(name = "category", type = CompletionContext.ContextMappingType.CATEGORY, path = "category")
+    })
+    private Completion titleSuggest;
     
     @Field(type = FieldType.Text, analyzer = "standard")
     private String description;
@@ -52,7 +62,8 @@ public class CourseDocument {
     @Field(type = FieldType.Double)
     private Double price;
     
-    @Field(type = FieldType.Keyword)
+    @Field(type = FieldType.Date, format = {DateFormat.date_optional_time, DateFormat.epoch_millis})
+    @ValueConverter(IsoDateStringConverter.class)
     private String nextSessionDate; // ISO-8601 format
     
     // Legacy fields for backward compatibility
@@ -74,12 +85,21 @@ public class CourseDocument {
     @Field(type = FieldType.Keyword)
     private List<String> tags;
     
-    @Field(type = FieldType.Keyword)
+    @Field(type = FieldType.Date, format = {DateFormat.date_optional_time, DateFormat.epoch_millis})
+    @ValueConverter(IsoDateStringConverter.class)
     private String createdDate;
     
-    @Field(type = FieldType.Keyword)
+    @Field(type = FieldType.Date, format = {DateFormat.date_optional_time, DateFormat.epoch_millis})
+    @ValueConverter(IsoDateStringConverter.class)
     private String updatedDate;
     
     @Field(type = FieldType.Boolean)
     private Boolean isActive;
+    
+    /**
+     * Position of the document when it was read, filled in by Elasticsearch on get and search and never
+     * stored in _source. Partial updates send it back so a concurrent write is detected instead of lost.
+     */
+    @JsonIgnore
+    private SeqNoPrimaryTerm seqNoPrimaryTerm;
 }
\ No newline at end of file
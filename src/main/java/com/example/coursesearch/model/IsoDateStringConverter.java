@@ -0,0 +1,20 @@
+package com.example.coursesearch.model;
+
+import org.springframework.data.elasticsearch.core.mapping.PropertyValueConverter;
+
+/**
+ * Keeps ISO-8601 date strings as they are on the way in and out of Elasticsearch. The properties are
+ * mapped as {@code date} so Elasticsearch parses them, but the API keeps exposing the original strings.
+ */
+public class IsoDateStringConverter implements PropertyValueConverter {
+
+    @Override
+    public Object write(Object value) {
+        return value;
+    }
+
+    @Override
+    public Object read(Object value) {
+        return value != null ? value.toString() : null;
+    }
+}
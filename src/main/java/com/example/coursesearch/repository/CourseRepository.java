@@ -3,10 +3,12 @@ package com.example.coursesearch.repository;
 import com.example.coursesearch.model.CourseDocument;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.elasticsearch.annotations.SourceFilters;
 import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface CourseRepository extends ElasticsearchRepository<CourseDocument, String> {
@@ -27,4 +29,17 @@ public interface CourseRepository extends ElasticsearchRepository<CourseDocument
     Page<CourseDocument> findByTagsIn(List<String> tags, Pageable pageable);
     
     Page<CourseDocument> findByIsActiveTrue(Pageable pageable);
+    
+    /**
+     * Scrolls over the whole catalog fetching only what the in-process suggestion index needs.
+     * Unlike findAll() this is not limited by max_result_window; close the stream when done.
+     */
+    @SourceFilters(includes = {"title", "category"})
+    Stream<CourseDocument> findAllBy();
+
+    /**
+     * Scrolls over the whole catalog with everything but the completion input, for the local filter index.
+     */
+    @SourceFilters(excludes = {"titleSuggest"})
+    Stream<CourseDocument> streamAllBy();
 }
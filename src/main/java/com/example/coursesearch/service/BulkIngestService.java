@@ -0,0 +1,182 @@
+package com.example.coursesearch.service;
+
+import com.example.coursesearch.dto.BulkIngestResponse;
+import com.example.coursesearch.model.CourseDocument;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams course documents from NDJSON (or a single JSON array) into Elasticsearch.
+ *
+ * Documents are parsed one at a time with Jackson's streaming parser and grouped into batches bounded
+ * by document count and source bytes. Up to {@code maxInFlight} batches are indexed concurrently; when
+ * all permits are taken the parser waits, so heap usage is bounded by
+ * {@code (maxInFlight + 1) * batchBytes} regardless of the upload size. The in-process indexes are
+ * reloaded once after the upload rather than per batch.
+ */
+@Service
+@Slf4j
+public class BulkIngestService {
+
+    private final CourseService courseService;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final long batchBytes;
+    private final int maxInFlight;
+    private final ExecutorService executor;
+
+    public BulkIngestService(
+            CourseService courseService,
+            ObjectMapper objectMapper,
+            @Value("${course-search.bulk.batch-size:1000}") int batchSize,
+            @Value("${course-search.bulk.batch-bytes:5MB}") DataSize batchBytes,
+            @Value("${course-search.bulk.max-in-flight:4}") int maxInFlight) {
+        this.courseService = courseService;
+        this.objectMapper = objectMapper;
+        this.batchSize = Math.max(1, batchSize);
+        this.batchBytes = Math.max(1, batchBytes.toBytes());
+        this.maxInFlight = Math.max(1, maxInFlight);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(this.maxInFlight, runnable -> {
+            Thread thread = new Thread(runnable, "bulk-ingest-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public BulkIngestResponse ingest(InputStream inputStream) {
+        long start = System.nanoTime();
+        BulkIngestResponse response = new BulkIngestResponse();
+        Semaphore permits = new Semaphore(maxInFlight);
+        List<PendingBatch> pending = new ArrayList<>();
+
+        List<CourseDocument> batch = new ArrayList<>();
+        long batchStartOffset = 0;
+        long documents = 0;
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(inputStream)) {
+            JsonToken token = parser.nextToken();
+            // Accept a top-level JSON array as well as newline-delimited objects
+            if (token == JsonToken.START_ARRAY) {
+                token = parser.nextToken();
+            }
+            while (token != null && token != JsonToken.END_ARRAY) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new IOException("Expected a course object at line " + parser.getCurrentLocation().getLineNr()
+                            + " but found " + token);
+                }
+                batch.add(objectMapper.readValue(parser, CourseDocument.class));
+                documents++;
+
+                long offset = parser.getCurrentLocation().getByteOffset();
+                if (batch.size() >= batchSize || offset - batchStartOffset >= batchBytes) {
+                    pending.add(submit(pending.size() + 1, batch, permits));
+                    batch = new ArrayList<>();
+                    batchStartOffset = offset;
+                }
+                token = parser.nextToken();
+            }
+        } catch (IOException e) {
+            // Everything parsed up to the bad document is still indexed
+            log.warn("Bulk upload stopped after {} documents: {}", documents, e.getMessage());
+            response.setError(e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.setError("Interrupted while waiting for in-flight batches");
+        }
+
+        if (!batch.isEmpty() && !Thread.currentThread().isInterrupted()) {
+            try {
+                pending.add(submit(pending.size() + 1, batch, permits));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                response.setError("Interrupted while waiting for in-flight batches");
+            }
+        }
+
+        for (PendingBatch batchInFlight : pending) {
+            response.getBatches().add(await(batchInFlight));
+        }
+        if (!pending.isEmpty()) {
+            // Batches are indexed without refresh and skip the local indexes; bring both up to date once at the end
+            try {
+                courseService.refreshIndex();
+                courseService.rebuildLocalIndexes();
+            } catch (RuntimeException e) {
+                log.warn("Refresh after bulk upload failed, local indexes catch up at the next reload: {}", e.getMessage());
+            }
+        }
+
+        response.setDocuments(documents);
+        response.getBatches().forEach(result -> {
+            response.setIndexed(response.getIndexed() + result.getIndexed());
+            response.setFailed(response.getFailed() + result.getFailed());
+        });
+        response.setTookMs((System.nanoTime() - start) / 1_000_000);
+        log.info("Bulk upload indexed {} of {} documents in {} batches ({} ms)",
+                response.getIndexed(), documents, pending.size(), response.getTookMs());
+        return response;
+    }
+
+    private PendingBatch submit(int batchNumber, List<CourseDocument> batch, Semaphore permits)
+            throws InterruptedException {
+        // Back-pressure: the parser blocks here until a batch slot is free
+        permits.acquire();
+        try {
+            Future<BulkIngestResponse.BatchResult> future = executor.submit(() -> {
+                try {
+                    return courseService.indexBatch(batchNumber, batch);
+                } finally {
+                    permits.release();
+                }
+            });
+            return new PendingBatch(batchNumber, batch.size(), future);
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private BulkIngestResponse.BatchResult await(PendingBatch pending) {
+        try {
+            return pending.future().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for bulk batch", e);
+        } catch (ExecutionException e) {
+            // The whole batch failed (e.g. Elasticsearch unreachable), not individual documents
+            log.warn("Bulk batch {} failed: {}", pending.number(), e.getCause().getMessage());
+            BulkIngestResponse.BatchResult failed = new BulkIngestResponse.BatchResult();
+            failed.setBatch(pending.number());
+            failed.setDocuments(pending.size());
+            failed.setFailed(pending.size());
+            failed.getFailures().put("*", e.getCause().getMessage());
+            return failed;
+        }
+    }
+
+    private record PendingBatch(int number, int size, Future<BulkIngestResponse.BatchResult> future) {
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
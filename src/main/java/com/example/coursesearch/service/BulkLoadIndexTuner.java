@@ -0,0 +1,133 @@
+package com.example.coursesearch.service;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.Time;
+import co.elastic.clients.elasticsearch.indices.IndexSettings;
+import co.elastic.clients.elasticsearch.indices.IndexState;
+import co.elastic.clients.json.JsonData;
+import com.example.coursesearch.model.CourseDocument;
+import jakarta.json.JsonValue;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Relaxes index settings for the duration of a large load: refreshes are switched off and replicas
+ * dropped to zero, so every bulk batch is written once and no segments are opened mid-load.
+ * The previous values are restored afterwards, also when the load fails. A setting that was not set on the
+ * index is reset to null rather than pinned to its default value: an explicit refresh_interval, even "1s",
+ * would turn off Elasticsearch's skipping of refreshes on search-idle shards.
+ *
+ * Only an empty index is relaxed: on one that already serves courses, other writers' documents would stay
+ * invisible and unreplicated for the whole load, so it is loaded with its current settings. Two instances
+ * starting together can both see the index empty; the second then reads the first one's load settings, so
+ * a refresh_interval of -1 or zero replicas is never taken as a value to restore, it is reset to the default.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BulkLoadIndexTuner {
+
+    private static final String REFRESH_INTERVAL = "index.refresh_interval";
+    private static final String REPLICAS = "index.number_of_replicas";
+
+    private final ElasticsearchClient elasticsearchClient;
+    private final ElasticsearchOperations elasticsearchOperations;
+
+    @Value("${course-search.bulk.tune-index:true}")
+    private boolean enabled = true;
+
+    public <T> T runRelaxed(Supplier<T> load) {
+        if (!enabled) {
+            return load.get();
+        }
+
+        String index = elasticsearchOperations.getIndexCoordinatesFor(CourseDocument.class).getIndexName();
+        LoadSettings original;
+        try {
+            long courses = elasticsearchOperations.count(Query.findAll(), CourseDocument.class);
+            if (courses > 0) {
+                log.info("Index {} already holds {} courses, loading with its current settings", index, courses);
+                return load.get();
+            }
+            original = readSettings(index);
+            applySettings(index, new LoadSettings("-1", "0"));
+            log.info("Relaxed settings of index {} for bulk load (was refresh_interval={}, replicas={})",
+                    index, describe(original.refreshInterval()), describe(original.replicas()));
+        } catch (Exception e) {
+            log.warn("Could not relax index settings, loading with current settings: {}", e.getMessage());
+            return load.get();
+        }
+
+        try {
+            return load.get();
+        } finally {
+            try {
+                applySettings(index, original);
+                log.info("Restored settings of index {}", index);
+            } catch (Exception e) {
+                log.error("Failed to restore settings of index {} to refresh_interval={}, replicas={}",
+                        index, describe(original.refreshInterval()), describe(original.replicas()), e);
+            }
+        }
+    }
+
+    // Only the settings set on the index itself; null where the index uses the default or is relaxed already
+    private LoadSettings readSettings(String index) throws IOException {
+        IndexState state = elasticsearchClient.indices()
+                .getSettings(g -> g.index(index))
+                .result().values().stream()
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Index " + index + " not found"));
+        String refreshInterval = refreshInterval(state.settings());
+        String replicas = replicas(state.settings());
+        return new LoadSettings("-1".equals(refreshInterval) ? null : refreshInterval,
+                "0".equals(replicas) ? null : replicas);
+    }
+
+    private void applySettings(String index, LoadSettings settings) throws IOException {
+        elasticsearchClient.indices().putSettings(p -> p
+                .index(index)
+                .settings(s -> s
+                        .otherSettings(REFRESH_INTERVAL, setting(settings.refreshInterval()))
+                        .otherSettings(REPLICAS, setting(settings.replicas()))));
+    }
+
+    // An explicit JSON null resets a setting to its default
+    private static JsonData setting(String value) {
+        return JsonData.of(value != null ? value : JsonValue.NULL);
+    }
+
+    private static String describe(String value) {
+        return Objects.toString(value, "default");
+    }
+
+    // Settings come back nested under "index" unless flat settings were requested
+    private static String refreshInterval(IndexSettings settings) {
+        if (settings == null) {
+            return null;
+        }
+        Time value = settings.refreshInterval() != null ? settings.refreshInterval()
+                : settings.index() != null ? settings.index().refreshInterval() : null;
+        return value != null ? value.time() : null;
+    }
+
+    private static String replicas(IndexSettings settings) {
+        if (settings == null) {
+            return null;
+        }
+        return settings.numberOfReplicas() != null ? settings.numberOfReplicas()
+                : settings.index() != null ? settings.index().numberOfReplicas() : null;
+    }
+
+    // Null values are not set on the index
+    private record LoadSettings(String refreshInterval, String replicas) {
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.coursesearch.service;
+
+import com.example.coursesearch.model.CourseDocument;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Binary copy of the course catalog on local disk, so a restarted instance has warm local indexes
+ * (EmbeddedCourseIndex mirror, SuggestionIndex) before the first request instead of after a full
+ * Elasticsearch scroll. With the embedded engine the file is where the catalog survives a restart.
+ *
+ * The file is a header (magic, version, write time, count) followed by one record per course: strings as
+ * length-prefixed UTF-8 with -1 for null, numbers behind a presence byte. It is written to a temporary file
+ * of its own and moved into place, so readers never see a partial file and concurrent writers (another
+ * instance sharing the path) never write into the same temporary file. Reading maps it read-only and decodes straight
+ * from the mapping; a missing, foreign, truncated or older than {@code max-age} file is ignored and the
+ * indexes are built from Elasticsearch as before.
+ */
+@Component
+@Slf4j
+public class CatalogSnapshotFile {
+
+    private static final int MAGIC = 0x43534E50; // "CSNP"
+    private static final int VERSION = 1;
+    private static final byte ABSENT = 0;
+    private static final byte PRESENT = 1;
+
+    private final boolean enabled;
+    private final Path path;
+    private final Duration maxAge;
+    private final Clock clock;
+
+    @Autowired
+    public CatalogSnapshotFile(@Value("${course-search.snapshot.enabled:false}") boolean enabled,
+                               @Value("${course-search.snapshot.path:course-catalog.snap}") Path path,
+                               @Value("${course-search.snapshot.max-age:PT24H}") Duration maxAge) {
+        this(enabled, path, maxAge, Clock.systemUTC());
+    }
+
+    CatalogSnapshotFile(boolean enabled, Path path, Duration maxAge, Clock clock) {
+        this.enabled = enabled;
+        this.path = path;
+        this.maxAge = maxAge;
+        this.clock = clock;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Replaces the file with the given catalog. Failures are logged, the previous file stays in place.
+     */
+    public void write(Collection<CourseDocument> courses) {
+        if (!enabled) {
+            return;
+        }
+        Path temp = null;
+        try {
+            Path dir = path.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            // Unique per write, in the target directory so the move stays on one file system
+            temp = Files.createTempFile(dir, path.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(clock.millis());
+                out.writeInt(courses.size());
+                for (CourseDocument course : courses) {
+                    writeCourse(out, course);
+                }
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Wrote catalog snapshot of {} courses to {}", courses.size(), path);
+        } catch (IOException e) {
+            log.warn("Could not write catalog snapshot to {}: {}", path, e.getMessage());
+            try {
+                if (temp != null) {
+                    Files.deleteIfExists(temp);
+                }
+            } catch (IOException ignored) {
+                // nothing left to clean up
+            }
+        }
+    }
+
+    /**
+     * The catalog of the last {@link #write}, or an empty list when there is no usable file.
+     */
+    public List<CourseDocument> read() {
+        return read(true);
+    }
+
+    /**
+     * Like {@link #read}, but also returns a file older than {@code max-age}: for the embedded engine the file
+     * is the only copy of the catalog, not a cache of Elasticsearch.
+     */
+    public List<CourseDocument> readIgnoringAge() {
+        return read(false);
+    }
+
+    private List<CourseDocument> read(boolean checkAge) {
+        if (!enabled || !Files.isRegularFile(path)) {
+            return List.of();
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                log.info("Ignoring catalog snapshot {}: unknown format", path);
+                return List.of();
+            }
+            Instant writtenAt = Instant.ofEpochMilli(buffer.getLong());
+            if (checkAge && writtenAt.plus(maxAge).isBefore(clock.instant())) {
+                log.info("Ignoring catalog snapshot {} written at {}, older than {}", path, writtenAt, maxAge);
+                return List.of();
+            }
+            int count = checkedCount(buffer);
+            List<CourseDocument> courses = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                courses.add(readCourse(buffer));
+            }
+            log.info("Read catalog snapshot of {} courses written at {}", count, writtenAt);
+            return courses;
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            log.warn("Ignoring unreadable catalog snapshot {}: {}", path, e.toString());
+            return List.of();
+        }
+    }
+
+    // Every field but the derived titleSuggest, in declaration order
+    private static void writeCourse(DataOutputStream out, CourseDocument course) throws IOException {
+        writeString(out, course.getId());
+        writeString(out, course.getTitle());
+        writeString(out, course.getDescription());
+        writeString(out, course.getCategory());
+        writeString(out, course.getType());
+        writeString(out, course.getGradeRange());
+        writeInt(out, course.getMinAge());
+        writeInt(out, course.getMaxAge());
+        if (course.getPrice() == null) {
+            out.writeByte(ABSENT);
+        } else {
+            out.writeByte(PRESENT);
+            out.writeDouble(course.getPrice());
+        }
+        writeString(out, course.getNextSessionDate());
+        writeString(out, course.getInstructor());
+        writeString(out, course.getLevel());
+        writeInt(out, course.getDuration());
+        if (course.getRating() == null) {
+            out.writeByte(ABSENT);
+        } else {
+            out.writeByte(PRESENT);
+            out.writeFloat(course.getRating());
+        }
+        writeInt(out, course.getEnrollments());
+        if (course.getTags() == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(course.getTags().size());
+            for (String tag : course.getTags()) {
+                writeString(out, tag);
+            }
+        }
+        writeString(out, course.getCreatedDate());
+        writeString(out, course.getUpdatedDate());
+        out.writeByte(course.getIsActive() == null ? -1 : course.getIsActive() ? PRESENT : ABSENT);
+    }
+
+    private static CourseDocument readCourse(ByteBuffer in) {
+        CourseDocument course = new CourseDocument();
+        course.setId(readString(in));
+        course.setTitle(readString(in));
+        course.setDescription(readString(in));
+        course.setCategory(readString(in));
+        course.setType(readString(in));
+        course.setGradeRange(readString(in));
+        course.setMinAge(readInt(in));
+        course.setMaxAge(readInt(in));
+        course.setPrice(in.get() == PRESENT ? in.getDouble() : null);
+        course.setNextSessionDate(readString(in));
+        course.setInstructor(readString(in));
+        course.setLevel(readString(in));
+        course.setDuration(readInt(in));
+        course.setRating(in.get() == PRESENT ? in.getFloat() : null);
+        course.setEnrollments(readInt(in));
+        int tags = checkedCount(in);
+        if (tags >= 0) {
+            List<String> values = new ArrayList<>(tags);
+            for (int i = 0; i < tags; i++) {
+                values.add(readString(in));
+            }
+            course.setTags(values);
+        }
+        course.setCreatedDate(readString(in));
+        course.setUpdatedDate(readString(in));
+        byte active = in.get();
+        course.setIsActive(active < 0 ? null : active == PRESENT);
+        return course;
+    }
+
+    // A count can never exceed the bytes left, so a corrupt one fails instead of allocating
+    private static int checkedCount(ByteBuffer in) {
+        int count = in.getInt();
+        if (count > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        return count;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeInt(DataOutputStream out, Integer value) throws IOException {
+        if (value == null) {
+            out.writeByte(ABSENT);
+        } else {
+            out.writeByte(PRESENT);
+            out.writeInt(value);
+        }
+    }
+
+    private static Integer readInt(ByteBuffer in) {
+        return in.get() == PRESENT ? in.getInt() : null;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.coursesearch.service;
+
+import com.example.coursesearch.model.CourseDocument;
+import org.springframework.data.elasticsearch.core.query.SeqNoPrimaryTerm;
+
+import java.util.List;
+
+/**
+ * One write to the catalog as published on the {@link CourseChangeFeed}.
+ *
+ * The feed version is the order in which writers published, which is not necessarily the order in which
+ * Elasticsearch applied their writes. Each document therefore carries the seq_no/primary_term of its write,
+ * and listeners keep the newer of what they hold and what arrives (see {@link #isOlder}).
+ *
+ * @param version position in the feed; changes are applied in version order, starting at 1
+ * @param courses the documents as written, for {@link Type#UPSERT}; empty for {@link Type#DELETE_ALL}
+ */
+public record CourseChange(long version, Type type, List<CourseDocument> courses) {
+
+    /**
+     * Whether a write at {@code incoming} is older than the one at {@code held}, by seq_no and then
+     * primary_term. A write without them (embedded store, a bulk batch that partly failed) is never older.
+     */
+    public static boolean isOlder(SeqNoPrimaryTerm incoming, SeqNoPrimaryTerm held) {
+        if (incoming == null || held == null) {
+            return false;
+        }
+        if (incoming.sequenceNumber() != held.sequenceNumber()) {
+            return incoming.sequenceNumber() < held.sequenceNumber();
+        }
+        return incoming.primaryTerm() < held.primaryTerm();
+    }
+
+    public enum Type {
+        /** The courses were added or replaced. An empty list still marks a write, e.g. a failed bulk. */
+        UPSERT,
+        /** Every course was deleted. */
+        DELETE_ALL
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.coursesearch.service;
+
+import com.example.coursesearch.model.CourseDocument;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Carries every write of CourseService to the in-process structures derived from the catalog (result
+ * cache, suggestion index, filter mirror), the registered {@link CourseChangeListener}s.
+ *
+ * Writers claim the next version with a CAS on a bounded ring buffer and fill their slot; there is no
+ * lock on the publishing path. Whichever writer finds no drain running drains the buffer and hands the
+ * listeners batches of up to {@code max-batch} consecutive changes, so a burst of concurrent writes costs
+ * one snapshot rebuild per batch instead of one per write. A publish returns once its own change has been
+ * applied, so a writer always reads its own write from the local indexes. A drainer stops as soon as its
+ * own change is applied and wakes the waiting writers, one of which takes over; no writer keeps draining
+ * other writers' changes under sustained load. Writers waiting on a drain spin briefly and then park.
+ * When the buffer is full, writers help drain until their slot is free.
+ */
+@Component
+@Slf4j
+public class CourseChangeFeed {
+
+    private static final int SPINS = 100;
+    // Upper bound of one park; a drain normally unparks the waiters well before that
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final AtomicReferenceArray<CourseChange> slots;
+    private final int mask;
+    private final int maxBatch;
+    private final List<CourseChangeListener> listeners;
+
+    // Last claimed and last applied version; 0 before the first change
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong applied = new AtomicLong();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final ConcurrentLinkedQueue<Thread> waiters = new ConcurrentLinkedQueue<>();
+
+    @Autowired
+    public CourseChangeFeed(@Value("${course-search.change-feed.capacity:1024}") int capacity,
+                            @Value("${course-search.change-feed.max-batch:64}") int maxBatch,
+                            List<CourseChangeListener> listeners) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("course-search.change-feed.capacity must be a power of two, was " + capacity);
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.listeners = List.copyOf(listeners);
+    }
+
+    /**
+     * Publishes courses that were written and waits until every listener has applied them.
+     *
+     * @return the version of the change
+     */
+    public long upserted(List<CourseDocument> courses) {
+        return publish(CourseChange.Type.UPSERT, List.copyOf(courses));
+    }
+
+    /**
+     * Publishes that the whole catalog was deleted and waits until every listener has applied it.
+     *
+     * @return the version of the change
+     */
+    public long deletedAll() {
+        return publish(CourseChange.Type.DELETE_ALL, List.of());
+    }
+
+    /**
+     * Version of the last change every listener has applied.
+     */
+    public long appliedVersion() {
+        return applied.get();
+    }
+
+    private long publish(CourseChange.Type type, List<CourseDocument> courses) {
+        long version = claim();
+        slots.set(index(version), new CourseChange(version, type, courses));
+        awaitApplied(version);
+        return version;
+    }
+
+    private long claim() {
+        while (true) {
+            long last = claimed.get();
+            long oldest = last - slots.length() + 1;
+            if (oldest > applied.get()) {
+                // Full: the oldest slot is still waiting to be applied
+                awaitApplied(oldest);
+            } else if (claimed.compareAndSet(last, last + 1)) {
+                return last + 1;
+            }
+        }
+    }
+
+    private void awaitApplied(long version) {
+        for (int attempt = 0; applied.get() < version; attempt++) {
+            if (!tryDrain(version)) {
+                backOff(attempt);
+            }
+        }
+    }
+
+    /**
+     * Applies batches until {@code version} is applied, unless another writer is already draining.
+     *
+     * @return false when another drain is running or the next change is not filled in yet
+     */
+    private boolean tryDrain(long version) {
+        if (!draining.compareAndSet(false, true)) {
+            return false;
+        }
+        boolean progress = false;
+        try {
+            List<CourseChange> batch = new ArrayList<>(maxBatch);
+            while (applied.get() < version) {
+                long next = applied.get() + 1;
+                // A claimed slot is filled right after the claim; stop at the first one that is not yet
+                CourseChange change;
+                while (batch.size() < maxBatch && (change = slots.get(index(next))) != null && change.version() == next) {
+                    batch.add(change);
+                    next++;
+                }
+                if (batch.isEmpty()) {
+                    break;
+                }
+                dispatch(batch);
+                for (CourseChange done : batch) {
+                    slots.compareAndSet(index(done.version()), done, null);
+                }
+                applied.set(next - 1);
+                batch.clear();
+                progress = true;
+                wakeWaiters();
+            }
+        } finally {
+            draining.set(false);
+            // Hand off: a writer whose change is still pending drains next
+            wakeWaiters();
+        }
+        return progress;
+    }
+
+    // A failing listener must not hold up the others or the writers
+    private void dispatch(List<CourseChange> batch) {
+        List<CourseChange> changes = List.copyOf(batch);
+        for (CourseChangeListener listener : listeners) {
+            try {
+                listener.onChanges(changes);
+            } catch (RuntimeException e) {
+                log.error("{} failed to apply course changes {}-{}", listener.getClass().getSimpleName(),
+                        changes.get(0).version(), changes.get(changes.size() - 1).version(), e);
+            }
+        }
+    }
+
+    // Another writer is applying a batch, which usually means a snapshot rebuild: spin briefly, then park
+    private void backOff(int attempt) {
+        if (attempt < SPINS) {
+            Thread.onSpinWait();
+            return;
+        }
+        Thread current = Thread.currentThread();
+        waiters.add(current);
+        try {
+            // Registered before the check, so a drain ending right now still unparks this thread
+            if (draining.get()) {
+                LockSupport.parkNanos(this, MAX_PARK_NANOS);
+            } else {
+                Thread.yield();
+            }
+        } finally {
+            waiters.remove(current);
+        }
+    }
+
+    private void wakeWaiters() {
+        waiters.forEach(LockSupport::unpark);
+    }
+
+    private int index(long version) {
+        return (int) (version & mask);
+    }
+}
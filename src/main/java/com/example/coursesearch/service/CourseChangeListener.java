@@ -0,0 +1,37 @@
+package com.example.coursesearch.service;
+
+import com.example.coursesearch.model.CourseDocument;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Consumer of the {@link CourseChangeFeed}; every bean implementing it is registered with the feed.
+ */
+public interface CourseChangeListener {
+
+    /**
+     * Applies a batch of consecutive changes, in version order. Called by one thread at a time.
+     */
+    void onChanges(List<CourseChange> changes);
+
+    /**
+     * Folds a batch into at most one clear followed by one upsert of everything written after it, for
+     * structures where each update republishes a snapshot.
+     */
+    static void apply(List<CourseChange> changes, Runnable clear, Consumer<List<CourseDocument>> upsert) {
+        List<CourseDocument> upserts = new ArrayList<>();
+        for (CourseChange change : changes) {
+            if (change.type() == CourseChange.Type.DELETE_ALL) {
+                upserts.clear();
+                clear.run();
+            } else {
+                upserts.addAll(change.courses());
+            }
+        }
+        if (!upserts.isEmpty()) {
+            upsert.accept(upserts);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.coursesearch.service;
+
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
+import co.elastic.clients.elasticsearch._types.aggregations.AggregationRange;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import com.example.coursesearch.dto.FacetBucket;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
+import org.springframework.data.elasticsearch.core.AggregationsContainer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Filter counts for the search UI, computed in the same request as the hits.
+ *
+ * A faceted search runs the text and date clauses as the query and the facet filters (category, type,
+ * gradeRange, age, price) as post_filter, so they narrow the hits but not the aggregations. Each facet is
+ * then a filter aggregation over the filters of all other dimensions: the counts follow the active
+ * filters, while the values of the selected dimension keep their counts and stay selectable.
+ */
+final class CourseFacets {
+
+    enum Facet {
+        CATEGORY("category"),
+        TYPE("type"),
+        GRADE_RANGE("gradeRange"),
+        AGE("age"),
+        PRICE("price");
+
+        private final String key;
+
+        Facet(String key) {
+            this.key = key;
+        }
+
+        String key() {
+            return key;
+        }
+    }
+
+    private static final String BUCKETS = "buckets";
+    static final int MAX_TERMS = 50;
+
+    // Upper bounds are exclusive, as in a range aggregation
+    static final double[] PRICE_BOUNDS = {25, 50, 100, 200};
+    // Age groups are inclusive and matched by overlap with the course's minAge..maxAge, like the age filter
+    static final int[][] AGE_GROUPS = {{3, 5}, {6, 8}, {9, 11}, {12, 14}, {15, 18}};
+
+    private CourseFacets() {
+    }
+
+    static Map<String, Aggregation> aggregations(Map<Facet, List<Query>> filters) {
+        Map<String, Aggregation> aggregations = new LinkedHashMap<>();
+        for (Facet facet : Facet.values()) {
+            List<Query> others = new ArrayList<>();
+            filters.forEach((dimension, queries) -> {
+                if (dimension != facet) {
+                    others.addAll(queries);
+                }
+            });
+            aggregations.put(facet.key(), Aggregation.of(a -> a
+                    .filter(f -> others.isEmpty() ? f.matchAll(m -> m) : f.bool(b -> b.filter(others)))
+                    .aggregations(BUCKETS, buckets(facet))));
+        }
+        return aggregations;
+    }
+
+    /**
+     * The facet filters combined into one post_filter, or null when the request has none.
+     */
+    static Query postFilter(Map<Facet, List<Query>> filters) {
+        List<Query> all = new ArrayList<>();
+        filters.values().forEach(all::addAll);
+        return all.isEmpty() ? null : Query.of(q -> q.bool(b -> b.filter(all)));
+    }
+
+    static Map<String, List<FacetBucket>> parse(AggregationsContainer<?> container) {
+        if (!(container instanceof ElasticsearchAggregations aggregations)) {
+            return null;
+        }
+        Map<String, List<FacetBucket>> facets = new LinkedHashMap<>();
+        for (Facet facet : Facet.values()) {
+            var aggregation = aggregations.get(facet.key());
+            if (aggregation == null) {
+                continue;
+            }
+            Aggregate buckets = aggregation.aggregation().getAggregate().filter().aggregations().get(BUCKETS);
+            facets.put(facet.key(), buckets(facet, buckets));
+        }
+        return facets;
+    }
+
+    private static Aggregation buckets(Facet facet) {
+        return switch (facet) {
+            case CATEGORY, TYPE, GRADE_RANGE -> Aggregation.of(a -> a.terms(t -> t.field(facet.key()).size(MAX_TERMS)));
+            case PRICE -> Aggregation.of(a -> a.range(r -> r.field("price").ranges(priceRanges())));
+            case AGE -> Aggregation.of(a -> a.filters(f -> f.filters(b -> b.array(ageGroupQueries()))));
+        };
+    }
+
+    private static List<FacetBucket> buckets(Facet facet, Aggregate aggregate) {
+        List<FacetBucket> buckets = new ArrayList<>();
+        switch (facet) {
+            case CATEGORY, TYPE, GRADE_RANGE -> aggregate.sterms().buckets().array().forEach(bucket ->
+                    buckets.add(FacetBucket.of(bucket.key().stringValue(), bucket.docCount())));
+            case PRICE -> aggregate.range().buckets().array().forEach(bucket ->
+                    buckets.add(new FacetBucket(bucket.key(), bucket.from(), bucket.to(), bucket.docCount())));
+            case AGE -> {
+                // Anonymous filters come back in request order
+                var ageBuckets = aggregate.filters().buckets().array();
+                for (int i = 0; i < ageBuckets.size() && i < AGE_GROUPS.length; i++) {
+                    buckets.add(ageBucket(AGE_GROUPS[i], ageBuckets.get(i).docCount()));
+                }
+            }
+        }
+        return buckets;
+    }
+
+    static FacetBucket ageBucket(int[] group, long count) {
+        return new FacetBucket(group[0] + "-" + group[1], (double) group[0], (double) group[1], count);
+    }
+
+    /**
+     * A price bucket keyed the way a range aggregation keys it, e.g. "*-25.0" or "25.0-50.0".
+     */
+    static FacetBucket priceBucket(Double from, Double to, long count) {
+        String key = (from != null ? String.valueOf(from) : "*") + "-" + (to != null ? String.valueOf(to) : "*");
+        return new FacetBucket(key, from, to, count);
+    }
+
+    private static List<AggregationRange> priceRanges() {
+        List<AggregationRange> ranges = new ArrayList<>();
+        String from = null;
+        for (double bound : PRICE_BOUNDS) {
+            String lower = from;
+            String upper = String.valueOf(bound);
+            ranges.add(AggregationRange.of(r -> r.from(lower).to(upper)));
+            from = upper;
+        }
+        String last = from;
+        ranges.add(AggregationRange.of(r -> r.from(last)));
+        return ranges;
+    }
+
+    private static List<Query> ageGroupQueries() {
+        List<Query> queries = new ArrayList<>();
+        for (int[] group : AGE_GROUPS) {
+            queries.add(Query.of(q -> q.bool(b -> b.filter(CourseQueryBuilder.ageOverlap(group[0], group[1])))));
+        }
+        return queries;
+    }
+}
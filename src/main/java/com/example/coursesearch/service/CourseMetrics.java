@@ -0,0 +1,164 @@
+package com.example.coursesearch.service;
+
+import com.example.coursesearch.dto.CourseSearchRequest;
+import com.example.coursesearch.dto.CourseSearchResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.HandlerMapping;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Supplier;
+
+/**
+ * Timers for the CourseService operations and for the Elasticsearch calls they make.
+ *
+ * {@code course.elasticsearch} covers only the client round trip, {@code course.search},
+ * {@code course.autocomplete} and {@code course.save} the whole service call, and Boot's
+ * {@code http.server.requests} the request including JSON serialization; the differences are our own
+ * query building, mapping and serialization time. Percentiles and histogram buckets are configured
+ * under management.metrics.distribution. All tags have a small fixed set of values.
+ */
+@Component
+public class CourseMetrics {
+
+    static final String SEARCH = "course.search";
+    static final String AUTOCOMPLETE = "course.autocomplete";
+    static final String SAVE = "course.save";
+    static final String ELASTICSEARCH = "course.elasticsearch";
+
+    private final MeterRegistry registry;
+
+    public CourseMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    /**
+     * @param response null when the search failed
+     */
+    public void recordSearch(Timer.Sample sample, CourseSearchRequest request, CourseSearchResponse response) {
+        recordSearch(sample, currentEndpoint(), request, response);
+    }
+
+    /**
+     * For searches that complete off the request thread, where {@link #currentEndpoint()} is no longer
+     * available: the caller reads the endpoint on the request thread and passes it in.
+     */
+    public void recordSearch(Timer.Sample sample, String endpoint, CourseSearchRequest request,
+                             CourseSearchResponse response) {
+        sample.stop(Timer.builder(SEARCH)
+                .description("Course searches, from request to mapped response")
+                .tags(Tags.of(
+                        "endpoint", endpoint,
+                        "sort", sortMode(request),
+                        "query", String.valueOf(request.getQuery() != null && !request.getQuery().isBlank()),
+                        "results", response != null ? sizeBucket(response.getCourses().size()) : "none",
+                        "outcome", response != null ? "success" : "error"))
+                .register(registry));
+    }
+
+    /**
+     * @param source where the suggestions came from: local, snapshot, completion or title
+     */
+    public void recordAutocomplete(Timer.Sample sample, String source, int suggestions) {
+        sample.stop(Timer.builder(AUTOCOMPLETE)
+                .description("Autocomplete lookups")
+                .tags(Tags.of(
+                        "endpoint", currentEndpoint(),
+                        "source", source,
+                        "results", sizeBucket(suggestions)))
+                .register(registry));
+    }
+
+    public void recordSave(Timer.Sample sample, int documents, boolean success) {
+        sample.stop(Timer.builder(SAVE)
+                .description("Course writes through saveAllCourses")
+                .tags(Tags.of(
+                        "endpoint", currentEndpoint(),
+                        "results", sizeBucket(documents),
+                        "outcome", success ? "success" : "error"))
+                .register(registry));
+    }
+
+    /**
+     * Times one Elasticsearch call.
+     *
+     * @param operation search, msearch, suggest or bulk
+     */
+    public <T> T timeElasticsearch(String operation, Supplier<T> call) {
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "error";
+        try {
+            T result = call.get();
+            outcome = "success";
+            return result;
+        } finally {
+            stopElasticsearch(sample, operation, currentEndpoint(), outcome);
+        }
+    }
+
+    /**
+     * Times one non-blocking Elasticsearch call, from subscription to its result.
+     *
+     * @param endpoint see {@link #recordSearch(Timer.Sample, String, CourseSearchRequest, CourseSearchResponse)}
+     */
+    public <T> Mono<T> timeElasticsearch(String operation, String endpoint, Mono<T> call) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(registry);
+            return call
+                    .doOnSuccess(result -> stopElasticsearch(sample, operation, endpoint, "success"))
+                    .doOnError(e -> stopElasticsearch(sample, operation, endpoint, "error"));
+        });
+    }
+
+    private void stopElasticsearch(Timer.Sample sample, String operation, String endpoint, String outcome) {
+        sample.stop(Timer.builder(ELASTICSEARCH)
+                .description("Elasticsearch client round trips")
+                .tags(Tags.of(
+                        "operation", operation,
+                        "endpoint", endpoint,
+                        "outcome", outcome))
+                .register(registry));
+    }
+
+    // Same value as the uri tag of http.server.requests; "none" outside of a web request
+    static String currentEndpoint() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        Object pattern = attributes != null
+                ? attributes.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST)
+                : null;
+        return pattern != null ? pattern.toString() : "none";
+    }
+
+    static String sortMode(CourseSearchRequest request) {
+        String sortBy = request.getSortBy();
+        if (sortBy == null || sortBy.isBlank() || "nextSessionDate".equals(sortBy)) {
+            return "upcoming";
+        }
+        if ("priceAsc".equals(sortBy) || "priceDesc".equals(sortBy)) {
+            return sortBy;
+        }
+        // Arbitrary field names would make the tag unbounded
+        return "custom";
+    }
+
+    static String sizeBucket(int size) {
+        if (size == 0) {
+            return "0";
+        } else if (size <= 10) {
+            return "1-10";
+        } else if (size <= 50) {
+            return "11-50";
+        } else if (size <= 100) {
+            return "51-100";
+        }
+        return "100+";
+    }
+}
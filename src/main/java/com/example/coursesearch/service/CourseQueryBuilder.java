@@ -0,0 +1,222 @@
+package com.example.coursesearch.service;
+
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch._types.query_dsl.TextQueryType;
+import co.elastic.clients.json.JsonData;
+import com.example.coursesearch.dto.CourseSearchRequest;
+import com.example.coursesearch.exception.InvalidSearchRequestException;
+import org.springframework.data.domain.Sort;
+
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the Elasticsearch query and sort for a course search.
+ *
+ * Only the title/description text match is scored. By default that is a single multi_match with bounded
+ * fuzziness, which replaces the three wildcard/fuzzy clauses of the original contains search. The exact
+ * filters (category, type, gradeRange) and the age, price and date ranges go into bool filter context: they
+ * do not contribute to the score and their per-segment results are cached in the node query cache, so
+ * repeated facet-style searches get cheaper.
+ */
+final class CourseQueryBuilder {
+
+    enum TextMode {
+        /** One multi_match over title^3 and description, fuzziness AUTO with a fixed prefix. */
+        MULTI_MATCH,
+        /** The original "*q*" query_string on title and description OR'ed with a fuzzy title query. */
+        CONTAINS
+    }
+
+    // Title matches outrank description-only matches
+    private static final List<String> TEXT_FIELDS = List.of("title^3", "description");
+    // The first character has to match exactly, which keeps fuzzy term expansion small
+    static final int FUZZY_PREFIX_LENGTH = 1;
+    static final int FUZZY_MAX_EXPANSIONS = 20;
+
+    private CourseQueryBuilder() {
+    }
+
+    /**
+     * @param textMode      how the {@code query} text is matched
+     * @param filterContext whether structured clauses go into filter context; {@code false} scores them
+     *                      together with the text match as the old Criteria query did (kept for comparison)
+     */
+    static Query build(CourseSearchRequest request, TextMode textMode, boolean filterContext) {
+        return build(request, textMode, filterContext, true);
+    }
+
+    /**
+     * @param facetFilters whether the filters of the facet dimensions are part of the query; a faceted search
+     *                     leaves them out and applies them as post_filter instead (see {@link CourseFacets})
+     */
+    static Query build(CourseSearchRequest request, TextMode textMode, boolean filterContext, boolean facetFilters) {
+        List<Query> scoring = new ArrayList<>();
+        List<Query> filters = new ArrayList<>();
+
+        if (hasText(request.getQuery())) {
+            String text = request.getQuery().trim();
+            scoring.add(textMode == TextMode.CONTAINS ? containsQuery(text) : multiMatchQuery(text));
+        }
+
+        if (facetFilters) {
+            facetFilters(request).values().forEach(filters::addAll);
+        }
+
+        // Courses with a session on or after the given date
+        if (hasText(request.getNextSessionDate())) {
+            filters.add(range("nextSessionDate", validDate(request.getNextSessionDate().trim()), null));
+        }
+
+        if (scoring.isEmpty() && filters.isEmpty()) {
+            return Query.of(q -> q.matchAll(m -> m));
+        }
+
+        BoolQuery.Builder bool = new BoolQuery.Builder();
+        if (!scoring.isEmpty()) {
+            bool.must(scoring);
+        }
+        if (!filters.isEmpty()) {
+            if (filterContext) {
+                bool.filter(filters);
+            } else {
+                bool.must(filters);
+            }
+        }
+        return bool.build()._toQuery();
+    }
+
+    /**
+     * The structured filters of the request grouped by facet dimension, in facet order; dimensions without
+     * a filter are absent.
+     */
+    static Map<CourseFacets.Facet, List<Query>> facetFilters(CourseSearchRequest request) {
+        Map<CourseFacets.Facet, List<Query>> filters = new EnumMap<>(CourseFacets.Facet.class);
+
+        // Exact filters on keyword fields
+        if (hasText(request.getCategory())) {
+            filters.put(CourseFacets.Facet.CATEGORY, List.of(term("category", request.getCategory().trim())));
+        }
+        if (hasText(request.getType())) {
+            filters.put(CourseFacets.Facet.TYPE, List.of(term("type", request.getType().trim())));
+        }
+        if (hasText(request.getGradeRange())) {
+            filters.put(CourseFacets.Facet.GRADE_RANGE, List.of(term("gradeRange", request.getGradeRange().trim())));
+        }
+
+        // Age ranges overlap: the course accepts students at least as old as minAge and no older than maxAge
+        if (request.getMinAge() != null || request.getMaxAge() != null) {
+            filters.put(CourseFacets.Facet.AGE, ageOverlap(request.getMinAge(), request.getMaxAge()));
+        }
+        if (request.getMinPrice() != null || request.getMaxPrice() != null) {
+            filters.put(CourseFacets.Facet.PRICE, List.of(range("price", request.getMinPrice(), request.getMaxPrice())));
+        }
+        return filters;
+    }
+
+    static List<Query> ageOverlap(Integer minAge, Integer maxAge) {
+        List<Query> clauses = new ArrayList<>();
+        if (minAge != null) {
+            clauses.add(range("maxAge", minAge, null));
+        }
+        if (maxAge != null) {
+            clauses.add(range("minAge", null, maxAge));
+        }
+        return clauses;
+    }
+
+    static Sort sort(CourseSearchRequest request) {
+        // Handle special sort parameters
+        if ("priceAsc".equals(request.getSortBy())) {
+            return Sort.by(Sort.Direction.ASC, "price");
+        } else if ("priceDesc".equals(request.getSortBy())) {
+            return Sort.by(Sort.Direction.DESC, "price");
+        }
+
+        // Default sort: ascending by nextSessionDate (soonest upcoming first)
+        if (request.getSortBy() == null || request.getSortBy().trim().isEmpty()) {
+            return Sort.by(Sort.Direction.ASC, "nextSessionDate");
+        }
+
+        // Custom sort by provided field and direction
+        Sort.Direction direction = "desc".equalsIgnoreCase(request.getSortDirection())
+                ? Sort.Direction.DESC : Sort.Direction.ASC;
+        return Sort.by(direction, request.getSortBy());
+    }
+
+    private static Query multiMatchQuery(String text) {
+        return Query.of(q -> q.multiMatch(m -> m
+                .query(text)
+                .fields(TEXT_FIELDS)
+                .type(TextQueryType.BestFields)
+                .fuzziness("AUTO")
+                .prefixLength(FUZZY_PREFIX_LENGTH)
+                .maxExpansions(FUZZY_MAX_EXPANSIONS)));
+    }
+
+    // Substring match on title or description, plus fuzzy title matching for small typos
+    private static Query containsQuery(String text) {
+        String contains = "*" + escape(text) + "*";
+        return Query.of(q -> q.bool(b -> b
+                .should(s -> s.queryString(qs -> qs.fields("title").query(contains).analyzeWildcard(true)))
+                .should(s -> s.queryString(qs -> qs.fields("description").query(contains).analyzeWildcard(true)))
+                .should(s -> s.fuzzy(f -> f.field("title").value(FieldValue.of(text))))
+                .minimumShouldMatch("1")));
+    }
+
+    private static Query term(String field, String value) {
+        return Query.of(q -> q.term(t -> t.field(field).value(FieldValue.of(value))));
+    }
+
+    static Query range(String field, Object from, Object to) {
+        return Query.of(q -> q.range(r -> {
+            r.field(field);
+            if (from != null) {
+                r.gte(JsonData.of(from));
+            }
+            if (to != null) {
+                r.lte(JsonData.of(to));
+            }
+            return r;
+        }));
+    }
+
+    /**
+     * Accepts an ISO-8601 date ({@code 2025-06-15}) or date-time with optional offset
+     * ({@code 2025-06-15T10:00:00Z}), the forms the date_optional_time mapping parses.
+     */
+    static String validDate(String value) {
+        for (DateTimeFormatter format : List.of(DateTimeFormatter.ISO_DATE_TIME, DateTimeFormatter.ISO_DATE)) {
+            try {
+                format.parse(value);
+                return value;
+            } catch (DateTimeParseException e) {
+                // try the next format
+            }
+        }
+        throw new InvalidSearchRequestException("Invalid date '" + value
+                + "': expected ISO-8601, e.g. 2025-06-15 or 2025-06-15T10:00:00Z");
+    }
+
+    // Same escaping the Criteria API applied to query_string input
+    private static String escape(String text) {
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (char c : text.toCharArray()) {
+            if ("\\+-!():^[]\"{}~*?|&/".indexOf(c) >= 0) {
+                escaped.append('\\');
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.trim().isEmpty();
+    }
+}
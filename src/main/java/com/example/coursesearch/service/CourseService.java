@@ -1,24 +1,50 @@
 package com.example.coursesearch.service;
 
+import co.elastic.clients.elasticsearch.core.search.CompletionContext;
+import co.elastic.clients.elasticsearch.core.search.Suggester;
+import com.example.coursesearch.dto.BulkIngestResponse;
 import com.example.coursesearch.dto.CourseSearchRequest;
 import com.example.coursesearch.dto.CourseSearchResponse;
+import com.example.coursesearch.exception.ExpiredCursorException;
+import com.example.coursesearch.exception.InvalidSearchRequestException;
 import com.example.coursesearch.model.CourseDocument;
 import com.example.coursesearch.repository.CourseRepository;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.ResourceNotFoundException;
+import org.springframework.data.elasticsearch.UncategorizedElasticsearchException;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.client.elc.NativeQueryBuilder;
 import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
 import org.springframework.data.elasticsearch.core.SearchHit;
 import org.springframework.data.elasticsearch.core.SearchHits;
 import org.springframework.data.elasticsearch.core.query.Criteria;
 import org.springframework.data.elasticsearch.core.query.CriteriaQuery;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilter;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+import org.springframework.data.elasticsearch.core.query.Query;
+import org.springframework.data.elasticsearch.core.suggest.Completion;
+import org.springframework.data.elasticsearch.core.suggest.response.CompletionSuggestion;
+import org.springframework.data.elasticsearch.core.suggest.response.Suggest;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 @Service
@@ -26,203 +52,635 @@ import java.util.stream.StreamSupport;
 @Slf4j
 public class CourseService {
 
+    // Lazy: there is no repository with the embedded search engine (see ElasticsearchConfig)
+    @Lazy
     private final CourseRepository courseRepository;
     private final ElasticsearchOperations elasticsearchOperations;
+    private final SearchResultCache searchResultCache;
+    private final SuggestionIndex suggestionIndex;
+    private final ElasticsearchCircuitBreaker circuitBreaker;
+    private final SearchCoalescer searchCoalescer;
+    private final CourseMetrics courseMetrics;
+    private final SlowQueryLog slowQueryLog;
+    // Replaces Elasticsearch for searches and writes when course-search.engine=embedded
+    private final EmbeddedCourseIndex embeddedIndex;
+    // Every write is published here; the result cache and the local indexes apply it
+    private final CourseChangeFeed changeFeed;
 
-    // TODO: Consider adding caching here for frequently searched terms
+    private static final String TITLE_SUGGESTION = "title-suggest";
+    private static final int MAX_SUGGESTIONS = 10;
+    private static final int MAX_REPORTED_FAILURES = 20;
+    // Derived from the title on write and never returned, so no search needs it in _source
+    private static final String[] SOURCE_EXCLUDES = {"titleSuggest"};
+
+    @Value("${course-search.autocomplete.completion-suggester:true}")
+    private boolean useCompletionSuggester = true;
+
+    @Value("${course-search.search.text-mode:multi-match}")
+    private CourseQueryBuilder.TextMode textMode = CourseQueryBuilder.TextMode.MULTI_MATCH;
+
+    @Value("${course-search.search.filter-context:true}")
+    private boolean useFilterContext = true;
+
+    @Value("${course-search.cursor.keep-alive:1m}")
+    private Duration cursorKeepAlive = Duration.ofMinutes(1);
+
+    @Value("${course-search.search.max-batch-size:20}")
+    private int maxBatchSize = 20;
+
+    // Reloads asked for since the running one started; 0 when none is running
+    private final AtomicInteger rebuildRequests = new AtomicInteger();
 
     public CourseSearchResponse searchCourses(CourseSearchRequest request) {
-        log.info("Searching courses with request: {}", request);
+        return searchCourses(request, null);
+    }
 
-        // Create sort based on requirements
-        Sort sort = createSort(request);
+    /**
+     * @param sourceIncludes document fields to fetch, or {@code null} for the whole document; fields not
+     *                       listed are left null in the returned courses
+     */
+    public CourseSearchResponse searchCourses(CourseSearchRequest request, List<String> sourceIncludes) {
+        Timer.Sample sample = courseMetrics.start();
+        CourseSearchResponse response = null;
+        try {
+            response = doSearchCourses(request, sourceIncludes);
+            return response;
+        } finally {
+            courseMetrics.recordSearch(sample, request, response);
+        }
+    }
 
-        // Create pageable
-        int page = request.getPage() != null ? request.getPage() : 0;
-        int size = request.getSize() != null ? request.getSize() : 10;
-        Pageable pageable = PageRequest.of(page, size, sort);
+    private CourseSearchResponse doSearchCourses(CourseSearchRequest request, List<String> sourceIncludes) {
+        log.debug("Searching courses with request: {}", request);
 
-        // Build Elasticsearch query using Criteria API
-        CriteriaQuery query = buildSearchQuery(request);
-        query.setPageable(pageable);
+        if (request.getCursor() != null && !request.getCursor().isBlank()) {
+            return searchWithCursor(request, sourceIncludes);
+        }
+
+        if (servesLocally(request)) {
+            // Answered from memory: neither the result cache nor coalescing has anything to save
+            return embeddedIndex.search(request, pageable(request));
+        }
+
+        // Frequently repeated searches (category landing pages, page 0) are served from the cache
+        SearchRequestKey cacheKey = SearchRequestKey.from(request, sourceIncludes);
+        CourseSearchResponse cached = searchResultCache.get(cacheKey);
+        if (cached != null) {
+            log.debug("Serving search from cache");
+            return cached;
+        }
+        long cacheGeneration = searchResultCache.generation();
+
+        // A burst of identical searches sends one query; the others wait for its result
+        return searchCoalescer.execute(cacheKey, cacheGeneration,
+                () -> searchPage(request, sourceIncludes, cacheKey, cacheGeneration));
+    }
+
+    private CourseSearchResponse searchPage(CourseSearchRequest request, List<String> sourceIncludes,
+                                            SearchRequestKey cacheKey, long cacheGeneration) {
+        // Text match is scored, structured filters run in (cacheable) filter context
+        NativeQuery query = buildSearchQuery(request, pageable(request), sourceIncludes);
 
         // Execute search
-        SearchHits<CourseDocument> searchHits = elasticsearchOperations.search(query, CourseDocument.class);
-        
+        SearchHits<CourseDocument> searchHits = search(request, query);
+
+        CourseSearchResponse response = toResponse(request, searchHits);
+        searchResultCache.put(cacheKey, cacheGeneration, response);
+        return response;
+    }
+
+    /**
+     * Runs several searches, e.g. the category carousels of a page, in one _msearch round trip. Each search
+     * keeps its own paging, sort and facets; cached ones are answered locally and only the misses are sent.
+     * Cursor pagination is not supported here.
+     *
+     * @return one response per request, in request order
+     */
+    public List<CourseSearchResponse> searchCoursesBatch(List<CourseSearchRequest> requests, List<String> sourceIncludes) {
+        log.debug("Searching courses in a batch of {}", requests.size());
+        if (requests.size() > maxBatchSize) {
+            throw new InvalidSearchRequestException("A batch may contain at most " + maxBatchSize + " searches");
+        }
+
+        long cacheGeneration = searchResultCache.generation();
+        CourseSearchResponse[] responses = new CourseSearchResponse[requests.size()];
+        List<Integer> misses = new ArrayList<>();
+        List<NativeQuery> queries = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            CourseSearchRequest request = requests.get(i);
+            if (request.getCursor() != null && !request.getCursor().isBlank()) {
+                throw new InvalidSearchRequestException("Cursor pagination is not supported in batch searches (search " + i + ")");
+            }
+            if (servesLocally(request)) {
+                responses[i] = embeddedIndex.search(request, pageable(request));
+                continue;
+            }
+            CourseSearchResponse cached = searchResultCache.get(SearchRequestKey.from(request, sourceIncludes));
+            if (cached != null) {
+                responses[i] = cached;
+            } else {
+                misses.add(i);
+                queries.add(buildSearchQuery(request, pageable(request), sourceIncludes));
+            }
+        }
+        if (queries.isEmpty()) {
+            return Arrays.asList(responses);
+        }
+
+        List<CourseSearchRequest> sent = misses.stream().map(requests::get).collect(Collectors.toList());
+        long start = System.nanoTime();
+        List<SearchHits<CourseDocument>> results = courseMetrics.timeElasticsearch("msearch",
+                () -> elasticsearchOperations.multiSearch(queries, CourseDocument.class));
+        slowQueryLog.record("msearch", System.nanoTime() - start, sent, queries);
+        if (results.size() != queries.size()) {
+            // Failed items are left out of the msearch result, so it no longer lines up with the requests:
+            // run the misses one by one, which surfaces the failure for the search that caused it
+            log.warn("Batch search returned {} of {} results, retrying individually", results.size(), queries.size());
+            for (int index : misses) {
+                responses[index] = searchCourses(requests.get(index), sourceIncludes);
+            }
+            return Arrays.asList(responses);
+        }
+
+        for (int j = 0; j < misses.size(); j++) {
+            CourseSearchRequest request = requests.get(misses.get(j));
+            CourseSearchResponse response = toResponse(request, results.get(j));
+            searchResultCache.put(SearchRequestKey.from(request, sourceIncludes), cacheGeneration, response);
+            responses[misses.get(j)] = response;
+        }
+        return Arrays.asList(responses);
+    }
+
+    /**
+     * Whether a page search (no cursor) is answered by the embedded engine or the local filter mirror
+     * instead of Elasticsearch.
+     */
+    boolean servesLocally(CourseSearchRequest request) {
+        return embeddedIndex.isEnabled() || embeddedIndex.servesFilterSearch(request);
+    }
+
+    private SearchHits<CourseDocument> search(CourseSearchRequest request, NativeQuery query) {
+        long start = System.nanoTime();
+        SearchHits<CourseDocument> searchHits = courseMetrics.timeElasticsearch("search",
+                () -> elasticsearchOperations.search(query, CourseDocument.class));
+        slowQueryLog.record("search", System.nanoTime() - start, List.of(request), List.of(query));
+        return searchHits;
+    }
+
+    private static Pageable pageable(CourseSearchRequest request) {
+        int page = request.getPage() != null ? request.getPage() : 0;
+        int size = request.getSize() != null ? request.getSize() : 10;
+        return PageRequest.of(page, size, CourseQueryBuilder.sort(request));
+    }
+
+    private static CourseSearchResponse toResponse(CourseSearchRequest request, SearchHits<CourseDocument> searchHits) {
         // Convert search hits to list
         List<CourseDocument> courses = searchHits.getSearchHits().stream()
                 .map(SearchHit::getContent)
                 .collect(Collectors.toList());
 
-        log.info("Found {} courses out of {} total", courses.size(), searchHits.getTotalHits());
+        log.debug("Found {} courses out of {} total", courses.size(), searchHits.getTotalHits());
 
-        // Create response
+        Pageable pageable = pageable(request);
+        CourseSearchResponse response = toPageResponse(courses, searchHits.getTotalHits(),
+                pageable.getPageNumber(), pageable.getPageSize());
+        if (request.isIncludeFacets()) {
+            response.setFacets(CourseFacets.parse(searchHits.getAggregations()));
+        }
+        return response;
+    }
+
+    static CourseSearchResponse toPageResponse(List<CourseDocument> courses, long totalHits, int page, int size) {
         CourseSearchResponse response = new CourseSearchResponse();
         response.setCourses(courses);
-        response.setTotalElements(searchHits.getTotalHits());
-        response.setTotalPages((int) Math.ceil((double) searchHits.getTotalHits() / size));
+        response.setTotalElements(totalHits);
+        response.setTotalPages((int) Math.ceil((double) totalHits / size));
         response.setCurrentPage(page);
         response.setPageSize(size);
         response.setHasNext(page < response.getTotalPages() - 1);
         response.setHasPrevious(page > 0);
-
         return response;
     }
 
-    private Sort createSort(CourseSearchRequest request) {
-        // Handle special sort parameters
-        if ("priceAsc".equals(request.getSortBy())) {
-            return Sort.by(Sort.Direction.ASC, "price");
-        } else if ("priceDesc".equals(request.getSortBy())) {
-            return Sort.by(Sort.Direction.DESC, "price");
-        }
-        
-        // Default sort: ascending by nextSessionDate (soonest upcoming first)
-        if (request.getSortBy() == null || request.getSortBy().trim().isEmpty()) {
-            return Sort.by(Sort.Direction.ASC, "nextSessionDate");
+    /**
+     * Cursor pagination for deep scrolling and exports: every page is a search_after query against one
+     * point-in-time, so page 500 costs the same as page 1 and is not capped by max_result_window.
+     * With a point-in-time Elasticsearch appends an implicit _shard_doc tiebreaker to the sort, which keeps
+     * the order total across equal nextSessionDate/price values without sorting on _id.
+     */
+    private CourseSearchResponse searchWithCursor(CourseSearchRequest request, List<String> sourceIncludes) {
+        if (embeddedIndex.isEnabled()) {
+            throw new InvalidSearchRequestException("Cursor pagination is not available with the embedded search engine, use page and size");
         }
-        
-        // Custom sort by provided field and direction
-        Sort.Direction direction = "desc".equalsIgnoreCase(request.getSortDirection()) 
-            ? Sort.Direction.DESC : Sort.Direction.ASC;
-        return Sort.by(direction, request.getSortBy());
-    }
-
-    private CriteriaQuery buildSearchQuery(CourseSearchRequest request) {
-        List<Criteria> criteriaList = new ArrayList<>();
+        int size = request.getSize() != null ? request.getSize() : 10;
+        String cursorValue = request.getCursor().trim();
+        boolean start = SearchCursor.START.equals(cursorValue);
+        SearchCursor cursor = start
+                ? new SearchCursor(elasticsearchOperations.openPointInTime(
+                        elasticsearchOperations.getIndexCoordinatesFor(CourseDocument.class), cursorKeepAlive),
+                        List.of(), SearchCursor.signature(request))
+                : SearchCursor.decode(cursorValue, request);
 
-        // Full-text search on title and description with fuzzy matching for typos
-        if (request.getQuery() != null && !request.getQuery().trim().isEmpty()) {
-            String query = request.getQuery().trim();
-            
-            // First try exact matches (contains)
-            Criteria exactSearch = new Criteria("title").contains(query)
-                    .or(new Criteria("description").contains(query));
-            
-            // Add fuzzy matching for titles with small typos
-            Criteria fuzzyTitle = new Criteria("title").fuzzy(query);
-            
-            // Combine exact and fuzzy searches
-            Criteria textSearch = exactSearch.or(fuzzyTitle);
-            criteriaList.add(textSearch);
+        NativeQuery query = buildSearchQuery(request, PageRequest.of(0, size, CourseQueryBuilder.sort(request)),
+                sourceIncludes);
+        query.setPointInTime(new Query.PointInTime(cursor.pointInTimeId(), cursorKeepAlive));
+        if (!cursor.searchAfter().isEmpty()) {
+            query.setSearchAfter(cursor.searchAfter());
         }
 
-        // Exact filters for category
-        if (request.getCategory() != null && !request.getCategory().trim().isEmpty()) {
-            criteriaList.add(new Criteria("category").is(request.getCategory()));
+        SearchHits<CourseDocument> searchHits;
+        try {
+            searchHits = search(request, query);
+        } catch (RuntimeException e) {
+            if (start) {
+                // Nobody holds a cursor for the point-in-time just opened
+                closePointInTime(cursor.pointInTimeId());
+            } else if (isMissingPointInTime(e)) {
+                throw new ExpiredCursorException("The cursor has expired; restart with cursor=*", e);
+            } else if (isBadRequest(e)) {
+                throw new InvalidSearchRequestException("Invalid cursor", e);
+            }
+            throw e;
         }
+        List<SearchHit<CourseDocument>> hits = searchHits.getSearchHits();
+        // Elasticsearch may hand out a new id for the same point-in-time; always continue with the latest
+        String pointInTimeId = searchHits.getPointInTimeId() != null
+                ? searchHits.getPointInTimeId() : cursor.pointInTimeId();
 
-        // Exact filters for type
-        if (request.getType() != null && !request.getType().trim().isEmpty()) {
-            criteriaList.add(new Criteria("type").is(request.getType()));
+        String nextCursor = null;
+        if (hits.size() < size) {
+            // Last page: release the point-in-time instead of waiting for the keep-alive to expire
+            closePointInTime(pointInTimeId);
+        } else {
+            nextCursor = new SearchCursor(pointInTimeId, hits.get(hits.size() - 1).getSortValues(), cursor.search())
+                    .encode();
         }
 
-        // Exact filters for gradeRange
-        if (request.getGradeRange() != null && !request.getGradeRange().trim().isEmpty()) {
-            criteriaList.add(new Criteria("gradeRange").is(request.getGradeRange()));
-        }
+        log.debug("Found {} courses out of {} total (cursor)", hits.size(), searchHits.getTotalHits());
 
-        // Range filters for age - check if course age range overlaps with requested age range
-        if (request.getMinAge() != null) {
-            // Course max age should be >= requested min age (course accepts students at least as old as requested)
-            criteriaList.add(new Criteria("maxAge").greaterThanEqual(request.getMinAge()));
+        CourseSearchResponse response = new CourseSearchResponse();
+        response.setCourses(hits.stream().map(SearchHit::getContent).collect(Collectors.toList()));
+        response.setTotalElements(searchHits.getTotalHits());
+        response.setTotalPages((int) Math.ceil((double) searchHits.getTotalHits() / size));
+        response.setPageSize(size);
+        response.setHasNext(nextCursor != null);
+        response.setHasPrevious(!cursor.searchAfter().isEmpty());
+        response.setNextCursor(nextCursor);
+        if (request.isIncludeFacets()) {
+            response.setFacets(CourseFacets.parse(searchHits.getAggregations()));
         }
-        if (request.getMaxAge() != null) {
-            // Course min age should be <= requested max age (course accepts students no older than requested)
-            criteriaList.add(new Criteria("minAge").lessThanEqual(request.getMaxAge()));
+        return response;
+    }
+
+    private void closePointInTime(String pointInTimeId) {
+        try {
+            elasticsearchOperations.closePointInTime(pointInTimeId);
+        } catch (RuntimeException e) {
+            log.debug("Could not close point-in-time: {}", e.getMessage());
         }
+    }
+
+    // An expired or unknown point-in-time is a 404 (search_context_missing_exception), which Spring Data
+    // translates to ResourceNotFoundException without keeping the Elasticsearch error
+    private static boolean isMissingPointInTime(RuntimeException e) {
+        return e instanceof ResourceNotFoundException
+                || e instanceof UncategorizedElasticsearchException uncategorized && uncategorized.getStatusCode() == 404;
+    }
 
-        // Range filters for price
-        if (request.getMinPrice() != null) {
-            criteriaList.add(new Criteria("price").greaterThanEqual(request.getMinPrice()));
+    // e.g. a point-in-time id that is not even well-formed
+    private static boolean isBadRequest(RuntimeException e) {
+        return e instanceof UncategorizedElasticsearchException uncategorized && uncategorized.getStatusCode() == 400;
+    }
+
+    NativeQuery buildSearchQuery(CourseSearchRequest request, Pageable pageable, List<String> sourceIncludes) {
+        String[] includes = sourceIncludes != null ? sourceIncludes.toArray(String[]::new) : null;
+        NativeQueryBuilder builder = NativeQuery.builder()
+                .withPageable(pageable)
+                .withSourceFilter(new FetchSourceFilter(includes, SOURCE_EXCLUDES));
+
+        if (request.isIncludeFacets()) {
+            // Facet filters move to post_filter so each facet can count without its own filter
+            var facetFilters = CourseQueryBuilder.facetFilters(request);
+            builder.withQuery(CourseQueryBuilder.build(request, textMode, useFilterContext, false))
+                    .withFilter(CourseFacets.postFilter(facetFilters));
+            CourseFacets.aggregations(facetFilters).forEach(builder::withAggregation);
+        } else {
+            builder.withQuery(CourseQueryBuilder.build(request, textMode, useFilterContext));
         }
-        if (request.getMaxPrice() != null) {
-            criteriaList.add(new Criteria("price").lessThanEqual(request.getMaxPrice()));
+        return builder.build();
+    }
+
+    public CourseDocument saveCourse(CourseDocument course) {
+        log.info("Saving course: {}", course.getTitle());
+        List<CourseDocument> written = List.of();
+        try {
+            CourseDocument saved;
+            if (embeddedIndex.isEnabled()) {
+                saved = embeddedIndex.save(List.of(course)).get(0);
+            } else {
+                applyTitleSuggest(course);
+                saved = courseRepository.save(course);
+            }
+            written = List.of(saved);
+            return saved;
+        } finally {
+            // Published on failure as well, so the result cache never outlives a write that may have landed
+            changeFeed.upserted(written);
         }
+    }
 
-        // Date filter for nextSessionDate (courses on or after given date)
-        if (request.getNextSessionDate() != null && !request.getNextSessionDate().trim().isEmpty()) {
-            try {
-                // Parse the date string and create criteria
-                criteriaList.add(new Criteria("nextSessionDate").greaterThanEqual(request.getNextSessionDate()));
-            } catch (Exception e) {
-                log.warn("Invalid date format for nextSessionDate: {}", request.getNextSessionDate());
+    public List<CourseDocument> saveAllCourses(List<CourseDocument> courses) {
+        log.info("Saving {} courses", courses.size());
+        Timer.Sample sample = courseMetrics.start();
+        boolean success = false;
+        List<CourseDocument> saved = List.of();
+        try {
+            if (embeddedIndex.isEnabled()) {
+                saved = embeddedIndex.save(courses);
+            } else {
+                courses.forEach(CourseService::applyTitleSuggest);
+                saved = courseMetrics.timeElasticsearch("bulk", () ->
+                        StreamSupport.stream(courseRepository.saveAll(courses).spliterator(), false)
+                                .collect(Collectors.toList()));
             }
+            success = true;
+            return saved;
+        } finally {
+            changeFeed.upserted(saved);
+            courseMetrics.recordSave(sample, courses.size(), success);
         }
+    }
 
-        // Combine all criteria with AND logic
-        if (criteriaList.isEmpty()) {
-            return new CriteriaQuery(new Criteria());
+    /**
+     * Indexes one bulk batch without refreshing the index and reports per-document failures
+     * instead of echoing the saved documents back.
+     *
+     * The batch only invalidates cached results; the local indexes (suggestions, filter mirror) are left
+     * alone, so a large load does not republish their snapshots once per batch. Call
+     * {@link #rebuildLocalIndexes} once the load is complete and refreshed.
+     */
+    public BulkIngestResponse.BatchResult indexBatch(int batchNumber, List<CourseDocument> courses) {
+        log.debug("Indexing bulk batch {} with {} courses", batchNumber, courses.size());
+        BulkIngestResponse.BatchResult result = new BulkIngestResponse.BatchResult();
+        result.setBatch(batchNumber);
+        result.setDocuments(courses.size());
+
+        if (embeddedIndex.isEnabled()) {
+            embeddedIndex.save(courses);
+            changeFeed.upserted(List.of());
+            result.setIndexed(courses.size());
+            return result;
         }
 
-        Criteria combinedCriteria = criteriaList.get(0);
-        for (int i = 1; i < criteriaList.size(); i++) {
-            combinedCriteria = combinedCriteria.and(criteriaList.get(i));
+        List<IndexQuery> queries = new ArrayList<>(courses.size());
+        for (CourseDocument course : courses) {
+            applyTitleSuggest(course);
+            queries.add(new IndexQueryBuilder().withId(course.getId()).withObject(course).build());
         }
 
-        return new CriteriaQuery(combinedCriteria);
-    }
+        Map<String, BulkFailureException.FailureDetails> failedDocuments = Map.of();
+        try {
+            courseMetrics.timeElasticsearch("bulk", () -> elasticsearchOperations.bulkIndex(queries, CourseDocument.class));
+        } catch (BulkFailureException e) {
+            failedDocuments = e.getFailedDocuments();
+        } catch (RuntimeException e) {
+            // Part of the batch may have been indexed before the failure
+            changeFeed.upserted(List.of());
+            throw e;
+        }
 
-    public CourseDocument saveCourse(CourseDocument course) {
-        log.info("Saving course: {}", course.getTitle());
-        return courseRepository.save(course);
+        result.setFailed(failedDocuments.size());
+        result.setIndexed(courses.size() - failedDocuments.size());
+        failedDocuments.entrySet().stream()
+                .limit(MAX_REPORTED_FAILURES)
+                .forEach(failure -> result.getFailures().put(failure.getKey(), failure.getValue().errorMessage()));
+
+        changeFeed.upserted(List.of());
+        return result;
     }
 
-    public List<CourseDocument> saveAllCourses(List<CourseDocument> courses) {
-        log.info("Saving {} courses", courses.size());
-        return StreamSupport.stream(courseRepository.saveAll(courses).spliterator(), false)
-                .collect(Collectors.toList());
+    public void refreshIndex() {
+        if (embeddedIndex.isEnabled()) {
+            // Writes to the embedded index are visible immediately
+            return;
+        }
+        elasticsearchOperations.indexOps(CourseDocument.class).refresh();
     }
 
     public List<CourseDocument> getAllCourses() {
         log.info("Getting all courses");
+        if (embeddedIndex.isEnabled()) {
+            return embeddedIndex.findAll();
+        }
         return StreamSupport.stream(courseRepository.findAll().spliterator(), false)
                 .collect(Collectors.toList());
     }
 
     public void deleteAllCourses() {
         log.info("Deleting all courses");
-        courseRepository.deleteAll();
+        try {
+            if (embeddedIndex.isEnabled()) {
+                embeddedIndex.clear();
+            } else {
+                courseRepository.deleteAll();
+            }
+        } catch (RuntimeException e) {
+            // Not known to be gone: keep the local indexes, only drop cached results
+            changeFeed.upserted(List.of());
+            throw e;
+        }
+        changeFeed.deletedAll();
+    }
+
+    /**
+     * Reloads the in-process suggestion index (and degraded-mode snapshot) and, when it mirrors the catalog,
+     * the filter index from the full catalog.
+     *
+     * A call while another reload is running returns at once and leaves a request behind: the running
+     * reload may have read the catalog before the caller's writes, so it reads it once more when done.
+     */
+    public void rebuildLocalIndexes() {
+        if (rebuildRequests.getAndIncrement() > 0) {
+            log.debug("Local index reload already running, queued another pass");
+            return;
+        }
+        int handled;
+        do {
+            handled = rebuildRequests.get();
+            try {
+                reloadLocalIndexes();
+            } catch (RuntimeException e) {
+                rebuildRequests.set(0);
+                throw e;
+            }
+        } while (!rebuildRequests.compareAndSet(handled, 0));
+    }
+
+    private void reloadLocalIndexes() {
+        if (embeddedIndex.isEnabled()) {
+            suggestionIndex.rebuild(embeddedIndex.findAll().stream());
+            return;
+        }
+        if (!embeddedIndex.mirrorsCatalog()) {
+            rebuildFromElasticsearch(courseRepository::findAllBy, suggestionIndex::rebuild);
+            return;
+        }
+        // One scroll of full documents feeds both indexes
+        rebuildFromElasticsearch(courseRepository::streamAllBy, courses -> {
+            List<CourseDocument> catalog = courses.collect(Collectors.toList());
+            embeddedIndex.rebuild(catalog.stream());
+            suggestionIndex.rebuild(catalog.stream());
+        });
+    }
+
+    private void rebuildFromElasticsearch(Supplier<Stream<CourseDocument>> scroll, Consumer<Stream<CourseDocument>> rebuild) {
+        try (Stream<CourseDocument> courses = scroll.get()) {
+            rebuild.accept(courses);
+            circuitBreaker.recordSuccess();
+        } catch (RuntimeException e) {
+            circuitBreaker.recordFailure();
+            throw e;
+        }
     }
 
     public long countCourses() {
-        return courseRepository.count();
+        return embeddedIndex.isEnabled() ? embeddedIndex.size() : courseRepository.count();
     }
 
     public List<String> getAutocompleteSuggestions(String query) {
-        log.info("Getting autocomplete suggestions for: {}", query);
+        return getAutocompleteSuggestions(query, null);
+    }
+
+    public List<String> getAutocompleteSuggestions(String query, String category) {
+        log.debug("Getting autocomplete suggestions for: {}", query);
         
         if (query == null || query.trim().isEmpty()) {
             return List.of();
         }
+        String prefix = query.trim();
+        Timer.Sample sample = courseMetrics.start();
+        
+        // Served in-process once the suggestion index is loaded; Elasticsearch only while it is cold
+        if (suggestionIndex.servesAutocomplete() && suggestionIndex.isWarm()) {
+            return recordAutocomplete(sample, "local", suggestionIndex.suggest(prefix, category, MAX_SUGGESTIONS));
+        }
+        
+        // With the embedded engine the suggestion index sees every write and is the only source
+        if (embeddedIndex.isEnabled()) {
+            return recordAutocomplete(sample, "local", suggestionIndex.suggest(prefix, category, MAX_SUGGESTIONS));
+        }
+        
+        // While Elasticsearch is unhealthy, answer from the local snapshot without calling it at all
+        if (!circuitBreaker.allowRequest()) {
+            log.debug("Circuit breaker open, serving suggestions from the local snapshot");
+            return recordAutocomplete(sample, "snapshot", suggestionIndex.suggest(prefix, category, MAX_SUGGESTIONS));
+        }
         
-        // Use a simple prefix search on the title field for autocomplete
-        // In a real production system, you could implement Elasticsearch completion suggester
         try {
-            Criteria titleCriteria = new Criteria("title").contains(query);
-            CriteriaQuery searchQuery = new CriteriaQuery(titleCriteria);
-            searchQuery.setPageable(PageRequest.of(0, 10));
-            
-            SearchHits<CourseDocument> searchHits = elasticsearchOperations.search(searchQuery, CourseDocument.class);
-            
-            return searchHits.getSearchHits().stream()
-                .map(hit -> hit.getContent().getTitle())
-                .filter(title -> title != null)
-                .distinct()
-                .limit(10)
-                .collect(Collectors.toList());
+            List<String> suggestions = null;
+            String source = "completion";
+            if (useCompletionSuggester) {
+                try {
+                    suggestions = getCompletionSuggestions(prefix, category);
+                } catch (Exception e) {
+                    // e.g. an index created before titleSuggest had a category context
+                    log.warn("Completion suggester failed, using title search: {}", e.getMessage());
+                }
+            }
+            if (suggestions == null) {
+                suggestions = getTitleSearchSuggestions(prefix, category);
+                source = "title";
+            }
+            circuitBreaker.recordSuccess();
+            return recordAutocomplete(sample, source, suggestions);
         } catch (Exception e) {
-            log.warn("Elasticsearch search failed, using fallback: {}", e.getMessage());
-            
-            // Fallback to simple in-memory filtering
-            List<CourseDocument> allCourses = getAllCourses();
-            
-            return allCourses.stream()
-                .map(CourseDocument::getTitle)
-                .filter(title -> title != null && title.toLowerCase().contains(query.toLowerCase()))
+            circuitBreaker.recordFailure();
+            log.warn("Elasticsearch search failed, serving suggestions from the local snapshot: {}", e.getMessage());
+            return recordAutocomplete(sample, "snapshot", suggestionIndex.suggest(prefix, category, MAX_SUGGESTIONS));
+        }
+    }
+
+    private List<String> recordAutocomplete(Timer.Sample sample, String source, List<String> suggestions) {
+        courseMetrics.recordAutocomplete(sample, source, suggestions.size());
+        return suggestions;
+    }
+
+    /**
+     * Prefix lookup against the titleSuggest completion field (served from the in-memory FST),
+     * optionally restricted to one category through the completion context.
+     */
+    private List<String> getCompletionSuggestions(String prefix, String category) {
+        NativeQuery suggestQuery = NativeQuery.builder()
+                .withSuggester(Suggester.of(s -> s.suggesters(TITLE_SUGGESTION, fs -> fs
+                        .prefix(prefix)
+                        .completion(c -> {
+                            // One document can match through several of its per-word inputs
+                            c.field("titleSuggest").size(MAX_SUGGESTIONS * 2).skipDuplicates(true);
+                            if (category != null && !category.isBlank()) {
+                                c.contexts("category", List.of(CompletionContext.of(cc -> cc
+                                        .context(ctx -> ctx.category(category.trim())))));
+                            }
+                            return c;
+                        }))))
+                .withSourceFilter(new FetchSourceFilter(new String[]{"title"}, null))
+                .withMaxResults(0)
+                .build();
+
+        SearchHits<CourseDocument> searchHits = courseMetrics.timeElasticsearch("suggest",
+                () -> elasticsearchOperations.search(suggestQuery, CourseDocument.class));
+        Suggest suggest = searchHits.getSuggest();
+        if (suggest == null || !(suggest.getSuggestion(TITLE_SUGGESTION) instanceof CompletionSuggestion<?> completion)) {
+            return List.of();
+        }
+
+        return completion.getEntries().stream()
+                .flatMap(entry -> entry.getOptions().stream())
+                .map(option -> option.getSearchHit() != null && option.getSearchHit().getContent() instanceof CourseDocument course
+                        ? course.getTitle()
+                        : option.getText())
+                .filter(title -> title != null)
                 .distinct()
-                .limit(10)
+                .limit(MAX_SUGGESTIONS)
                 .collect(Collectors.toList());
+    }
+
+    /**
+     * Substring search on the analyzed title; used when the completion suggester is disabled or unavailable.
+     */
+    private List<String> getTitleSearchSuggestions(String prefix, String category) {
+        Criteria titleCriteria = new Criteria("title").contains(prefix);
+        if (category != null && !category.isBlank()) {
+            titleCriteria = titleCriteria.and(new Criteria("category").is(category.trim()));
+        }
+        CriteriaQuery searchQuery = new CriteriaQuery(titleCriteria);
+        searchQuery.setPageable(PageRequest.of(0, MAX_SUGGESTIONS));
+        searchQuery.addSourceFilter(new FetchSourceFilter(new String[]{"title"}, null));
+        
+        SearchHits<CourseDocument> searchHits = courseMetrics.timeElasticsearch("search",
+                () -> elasticsearchOperations.search(searchQuery, CourseDocument.class));
+        
+        return searchHits.getSearchHits().stream()
+            .map(hit -> hit.getContent().getTitle())
+            .filter(title -> title != null)
+            .distinct()
+            .limit(MAX_SUGGESTIONS)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Derives the completion inputs from the title: the full title plus every word-boundary suffix,
+     * since the completion suggester only matches from the start of an input.
+     */
+    static void applyTitleSuggest(CourseDocument course) {
+        if (course.getTitle() == null || course.getTitle().isBlank()) {
+            course.setTitleSuggest(null);
+            return;
+        }
+        List<String> words = Arrays.asList(course.getTitle().trim().split("\\s+"));
+        List<String> inputs = new ArrayList<>(words.size());
+        for (int i = 0; i < words.size(); i++) {
+            inputs.add(String.join(" ", words.subList(i, words.size())));
         }
+        course.setTitleSuggest(new Completion(inputs));
     }
 }
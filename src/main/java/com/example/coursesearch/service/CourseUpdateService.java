@@ -0,0 +1,293 @@
+package com.example.coursesearch.service;
+
+import com.example.coursesearch.dto.BulkUpdateResponse;
+import com.example.coursesearch.exception.CourseNotFoundException;
+import com.example.coursesearch.exception.CourseUpdateConflictException;
+import com.example.coursesearch.exception.InvalidCourseUpdateException;
+import com.example.coursesearch.exception.InvalidSearchRequestException;
+import com.example.coursesearch.model.CourseDocument;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.MultiGetItem;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.query.SeqNoPrimaryTerm;
+import org.springframework.data.elasticsearch.core.query.UpdateQuery;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Partial updates of courses: only the given fields change, everything else is left as stored.
+ *
+ * Each course is read together with its seq_no and primary_term, the changes are applied to that copy
+ * and only the changed fields (plus titleSuggest when the title changes) are sent as an _update that is
+ * conditional on the seq_no/primary_term just read. If another writer got there first Elasticsearch answers
+ * 409 and the course is read and merged again, up to {@code max-retries} times, so concurrent updaters of
+ * different fields never overwrite each other. A batch is one _mget and one _bulk per attempt. Applied
+ * updates are published on the {@link CourseChangeFeed} as full documents, stamped with seq_no + 1 of the
+ * read (see {@link #attempt}) so listeners can order them against other writes.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CourseUpdateService {
+
+    private static final int MAX_REPORTED_FAILURES = 20;
+
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final EmbeddedCourseIndex embeddedIndex;
+    private final CourseChangeFeed changeFeed;
+    private final CourseMetrics courseMetrics;
+    private final ObjectMapper objectMapper;
+
+    @Value("${course-search.update.max-retries:3}")
+    private int maxRetries = 3;
+
+    @Value("${course-search.update.max-bulk-size:1000}")
+    private int maxBulkSize = 1000;
+
+    /**
+     * Applies {@code changes} (field name to new value, null clears the field) to one course.
+     *
+     * @return the course as stored after the update
+     */
+    public CourseDocument updateCourse(String id, Map<String, Object> changes) {
+        Object bodyId = changes.get("id");
+        if (bodyId != null && !id.equals(bodyId.toString())) {
+            throw new InvalidCourseUpdateException("The id of a course cannot be changed");
+        }
+        Map<String, Object> fields = new LinkedHashMap<>(changes);
+        fields.remove("id");
+
+        Updates updates = update(Map.of(id, fields));
+        CourseDocument updated = updates.updated().get(id);
+        if (updated != null) {
+            return updated;
+        }
+        BulkFailureException.FailureDetails failure = updates.failed().get(id);
+        // A failure without a status is reported like any other unexpected one
+        switch (Objects.requireNonNullElse(failure.status(), 500)) {
+            case 404 -> throw new CourseNotFoundException(id);
+            case 409 -> throw new CourseUpdateConflictException(failure.errorMessage());
+            case 400 -> throw new InvalidCourseUpdateException(failure.errorMessage());
+            default -> throw new IllegalStateException("Update of course " + id + " failed: " + failure.errorMessage());
+        }
+    }
+
+    /**
+     * Applies partial updates to many courses; every entry names the course by its {@code id} and carries the
+     * fields to change. Failures are reported per course.
+     */
+    public BulkUpdateResponse updateCourses(List<Map<String, Object>> changes) {
+        log.info("Updating {} courses", changes.size());
+        if (changes.size() > maxBulkSize) {
+            throw new InvalidCourseUpdateException("A bulk update may contain at most " + maxBulkSize + " courses");
+        }
+        Map<String, Map<String, Object>> changesById = new LinkedHashMap<>();
+        for (int i = 0; i < changes.size(); i++) {
+            Map<String, Object> fields = new LinkedHashMap<>(changes.get(i));
+            Object id = fields.remove("id");
+            if (id == null || id.toString().isBlank()) {
+                throw new InvalidCourseUpdateException("Update " + i + " has no id");
+            }
+            if (changesById.putIfAbsent(id.toString(), fields) != null) {
+                throw new InvalidCourseUpdateException("Course " + id + " appears more than once, merge its changes");
+            }
+        }
+
+        Updates updates = update(changesById);
+        BulkUpdateResponse response = new BulkUpdateResponse();
+        response.setDocuments(changesById.size());
+        response.setUpdated(updates.updated().size());
+        response.setFailed(updates.failed().size());
+        response.setRetried(updates.retried());
+        updates.failed().entrySet().stream()
+                .limit(MAX_REPORTED_FAILURES)
+                .forEach(failure -> response.getFailures().put(failure.getKey(), failure.getValue().errorMessage()));
+        return response;
+    }
+
+    private Updates update(Map<String, Map<String, Object>> changesById) {
+        if (embeddedIndex.isEnabled()) {
+            return updateEmbedded(changesById);
+        }
+
+        Map<String, CourseDocument> updated = new LinkedHashMap<>();
+        Map<String, BulkFailureException.FailureDetails> failed = new LinkedHashMap<>();
+        Map<String, Map<String, Object>> pending = new LinkedHashMap<>(changesById);
+        int retried = 0;
+        try {
+            for (int attempt = 0; !pending.isEmpty(); attempt++) {
+                if (attempt > maxRetries) {
+                    pending.keySet().forEach(id -> failed.put(id, new BulkFailureException.FailureDetails(409,
+                            "Course " + id + " was changed concurrently " + (maxRetries + 1) + " times, giving up")));
+                    break;
+                }
+                if (attempt > 0) {
+                    retried += pending.size();
+                    log.debug("Retrying {} course updates after seq_no conflicts (attempt {})", pending.size(), attempt);
+                }
+                pending = attempt(pending, updated, failed);
+            }
+        } finally {
+            // Also after a failure: some of the updates may have been applied
+            changeFeed.upserted(new ArrayList<>(updated.values()));
+        }
+        return new Updates(updated, failed, retried);
+    }
+
+    /**
+     * One read-merge-write round.
+     *
+     * @return the changes that hit a seq_no conflict and have to be merged again
+     */
+    private Map<String, Map<String, Object>> attempt(Map<String, Map<String, Object>> pending,
+                                                     Map<String, CourseDocument> updated,
+                                                     Map<String, BulkFailureException.FailureDetails> failed) {
+        List<String> ids = new ArrayList<>(pending.keySet());
+        List<MultiGetItem<CourseDocument>> current = courseMetrics.timeElasticsearch("mget", () ->
+                elasticsearchOperations.multiGet(NativeQuery.builder().withIds(ids).build(), CourseDocument.class));
+
+        Map<String, CourseDocument> merged = new LinkedHashMap<>();
+        Map<String, SeqNoPrimaryTerm> readAtById = new LinkedHashMap<>();
+        List<UpdateQuery> queries = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            String id = ids.get(i);
+            MultiGetItem<CourseDocument> item = current.get(i);
+            if (!item.hasItem()) {
+                failed.put(id, item.isFailed()
+                        ? new BulkFailureException.FailureDetails(500, "Could not read course " + id + ": "
+                                + item.getFailure().getException())
+                        : new BulkFailureException.FailureDetails(404, "Course " + id + " not found"));
+                continue;
+            }
+            SeqNoPrimaryTerm readAt = item.getItem().getSeqNoPrimaryTerm();
+            try {
+                CourseDocument course = merge(item.getItem(), pending.get(id));
+                queries.add(UpdateQuery.builder(id)
+                        .withDocument(changedFields(course, pending.get(id)))
+                        .withIfSeqNo(Math.toIntExact(readAt.sequenceNumber()))
+                        .withIfPrimaryTerm(Math.toIntExact(readAt.primaryTerm()))
+                        .build());
+                merged.put(id, course);
+                readAtById.put(id, readAt);
+            } catch (InvalidCourseUpdateException e) {
+                failed.put(id, new BulkFailureException.FailureDetails(400, e.getMessage()));
+            } catch (ArithmeticException e) {
+                // UpdateQuery takes if_seq_no and if_primary_term as int; past that this course cannot be updated
+                failed.put(id, new BulkFailureException.FailureDetails(500, "Course " + id + " is at seq_no "
+                        + readAt.sequenceNumber() + ", beyond what an optimistic update can send"));
+            }
+        }
+
+        Map<String, Map<String, Object>> conflicts = new LinkedHashMap<>();
+        if (!queries.isEmpty()) {
+            try {
+                courseMetrics.timeElasticsearch("bulk", () -> {
+                    elasticsearchOperations.bulkUpdate(queries, CourseDocument.class);
+                    return null;
+                });
+            } catch (BulkFailureException e) {
+                e.getFailedDocuments().forEach((id, failure) -> {
+                    if (failure.status() != null && failure.status() == 409) {
+                        conflicts.put(id, pending.get(id));
+                    } else {
+                        failed.put(id, failure);
+                    }
+                });
+            }
+        }
+        merged.forEach((id, course) -> {
+            if (!conflicts.containsKey(id) && !failed.containsKey(id)) {
+                // _bulk does not report the new seq_no. Any write between our read and ours would have been a
+                // conflict, so seq_no + 1 of the read sorts after every earlier write and before every later one.
+                SeqNoPrimaryTerm readAt = readAtById.get(id);
+                course.setSeqNoPrimaryTerm(new SeqNoPrimaryTerm(readAt.sequenceNumber() + 1, readAt.primaryTerm()));
+                updated.put(id, course);
+            }
+        });
+        return conflicts;
+    }
+
+    // Writes in the embedded index are serialized, so there is nothing to retry
+    private Updates updateEmbedded(Map<String, Map<String, Object>> changesById) {
+        Map<String, CourseDocument> updated = new LinkedHashMap<>();
+        Map<String, BulkFailureException.FailureDetails> failed = new LinkedHashMap<>();
+        try {
+            changesById.forEach((id, fields) -> {
+                try {
+                    CourseDocument course = embeddedIndex.update(id, current -> merge(current, fields));
+                    if (course != null) {
+                        updated.put(id, course);
+                    } else {
+                        failed.put(id, new BulkFailureException.FailureDetails(404, "Course " + id + " not found"));
+                    }
+                } catch (InvalidCourseUpdateException e) {
+                    failed.put(id, new BulkFailureException.FailureDetails(400, e.getMessage()));
+                }
+            });
+        } finally {
+            changeFeed.upserted(new ArrayList<>(updated.values()));
+        }
+        return new Updates(updated, failed, 0);
+    }
+
+    /**
+     * A new document with the changes applied to a copy of {@code current}; unknown fields and values of the
+     * wrong type are rejected.
+     */
+    private CourseDocument merge(CourseDocument current, Map<String, Object> fields) {
+        if (fields.isEmpty()) {
+            throw new InvalidCourseUpdateException("No fields to update");
+        }
+        try {
+            CourseDocument copy = objectMapper.convertValue(current, CourseDocument.class);
+            JsonNode patch = objectMapper.valueToTree(fields);
+            // Derived and read-only fields (titleSuggest, seqNoPrimaryTerm) are ignored properties
+            CourseDocument course = objectMapper.readerForUpdating(copy)
+                    .with(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, DeserializationFeature.FAIL_ON_IGNORED_PROPERTIES)
+                    .readValue(patch);
+            course.setId(current.getId());
+            if (course.getNextSessionDate() != null) {
+                CourseQueryBuilder.validDate(course.getNextSessionDate());
+            }
+            CourseService.applyTitleSuggest(course);
+            return course;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new InvalidCourseUpdateException("Invalid update: " + e.getMessage(), e);
+        } catch (InvalidSearchRequestException e) {
+            throw new InvalidCourseUpdateException(e.getMessage(), e);
+        }
+    }
+
+    // The mapped form of the merged course, cut down to the fields that were changed
+    private Document changedFields(CourseDocument course, Map<String, Object> fields) {
+        Document mapped = elasticsearchOperations.getElasticsearchConverter().mapObject(course);
+        Document partial = Document.create();
+        for (String field : fields.keySet()) {
+            // Cleared fields are not mapped at all; send them as null explicitly
+            partial.put(field, mapped.get(field));
+        }
+        if (fields.containsKey("title")) {
+            partial.put("titleSuggest", mapped.get("titleSuggest"));
+        }
+        return partial;
+    }
+
+    private record Updates(Map<String, CourseDocument> updated,
+                           Map<String, BulkFailureException.FailureDetails> failed,
+                           int retried) {
+    }
+}
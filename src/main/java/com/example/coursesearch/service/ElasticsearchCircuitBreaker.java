@@ -0,0 +1,99 @@
+package com.example.coursesearch.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Minimal closed / open / half-open circuit breaker for optional Elasticsearch calls.
+ *
+ * After {@code failureThreshold} consecutive failures the breaker opens and callers serve degraded
+ * results without touching Elasticsearch. Once {@code openDuration} has passed a single trial call is
+ * let through; its outcome closes the breaker again or re-opens it for another period.
+ */
+@Component
+@Slf4j
+public class ElasticsearchCircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final LongSupplier clock;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile State state = State.CLOSED;
+    private volatile long openedAt;
+
+    @Autowired
+    public ElasticsearchCircuitBreaker(
+            @Value("${course-search.circuit-breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${course-search.circuit-breaker.open-duration:30s}") Duration openDuration) {
+        this(failureThreshold, openDuration, System::nanoTime);
+    }
+
+    ElasticsearchCircuitBreaker(int failureThreshold, Duration openDuration, LongSupplier clock) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = openDuration.toNanos();
+        this.clock = clock;
+    }
+
+    /**
+     * Whether the caller may go to Elasticsearch now. In the open state this lets exactly one
+     * trial call through once the open period has elapsed.
+     */
+    public boolean allowRequest() {
+        State current = state;
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN && clock.getAsLong() - openedAt >= openNanos) {
+            synchronized (this) {
+                if (state == State.OPEN && clock.getAsLong() - openedAt >= openNanos) {
+                    state = State.HALF_OPEN;
+                    log.info("Elasticsearch circuit breaker half-open, sending a trial request");
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public boolean isClosed() {
+        return state == State.CLOSED;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void recordSuccess() {
+        consecutiveFailures.set(0);
+        if (state != State.CLOSED) {
+            synchronized (this) {
+                if (state != State.CLOSED) {
+                    state = State.CLOSED;
+                    log.info("Elasticsearch circuit breaker closed");
+                }
+            }
+        }
+    }
+
+    public void recordFailure() {
+        int failures = consecutiveFailures.incrementAndGet();
+        if (state == State.HALF_OPEN || (state == State.CLOSED && failures >= failureThreshold)) {
+            synchronized (this) {
+                if (state != State.OPEN) {
+                    state = State.OPEN;
+                    openedAt = clock.getAsLong();
+                    log.warn("Elasticsearch circuit breaker opened after {} consecutive failures", failures);
+                }
+            }
+        }
+    }
+}
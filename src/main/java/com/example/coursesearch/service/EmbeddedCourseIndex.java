@@ -0,0 +1,958 @@
+package com.example.coursesearch.service;
+
+import com.example.coursesearch.dto.CourseSearchRequest;
+import com.example.coursesearch.dto.CourseSearchResponse;
+import com.example.coursesearch.dto.FacetBucket;
+import com.example.coursesearch.exception.InvalidSearchRequestException;
+import com.example.coursesearch.model.CourseDocument;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * In-JVM search engine over the course catalog, in one of two roles:
+ * <ul>
+ *   <li>with {@code course-search.engine=embedded} it replaces Elasticsearch for small catalogs and holds
+ *       the only copy of the courses</li>
+ *   <li>with {@code course-search.search.local-filters.enabled} it mirrors the Elasticsearch index: loaded by
+ *       a scroll at startup (and reloaded periodically, like the suggestion index), kept in step by every write
+ *       of this instance through the {@link CourseChangeFeed}, and once warm answers the searches without
+ *       {@code q} (pure filtering and sorting, most of the traffic), so Elasticsearch only sees text queries</li>
+ * </ul>
+ *
+ * Searches are answered from an immutable {@link Snapshot} with the semantics of the Elasticsearch query
+ * (see CourseQueryBuilder and CourseFacets):
+ * <ul>
+ *   <li>title and description go into an inverted index of lower-cased word tokens; q matches like the
+ *       multi_match, any token in either field with fuzziness AUTO and the same prefix and expansion limits.
+ *       The mirror never answers q, so it does not build these</li>
+ *   <li>category, type and gradeRange keep one bitset of documents per value</li>
+ *   <li>price, minAge, maxAge and nextSessionDate are sorted primitive arrays: a range filter is two binary
+ *       searches, and a page is either the first hits walking the array in order (dense hits) or a bounded
+ *       top-k over the hits (sparse hits)</li>
+ * </ul>
+ * Filters are combined as bitsets, so facet counts are intersections as well. Results are always sorted by
+ * a field, so nothing is scored. Readers use the snapshot published through a volatile field. Every course
+ * keeps its ordinal for life, so a write derives the next snapshot from the current one under the lock: only
+ * the bitsets and postings of the values it touches are copied, and the changed entries are sorted and
+ * merged into the numeric arrays, which costs a linear copy instead of re-sorting and re-tokenizing the
+ * catalog. A full {@link #rebuild} reads the catalog outside the lock and replays the writes that arrived
+ * meanwhile.
+ * Cursor pagination needs an Elasticsearch point-in-time and is not available.
+ */
+@Component
+@Slf4j
+public class EmbeddedCourseIndex implements CourseChangeListener {
+
+    private static final String ENGINE = "embedded";
+    private static final Set<String> SORT_FIELDS = Set.of("price", "minAge", "maxAge", "nextSessionDate");
+
+    private final boolean enabled;
+    private final boolean mirror;
+
+    // Source of truth for snapshots, in insertion order, and each course's ordinal in them, guarded by this
+    private final Map<String, CourseDocument> coursesById = new LinkedHashMap<>();
+    private final Map<String, Integer> ordinals = new HashMap<>();
+
+    // Writes that arrived while a rebuild was reading the catalog, guarded by this
+    private List<CourseDocument> writesDuringRebuild;
+    private boolean clearedDuringRebuild;
+
+    private volatile Snapshot snapshot;
+    private volatile boolean warm;
+
+    @Autowired
+    public EmbeddedCourseIndex(
+            @Value("${course-search.engine:elasticsearch}") String engine,
+            @Value("${course-search.search.local-filters.enabled:false}") boolean localFilters) {
+        this(ENGINE.equalsIgnoreCase(engine.trim()), localFilters);
+    }
+
+    EmbeddedCourseIndex(boolean enabled, boolean localFilters) {
+        this.enabled = enabled;
+        this.mirror = !enabled && localFilters;
+        this.snapshot = Snapshot.empty(enabled);
+        // As the primary store it is complete from the start
+        this.warm = enabled;
+        if (enabled) {
+            log.info("Search engine: embedded in-JVM index, Elasticsearch is not used");
+        }
+    }
+
+    /**
+     * Whether this index replaces Elasticsearch for searches and writes.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Whether this index mirrors the Elasticsearch catalog for filter-only searches.
+     */
+    public boolean mirrorsCatalog() {
+        return mirror;
+    }
+
+    /**
+     * True once the index holds the full catalog and can answer on its own.
+     */
+    public boolean isWarm() {
+        return warm;
+    }
+
+    /**
+     * Whether the mirror can answer this search in place of Elasticsearch: it is warm, the search has no
+     * text to score or match and is sorted by one of the indexed columns.
+     */
+    public boolean servesFilterSearch(CourseSearchRequest request) {
+        if (!mirror || !warm || hasText(request.getQuery()) || hasText(request.getCursor())) {
+            return false;
+        }
+        return CourseQueryBuilder.sort(request).stream().allMatch(order -> SORT_FIELDS.contains(order.getProperty()));
+    }
+
+    public int size() {
+        return snapshot.courses.length;
+    }
+
+    public List<CourseDocument> findAll() {
+        return List.of(snapshot.courses);
+    }
+
+    /**
+     * Adds or replaces the courses, by id, when this index is the primary store; courses without one get a
+     * generated id as Elasticsearch would. They are searchable as soon as this returns.
+     */
+    public synchronized List<CourseDocument> save(Collection<CourseDocument> courses) {
+        for (CourseDocument course : courses) {
+            if (course.getId() == null || course.getId().isBlank()) {
+                course.setId(UUID.randomUUID().toString());
+            }
+        }
+        put(courses);
+        return new ArrayList<>(courses);
+    }
+
+    /**
+     * Replaces one course with {@code change} applied to it; concurrent writes wait, so nothing is lost.
+     *
+     * @return the course as stored now, or null when there is no course with this id
+     */
+    public synchronized CourseDocument update(String id, UnaryOperator<CourseDocument> change) {
+        CourseDocument current = coursesById.get(id);
+        if (current == null) {
+            return null;
+        }
+        CourseDocument updated = change.apply(current);
+        put(List.of(updated));
+        return updated;
+    }
+
+    /**
+     * Applies courses just written to Elasticsearch to the mirror; does nothing unless mirroring.
+     */
+    synchronized void mirror(Collection<CourseDocument> saved) {
+        if (mirror && !saved.isEmpty()) {
+            put(saved);
+        }
+    }
+
+    /**
+     * Applies changes from the feed to the mirror. As the primary store the index is written by
+     * CourseService directly and ignores the feed.
+     */
+    @Override
+    public void onChanges(List<CourseChange> changes) {
+        if (mirror) {
+            CourseChangeListener.apply(changes, this::clear, this::mirror);
+        }
+    }
+
+    /**
+     * Replaces the whole mirror with the given catalog and marks it warm.
+     */
+    public void rebuild(Stream<CourseDocument> courses) {
+        synchronized (this) {
+            if (writesDuringRebuild != null) {
+                log.debug("Filter index rebuild already running, skipping");
+                return;
+            }
+            writesDuringRebuild = new ArrayList<>();
+            clearedDuringRebuild = false;
+        }
+
+        Map<String, CourseDocument> loaded = new LinkedHashMap<>();
+        try {
+            courses.filter(course -> course.getId() != null).forEach(course -> loaded.put(course.getId(), course));
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                writesDuringRebuild = null;
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            coursesById.clear();
+            ordinals.clear();
+            if (!clearedDuringRebuild) {
+                coursesById.putAll(loaded);
+            }
+            coursesById.keySet().forEach(id -> ordinals.put(id, ordinals.size()));
+            snapshot = Snapshot.empty(enabled).with(ordinals(coursesById.values()));
+            List<CourseDocument> replay = writesDuringRebuild;
+            writesDuringRebuild = null;
+            put(replay);
+            warm = true;
+        }
+        log.info("Filter index built with {} courses", snapshot.courses.length);
+    }
+
+    public synchronized void clear() {
+        coursesById.clear();
+        ordinals.clear();
+        if (writesDuringRebuild != null) {
+            writesDuringRebuild.clear();
+            clearedDuringRebuild = true;
+        }
+        snapshot = Snapshot.empty(enabled);
+    }
+
+    // Guarded by this; a course older than the one held (by seq_no) is a late publish and is dropped.
+    // A replaced course keeps its ordinal, a new one is appended
+    private void put(Collection<CourseDocument> courses) {
+        SortedMap<Integer, CourseDocument> changed = new TreeMap<>();
+        for (CourseDocument course : courses) {
+            if (course.getId() == null) {
+                continue;
+            }
+            CourseDocument held = coursesById.get(course.getId());
+            if (held == null || !CourseChange.isOlder(course.getSeqNoPrimaryTerm(), held.getSeqNoPrimaryTerm())) {
+                coursesById.put(course.getId(), course);
+                changed.put(ordinals.computeIfAbsent(course.getId(), id -> ordinals.size()), course);
+            }
+        }
+        if (writesDuringRebuild != null) {
+            writesDuringRebuild.addAll(courses);
+        }
+        if (!changed.isEmpty()) {
+            snapshot = snapshot.with(changed);
+        }
+    }
+
+    private static SortedMap<Integer, CourseDocument> ordinals(Collection<CourseDocument> courses) {
+        SortedMap<Integer, CourseDocument> byOrdinal = new TreeMap<>();
+        for (CourseDocument course : courses) {
+            byOrdinal.put(byOrdinal.size(), course);
+        }
+        return byOrdinal;
+    }
+
+    public CourseSearchResponse search(CourseSearchRequest request, Pageable pageable) {
+        Snapshot current = snapshot;
+
+        // Text and date are the query, the facet dimensions the (post) filter, as in the Elasticsearch search
+        BitSet query = current.query(request);
+        Map<CourseFacets.Facet, BitSet> filters = current.facetFilters(request);
+        BitSet hits = (BitSet) query.clone();
+        filters.values().forEach(hits::and);
+
+        List<CourseDocument> courses = current.page(hits, pageable);
+        log.debug("Found {} courses out of {} total (embedded)", courses.size(), hits.cardinality());
+
+        CourseSearchResponse response = CourseService.toPageResponse(courses, hits.cardinality(),
+                pageable.getPageNumber(), pageable.getPageSize());
+        if (request.isIncludeFacets()) {
+            response.setFacets(current.facets(query, filters));
+        }
+        return response;
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.trim().isEmpty();
+    }
+
+    /**
+     * Lower-cased letter/digit runs, close to what the standard analyzer produces for course titles.
+     */
+    static List<String> analyze(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String token : Snapshot.NON_WORD.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return new ArrayList<>(tokens);
+    }
+
+    /**
+     * Epoch millis of an ISO-8601 date or date-time, UTC unless the value has an offset, like the
+     * date_optional_time format; null when the value cannot be parsed.
+     */
+    static Double epochMillis(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String trimmed = value.trim();
+        try {
+            return (double) Instant.from(DateTimeFormatter.ISO_DATE_TIME.withZone(ZoneOffset.UTC).parse(trimmed))
+                    .toEpochMilli();
+        } catch (DateTimeParseException e) {
+            // date only
+        }
+        try {
+            TemporalAccessor date = DateTimeFormatter.ISO_DATE.parse(trimmed);
+            ZoneOffset offset = date.isSupported(ChronoField.OFFSET_SECONDS)
+                    ? ZoneOffset.ofTotalSeconds(date.get(ChronoField.OFFSET_SECONDS)) : ZoneOffset.UTC;
+            return (double) LocalDate.from(date).atStartOfDay(offset).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static final class Snapshot {
+
+        static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+        final CourseDocument[] courses;
+        // Null when the index only mirrors Elasticsearch for filter searches
+        final TextField title;
+        final TextField description;
+        final Map<String, BitSet> categories;
+        final Map<String, BitSet> types;
+        final Map<String, BitSet> gradeRanges;
+        final NumericField price;
+        final NumericField minAge;
+        final NumericField maxAge;
+        final NumericField nextSessionDate;
+
+        private Snapshot(CourseDocument[] courses, TextField title, TextField description,
+                         Map<String, BitSet> categories, Map<String, BitSet> types, Map<String, BitSet> gradeRanges,
+                         NumericField price, NumericField minAge, NumericField maxAge, NumericField nextSessionDate) {
+            this.courses = courses;
+            this.title = title;
+            this.description = description;
+            this.categories = categories;
+            this.types = types;
+            this.gradeRanges = gradeRanges;
+            this.price = price;
+            this.minAge = minAge;
+            this.maxAge = maxAge;
+            this.nextSessionDate = nextSessionDate;
+        }
+
+        static Snapshot empty(boolean text) {
+            return new Snapshot(new CourseDocument[0], text ? TextField.EMPTY : null, text ? TextField.EMPTY : null,
+                    Map.of(), Map.of(), Map.of(), NumericField.EMPTY, NumericField.EMPTY, NumericField.EMPTY,
+                    NumericField.EMPTY);
+        }
+
+        /**
+         * The next snapshot with {@code changed} (ordinal to course) applied; ordinals past the current ones
+         * are new courses and follow on without gaps. Untouched bitsets and postings are shared.
+         */
+        Snapshot with(SortedMap<Integer, CourseDocument> changed) {
+            CourseDocument[] next = Arrays.copyOf(courses, Math.max(courses.length, changed.lastKey() + 1));
+            changed.forEach((doc, course) -> next[doc] = course);
+            int[] docs = changed.keySet().stream().mapToInt(Integer::intValue).toArray();
+            return new Snapshot(next,
+                    title != null ? title.with(courses, next, docs, CourseDocument::getTitle) : null,
+                    description != null ? description.with(courses, next, docs, CourseDocument::getDescription) : null,
+                    keywords(categories, courses, next, docs, CourseDocument::getCategory),
+                    keywords(types, courses, next, docs, CourseDocument::getType),
+                    keywords(gradeRanges, courses, next, docs, CourseDocument::getGradeRange),
+                    price.with(next, docs, CourseDocument::getPrice),
+                    minAge.with(next, docs, course -> toDouble(course.getMinAge())),
+                    maxAge.with(next, docs, course -> toDouble(course.getMaxAge())),
+                    nextSessionDate.with(next, docs, course -> epochMillis(course.getNextSessionDate())));
+        }
+
+        BitSet query(CourseSearchRequest request) {
+            BitSet matches = all();
+            if (hasText(request.getQuery())) {
+                if (title == null) {
+                    throw new IllegalStateException("The filter mirror does not index text, q goes to Elasticsearch");
+                }
+                BitSet text = new BitSet(courses.length);
+                for (String token : analyze(request.getQuery())) {
+                    title.match(token, text);
+                    description.match(token, text);
+                }
+                matches.and(text);
+            }
+            if (hasText(request.getNextSessionDate())) {
+                String date = CourseQueryBuilder.validDate(request.getNextSessionDate().trim());
+                matches.and(nextSessionDate.range(epochMillis(date), null));
+            }
+            return matches;
+        }
+
+        // Same dimensions and clauses as CourseQueryBuilder.facetFilters
+        Map<CourseFacets.Facet, BitSet> facetFilters(CourseSearchRequest request) {
+            Map<CourseFacets.Facet, BitSet> filters = new EnumMap<>(CourseFacets.Facet.class);
+            if (hasText(request.getCategory())) {
+                filters.put(CourseFacets.Facet.CATEGORY, keyword(categories, request.getCategory()));
+            }
+            if (hasText(request.getType())) {
+                filters.put(CourseFacets.Facet.TYPE, keyword(types, request.getType()));
+            }
+            if (hasText(request.getGradeRange())) {
+                filters.put(CourseFacets.Facet.GRADE_RANGE, keyword(gradeRanges, request.getGradeRange()));
+            }
+            if (request.getMinAge() != null || request.getMaxAge() != null) {
+                filters.put(CourseFacets.Facet.AGE, ageOverlap(request.getMinAge(), request.getMaxAge()));
+            }
+            if (request.getMinPrice() != null || request.getMaxPrice() != null) {
+                filters.put(CourseFacets.Facet.PRICE, price.range(request.getMinPrice(), request.getMaxPrice()));
+            }
+            return filters;
+        }
+
+        // The course accepts students at least as old as minAge and no older than maxAge
+        BitSet ageOverlap(Integer from, Integer to) {
+            BitSet matches = all();
+            if (from != null) {
+                matches.and(maxAge.range((double) from, null));
+            }
+            if (to != null) {
+                matches.and(minAge.range(null, (double) to));
+            }
+            return matches;
+        }
+
+        List<CourseDocument> page(BitSet hits, Pageable pageable) {
+            int total = hits.cardinality();
+            long offset = pageable.getOffset();
+            if (offset >= total) {
+                return new ArrayList<>();
+            }
+            int wanted = (int) Math.min(total, offset + pageable.getPageSize());
+            Sort.Order order = pageable.getSort().stream().findFirst().orElse(Sort.Order.asc("nextSessionDate"));
+            NumericField field = field(order.getProperty());
+            // Walking the sort order visits about wanted * courses / total documents, a top-k visits every hit
+            int[] top = (double) wanted * courses.length / total > total
+                    ? field.topK(hits, wanted, order.isDescending())
+                    : field.first(hits, wanted, order.isDescending());
+            List<CourseDocument> page = new ArrayList<>(wanted - (int) offset);
+            for (int i = (int) offset; i < top.length; i++) {
+                page.add(courses[top[i]]);
+            }
+            return page;
+        }
+
+        // Mirrors the aggregations of CourseFacets: each facet counts over the filters of the other dimensions
+        Map<String, List<FacetBucket>> facets(BitSet query, Map<CourseFacets.Facet, BitSet> filters) {
+            Map<String, List<FacetBucket>> facets = new LinkedHashMap<>();
+            for (CourseFacets.Facet facet : CourseFacets.Facet.values()) {
+                BitSet scope = (BitSet) query.clone();
+                filters.forEach((dimension, matches) -> {
+                    if (dimension != facet) {
+                        scope.and(matches);
+                    }
+                });
+                facets.put(facet.key(), switch (facet) {
+                    case CATEGORY -> terms(categories, scope);
+                    case TYPE -> terms(types, scope);
+                    case GRADE_RANGE -> terms(gradeRanges, scope);
+                    case AGE -> ageBuckets(scope);
+                    case PRICE -> priceBuckets(scope);
+                });
+            }
+            return facets;
+        }
+
+        private List<FacetBucket> ageBuckets(BitSet scope) {
+            List<FacetBucket> buckets = new ArrayList<>();
+            for (int[] group : CourseFacets.AGE_GROUPS) {
+                BitSet matches = ageOverlap(group[0], group[1]);
+                matches.and(scope);
+                buckets.add(CourseFacets.ageBucket(group, matches.cardinality()));
+            }
+            return buckets;
+        }
+
+        private List<FacetBucket> priceBuckets(BitSet scope) {
+            List<FacetBucket> buckets = new ArrayList<>();
+            Double from = null;
+            for (double bound : CourseFacets.PRICE_BOUNDS) {
+                buckets.add(CourseFacets.priceBucket(from, bound, price.count(scope, from, bound)));
+                from = bound;
+            }
+            buckets.add(CourseFacets.priceBucket(from, null, price.count(scope, from, null)));
+            return buckets;
+        }
+
+        // Count descending, then value, like a terms aggregation; values without hits are left out
+        private static List<FacetBucket> terms(Map<String, BitSet> values, BitSet scope) {
+            List<FacetBucket> buckets = new ArrayList<>();
+            values.forEach((value, matches) -> {
+                BitSet hits = (BitSet) matches.clone();
+                hits.and(scope);
+                if (!hits.isEmpty()) {
+                    buckets.add(FacetBucket.of(value, hits.cardinality()));
+                }
+            });
+            buckets.sort(Comparator.comparingLong(FacetBucket::count).reversed().thenComparing(FacetBucket::key));
+            return buckets.size() > CourseFacets.MAX_TERMS ? buckets.subList(0, CourseFacets.MAX_TERMS) : buckets;
+        }
+
+        private NumericField field(String property) {
+            return switch (property) {
+                case "price" -> price;
+                case "minAge" -> minAge;
+                case "maxAge" -> maxAge;
+                case "nextSessionDate" -> nextSessionDate;
+                default -> throw new InvalidSearchRequestException("Sorting by '" + property
+                        + "' is not supported by the embedded search engine");
+            };
+        }
+
+        private BitSet all() {
+            BitSet all = new BitSet(courses.length);
+            all.set(0, courses.length);
+            return all;
+        }
+
+        // Keyword fields match the exact value only, like a term query
+        private static BitSet keyword(Map<String, BitSet> values, String value) {
+            BitSet matches = values.get(value.trim());
+            return matches != null ? (BitSet) matches.clone() : new BitSet();
+        }
+
+        // Copies only the bitsets of the values the changed documents leave or take
+        private static Map<String, BitSet> keywords(Map<String, BitSet> values, CourseDocument[] previous,
+                                                    CourseDocument[] next, int[] docs,
+                                                    Function<CourseDocument, String> field) {
+            Map<String, BitSet> result = new HashMap<>(values);
+            Set<String> copied = new HashSet<>();
+            Function<String, BitSet> writable = value -> {
+                if (copied.add(value)) {
+                    BitSet current = result.get(value);
+                    result.put(value, current != null ? (BitSet) current.clone() : new BitSet(next.length));
+                }
+                return result.get(value);
+            };
+            for (int doc : docs) {
+                String old = doc < previous.length ? field.apply(previous[doc]) : null;
+                if (old != null) {
+                    writable.apply(old).clear(doc);
+                }
+                String value = field.apply(next[doc]);
+                if (value != null) {
+                    writable.apply(value).set(doc);
+                }
+            }
+            copied.stream().filter(value -> result.get(value).isEmpty()).forEach(result::remove);
+            return result;
+        }
+
+        private static Double toDouble(Integer value) {
+            return value != null ? value.doubleValue() : null;
+        }
+    }
+
+    /**
+     * Inverted index of one text field: the sorted term dictionary and, per term, its documents.
+     */
+    private static final class TextField {
+
+        private final String[] terms;
+        private final Map<String, int[]> postings;
+
+        private TextField(String[] terms, Map<String, int[]> postings) {
+            this.terms = terms;
+            this.postings = postings;
+        }
+
+        static final TextField EMPTY = new TextField(new String[0], Map.of());
+
+        /**
+         * This field with the documents {@code docs} (ascending) re-tokenized from {@code next}: only the
+         * postings of tokens they drop or gain are rewritten, and the term dictionary only when a term
+         * appears or disappears.
+         */
+        TextField with(CourseDocument[] previous, CourseDocument[] next, int[] docs,
+                       Function<CourseDocument, String> field) {
+            Set<String> touched = new HashSet<>();
+            Map<String, IntStream.Builder> added = new HashMap<>();
+            for (int doc : docs) {
+                String old = doc < previous.length ? field.apply(previous[doc]) : null;
+                if (old != null) {
+                    touched.addAll(analyze(old));
+                }
+                String text = field.apply(next[doc]);
+                if (text != null) {
+                    for (String token : analyze(text)) {
+                        touched.add(token);
+                        added.computeIfAbsent(token, t -> IntStream.builder()).add(doc);
+                    }
+                }
+            }
+
+            BitSet changed = new BitSet();
+            Arrays.stream(docs).forEach(changed::set);
+            Map<String, int[]> nextPostings = new HashMap<>(postings);
+            boolean dictionaryChanged = false;
+            for (String token : touched) {
+                int[] kept = Arrays.stream(postings.getOrDefault(token, new int[0]))
+                        .filter(doc -> !changed.get(doc))
+                        .toArray();
+                IntStream.Builder gained = added.get(token);
+                int[] merged = gained != null ? merge(kept, gained.build().toArray()) : kept;
+                if (merged.length == 0) {
+                    dictionaryChanged |= nextPostings.remove(token) != null;
+                } else {
+                    dictionaryChanged |= nextPostings.put(token, merged) == null;
+                }
+            }
+            if (!dictionaryChanged) {
+                return new TextField(terms, nextPostings);
+            }
+            String[] nextTerms = nextPostings.keySet().toArray(String[]::new);
+            Arrays.sort(nextTerms);
+            return new TextField(nextTerms, nextPostings);
+        }
+
+        // Both ascending and disjoint
+        private static int[] merge(int[] a, int[] b) {
+            int[] merged = new int[a.length + b.length];
+            int i = 0;
+            int j = 0;
+            for (int k = 0; k < merged.length; k++) {
+                merged[k] = j >= b.length || (i < a.length && a[i] < b[j]) ? a[i++] : b[j++];
+            }
+            return merged;
+        }
+
+        /**
+         * Adds the documents containing the token, or a term within its fuzzy edit distance, to {@code matches}.
+         */
+        void match(String token, BitSet matches) {
+            int maxEdits = token.length() < 3 ? 0 : token.length() < 6 ? 1 : 2;
+            if (maxEdits == 0) {
+                set(postings.get(token), matches);
+                return;
+            }
+
+            // Candidates share the fixed prefix; the closest ones win when there are too many
+            String prefix = token.substring(0, Math.min(CourseQueryBuilder.FUZZY_PREFIX_LENGTH, token.length()));
+            List<Candidate> candidates = new ArrayList<>();
+            int start = Arrays.binarySearch(terms, prefix);
+            for (int i = start >= 0 ? start : -start - 1; i < terms.length && terms[i].startsWith(prefix); i++) {
+                if (Math.abs(terms[i].length() - token.length()) > maxEdits) {
+                    continue;
+                }
+                int distance = distance(token, terms[i], maxEdits);
+                if (distance <= maxEdits) {
+                    candidates.add(new Candidate(terms[i], distance));
+                }
+            }
+            candidates.sort(Comparator.comparingInt(Candidate::distance).thenComparing(Candidate::term));
+            candidates.stream()
+                    .limit(CourseQueryBuilder.FUZZY_MAX_EXPANSIONS)
+                    .forEach(candidate -> set(postings.get(candidate.term()), matches));
+        }
+
+        private static void set(int[] docs, BitSet matches) {
+            if (docs != null) {
+                for (int doc : docs) {
+                    matches.set(doc);
+                }
+            }
+        }
+
+        /**
+         * Optimal string alignment distance (transpositions count as one edit, as in a fuzzy query),
+         * or {@code maxEdits + 1} as soon as the distance is known to exceed it.
+         */
+        static int distance(String a, String b, int maxEdits) {
+            int[] previous2 = new int[b.length() + 1];
+            int[] previous = new int[b.length() + 1];
+            int[] current = new int[b.length() + 1];
+            for (int j = 0; j <= b.length(); j++) {
+                previous[j] = j;
+            }
+            for (int i = 1; i <= a.length(); i++) {
+                current[0] = i;
+                int rowMin = i;
+                for (int j = 1; j <= b.length(); j++) {
+                    int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                    int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                    if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                        value = Math.min(value, previous2[j - 2] + 1);
+                    }
+                    current[j] = value;
+                    rowMin = Math.min(rowMin, value);
+                }
+                if (rowMin > maxEdits) {
+                    return maxEdits + 1;
+                }
+                int[] recycled = previous2;
+                previous2 = previous;
+                previous = current;
+                current = recycled;
+            }
+            return previous[b.length()];
+        }
+
+        private record Candidate(String term, int distance) {
+        }
+    }
+
+    /**
+     * One numeric (or date, as epoch millis) field as sorted primitive arrays.
+     */
+    private static final class NumericField {
+
+        static final NumericField EMPTY = new NumericField(new double[0], new int[0], new double[0], new int[0]);
+
+        // Documents with a value, ordered by value then document: values[i] belongs to docs[i]
+        private final double[] values;
+        private final int[] docs;
+        // Value by document, NaN without one
+        private final double[] byDoc;
+        // Documents without a value, ascending; they sort last in both directions
+        private final int[] missing;
+
+        private NumericField(double[] values, int[] docs, double[] byDoc, int[] missing) {
+            this.values = values;
+            this.docs = docs;
+            this.byDoc = byDoc;
+            this.missing = missing;
+        }
+
+        /**
+         * This field with the values of {@code docs} (ascending) read from {@code next}: their old entries
+         * are dropped, the new ones sorted and merged in.
+         */
+        NumericField with(CourseDocument[] next, int[] changedDocs, Function<CourseDocument, Double> field) {
+            double[] nextByDoc = Arrays.copyOf(byDoc, next.length);
+            BitSet changed = new BitSet(next.length);
+            for (int doc : changedDocs) {
+                Double value = field.apply(next[doc]);
+                nextByDoc[doc] = value != null ? value : Double.NaN;
+                changed.set(doc);
+            }
+
+            // New entries as (value, doc) pairs sorted like the arrays; docs are already ascending
+            int[] present = Arrays.stream(changedDocs).filter(doc -> !Double.isNaN(nextByDoc[doc])).toArray();
+            sort(present, nextByDoc);
+
+            int kept = 0;
+            for (int doc : docs) {
+                kept += changed.get(doc) ? 0 : 1;
+            }
+            double[] nextValues = new double[kept + present.length];
+            int[] nextDocs = new int[nextValues.length];
+            int i = 0;
+            int j = 0;
+            for (int k = 0; k < nextValues.length; k++) {
+                while (i < docs.length && changed.get(docs[i])) {
+                    i++;
+                }
+                boolean fromOld = j >= present.length
+                        || (i < docs.length && compare(values[i], docs[i], nextByDoc[present[j]], present[j]) < 0);
+                nextDocs[k] = fromOld ? docs[i] : present[j];
+                nextValues[k] = fromOld ? values[i++] : nextByDoc[present[j++]];
+            }
+
+            int[] keptMissing = Arrays.stream(missing).filter(doc -> !changed.get(doc)).toArray();
+            int[] nowMissing = Arrays.stream(changedDocs).filter(doc -> Double.isNaN(nextByDoc[doc])).toArray();
+            return new NumericField(nextValues, nextDocs, nextByDoc, TextField.merge(keptMissing, nowMissing));
+        }
+
+        /**
+         * The first {@code limit} documents of {@code hits} in sort order, walking the sorted arrays.
+         */
+        int[] first(BitSet hits, int limit, boolean descending) {
+            int[] top = new int[limit];
+            int found = 0;
+            if (descending) {
+                // Highest value first, documents of equal value still ascending
+                for (int end = docs.length; end > 0 && found < limit; ) {
+                    int start = end - 1;
+                    while (start > 0 && values[start - 1] == values[end - 1]) {
+                        start--;
+                    }
+                    for (int i = start; i < end && found < limit; i++) {
+                        if (hits.get(docs[i])) {
+                            top[found++] = docs[i];
+                        }
+                    }
+                    end = start;
+                }
+            } else {
+                for (int i = 0; i < docs.length && found < limit; i++) {
+                    if (hits.get(docs[i])) {
+                        top[found++] = docs[i];
+                    }
+                }
+            }
+            for (int i = 0; i < missing.length && found < limit; i++) {
+                if (hits.get(missing[i])) {
+                    top[found++] = missing[i];
+                }
+            }
+            return Arrays.copyOf(top, found);
+        }
+
+        /**
+         * The same as {@link #first}, by keeping the best {@code limit} of all hits in a bounded heap.
+         */
+        int[] topK(BitSet hits, int limit, boolean descending) {
+            Comparator<Integer> order = (a, b) -> compare(a, b, descending);
+            PriorityQueue<Integer> worstFirst = new PriorityQueue<>(limit + 1, order.reversed());
+            for (int doc = hits.nextSetBit(0); doc >= 0; doc = hits.nextSetBit(doc + 1)) {
+                if (worstFirst.size() < limit) {
+                    worstFirst.add(doc);
+                } else if (order.compare(doc, worstFirst.peek()) < 0) {
+                    worstFirst.poll();
+                    worstFirst.add(doc);
+                }
+            }
+            int[] top = new int[worstFirst.size()];
+            for (int i = top.length - 1; i >= 0; i--) {
+                top[i] = worstFirst.poll();
+            }
+            return top;
+        }
+
+        // Sort order of two documents: by value (missing last), then by document
+        private int compare(int a, int b, boolean descending) {
+            double x = byDoc[a];
+            double y = byDoc[b];
+            if (Double.isNaN(x) || Double.isNaN(y)) {
+                return Double.isNaN(x) == Double.isNaN(y) ? Integer.compare(a, b) : Double.isNaN(x) ? 1 : -1;
+            }
+            int byValue = descending ? Double.compare(y, x) : Double.compare(x, y);
+            return byValue != 0 ? byValue : Integer.compare(a, b);
+        }
+
+        private static int compare(double x, int a, double y, int b) {
+            int byValue = Double.compare(x, y);
+            return byValue != 0 ? byValue : Integer.compare(a, b);
+        }
+
+        // Sorts documents by (value, document) as primitives, with an insertion sort for short runs
+        private static void sort(int[] docs, double[] byDoc) {
+            if (docs.length < 2) {
+                return;
+            }
+            int[] buffer = new int[docs.length];
+            mergeSort(docs, buffer, 0, docs.length, byDoc);
+        }
+
+        private static void mergeSort(int[] docs, int[] buffer, int from, int to, double[] byDoc) {
+            if (to - from <= 16) {
+                for (int i = from + 1; i < to; i++) {
+                    int doc = docs[i];
+                    int j = i - 1;
+                    while (j >= from && compare(byDoc[docs[j]], docs[j], byDoc[doc], doc) > 0) {
+                        docs[j + 1] = docs[j];
+                        j--;
+                    }
+                    docs[j + 1] = doc;
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            mergeSort(docs, buffer, from, mid, byDoc);
+            mergeSort(docs, buffer, mid, to, byDoc);
+            System.arraycopy(docs, from, buffer, from, to - from);
+            int i = from;
+            int j = mid;
+            for (int k = from; k < to; k++) {
+                docs[k] = j >= to || (i < mid && compare(byDoc[buffer[i]], buffer[i], byDoc[buffer[j]], buffer[j]) <= 0)
+                        ? buffer[i++] : buffer[j++];
+            }
+        }
+
+        /**
+         * Documents with a value in {@code from..to}, both inclusive and either open when null.
+         */
+        BitSet range(Double from, Double to) {
+            BitSet matches = new BitSet();
+            int end = to != null ? firstAbove(to) : values.length;
+            for (int i = from != null ? firstAtLeast(from) : 0; i < end; i++) {
+                matches.set(docs[i]);
+            }
+            return matches;
+        }
+
+        /**
+         * Documents of {@code scope} with a value in {@code from} (inclusive) to {@code to} (exclusive),
+         * the bucket bounds of a range aggregation.
+         */
+        long count(BitSet scope, Double from, Double to) {
+            long count = 0;
+            int end = to != null ? firstAtLeast(to) : values.length;
+            for (int i = from != null ? firstAtLeast(from) : 0; i < end; i++) {
+                if (scope.get(docs[i])) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        private int firstAtLeast(double value) {
+            int low = 0;
+            int high = values.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid] < value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private int firstAbove(double value) {
+            int low = 0;
+            int high = values.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid] <= value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
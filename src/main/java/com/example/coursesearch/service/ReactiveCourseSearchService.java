@@ -0,0 +1,112 @@
+package com.example.coursesearch.service;
+
+import com.example.coursesearch.dto.CourseSearchRequest;
+import com.example.coursesearch.dto.CourseSearchResponse;
+import com.example.coursesearch.model.CourseDocument;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ReactiveElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+
+/**
+ * Non-blocking variant of {@link CourseService#searchCourses(CourseSearchRequest, List)}.
+ *
+ * The search goes out through the reactive client on the shared async HTTP transport, so no request thread
+ * waits for the Elasticsearch round trip. It takes the same decisions as the blocking path: searches the
+ * embedded engine or the local filter mirror can answer run in memory through {@link CourseService}, the
+ * result cache and the coalescer are shared with it, and course.search, course.elasticsearch and the slow
+ * query log record these searches under the /api/async endpoints. Cursor pages still run blocking, on the
+ * bounded elastic scheduler.
+ */
+@Service
+@ConditionalOnProperty(name = "course-search.reactive.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveCourseSearchService {
+
+    private final CourseService courseService;
+    private final ReactiveElasticsearchOperations reactiveElasticsearchOperations;
+    private final SearchResultCache searchResultCache;
+    private final SearchCoalescer searchCoalescer;
+    private final CourseMetrics courseMetrics;
+    private final SlowQueryLog slowQueryLog;
+
+    public Mono<CourseSearchResponse> searchCourses(CourseSearchRequest request, List<String> sourceIncludes) {
+        if (request.getCursor() != null && !request.getCursor().isBlank()) {
+            // Keep the request bound on the worker thread, so metrics and the slow query log see the endpoint
+            RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+            return Mono.fromCallable(() -> {
+                        RequestContextHolder.setRequestAttributes(attributes);
+                        try {
+                            return courseService.searchCourses(request, sourceIncludes);
+                        } finally {
+                            RequestContextHolder.resetRequestAttributes();
+                        }
+                    })
+                    .subscribeOn(Schedulers.boundedElastic());
+        }
+        if (courseService.servesLocally(request)) {
+            // In memory, nothing to wait for
+            return Mono.fromCallable(() -> courseService.searchCourses(request, sourceIncludes));
+        }
+
+        return Mono.defer(() -> {
+            // Subscribed on the request thread; the callbacks below run on the HTTP client's threads
+            String endpoint = CourseMetrics.currentEndpoint();
+            Timer.Sample sample = courseMetrics.start();
+            return searchPage(request, sourceIncludes, endpoint)
+                    .doOnSuccess(response -> courseMetrics.recordSearch(sample, endpoint, request, response))
+                    .doOnError(e -> courseMetrics.recordSearch(sample, endpoint, request, null));
+        });
+    }
+
+    private Mono<CourseSearchResponse> searchPage(CourseSearchRequest request, List<String> sourceIncludes,
+                                                  String endpoint) {
+        SearchRequestKey cacheKey = SearchRequestKey.from(request, sourceIncludes);
+        CourseSearchResponse cached = searchResultCache.get(cacheKey);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        long cacheGeneration = searchResultCache.generation();
+
+        int page = request.getPage() != null ? request.getPage() : 0;
+        int size = request.getSize() != null ? request.getSize() : 10;
+        NativeQuery query = courseService.buildSearchQuery(
+                request, PageRequest.of(page, size, CourseQueryBuilder.sort(request)), sourceIncludes);
+
+        return searchCoalescer.executeAsync(cacheKey, cacheGeneration, () -> {
+            long start = System.nanoTime();
+            Mono<CourseSearchResponse> search = reactiveElasticsearchOperations.searchForHits(query, CourseDocument.class)
+                    .flatMap(hits -> hits.getSearchHits()
+                            .map(SearchHit::getContent)
+                            .collectList()
+                            .map(courses -> {
+                                CourseSearchResponse response =
+                                        CourseService.toPageResponse(courses, hits.getTotalHits(), page, size);
+                                if (request.isIncludeFacets()) {
+                                    response.setFacets(CourseFacets.parse(hits.getAggregations()));
+                                }
+                                return response;
+                            }));
+            return courseMetrics.timeElasticsearch("search", endpoint, search)
+                    .doOnNext(response -> {
+                        slowQueryLog.record("search", endpoint, System.nanoTime() - start,
+                                List.of(request), List.of(query));
+                        log.debug("Found {} courses out of {} total (reactive)",
+                                response.getCourses().size(), response.getTotalElements());
+                        searchResultCache.put(cacheKey, cacheGeneration, response);
+                    });
+        });
+    }
+}
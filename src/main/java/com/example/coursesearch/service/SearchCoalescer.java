@@ -0,0 +1,131 @@
+package com.example.coursesearch.service;
+
+import com.example.coursesearch.dto.CourseSearchResponse;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight for cache misses: while a search for a {@link SearchRequestKey} is running against
+ * Elasticsearch, identical searches wait for it and share its response (or its exception) instead of
+ * sending their own query.
+ *
+ * A search only joins one that started in the same cache generation, so a request arriving after a write
+ * never receives hits read before that write. Blocking and non-blocking searches share the in-flight map,
+ * so either kind can join the other.
+ */
+@Component
+public class SearchCoalescer implements MeterBinder {
+
+    private final boolean enabled;
+    private final Map<SearchRequestKey, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public SearchCoalescer(@Value("${course-search.coalesce.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public CourseSearchResponse execute(SearchRequestKey key, long generation, Supplier<CourseSearchResponse> search) {
+        if (!enabled) {
+            return search.get();
+        }
+
+        InFlight own = new InFlight(generation, new CompletableFuture<>());
+        InFlight leader = inFlight.putIfAbsent(key, own);
+        if (leader != null) {
+            if (leader.generation() == generation) {
+                coalesced.increment();
+                return await(leader.response());
+            }
+            // The running search predates a write: do not share it, and do not replace it either
+            executed.increment();
+            return search.get();
+        }
+
+        executed.increment();
+        try {
+            CourseSearchResponse response = search.get();
+            own.response().complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            own.response().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    /**
+     * Non-blocking {@link #execute}: the search is subscribed once for all callers, and a caller that cancels
+     * (a client going away) only stops waiting, it does not cancel the search the others share.
+     */
+    public Mono<CourseSearchResponse> executeAsync(SearchRequestKey key, long generation,
+                                                   Supplier<Mono<CourseSearchResponse>> search) {
+        if (!enabled) {
+            return Mono.defer(search);
+        }
+
+        InFlight own = new InFlight(generation, new CompletableFuture<>());
+        InFlight leader = inFlight.putIfAbsent(key, own);
+        if (leader != null) {
+            if (leader.generation() == generation) {
+                coalesced.increment();
+                return Mono.fromFuture(leader.response(), true);
+            }
+            executed.increment();
+            return Mono.defer(search);
+        }
+
+        executed.increment();
+        Mono.defer(search).toFuture().whenComplete((response, e) -> {
+            inFlight.remove(key, own);
+            if (e != null) {
+                own.response().completeExceptionally(e);
+            } else {
+                own.response().complete(response);
+            }
+        });
+        return Mono.fromFuture(own.response(), true);
+    }
+
+    private static CourseSearchResponse await(CompletableFuture<CourseSearchResponse> response) {
+        try {
+            return response.join();
+        } catch (CompletionException e) {
+            // Followers see the leader's exception as if they had run the search themselves
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("course.search.coalesce.executed", executed, LongAdder::sum)
+                .description("Cache-missing searches sent to Elasticsearch")
+                .register(registry);
+        FunctionCounter.builder("course.search.coalesce.coalesced", coalesced, LongAdder::sum)
+                .description("Searches answered by an identical search already in flight")
+                .register(registry);
+        Gauge.builder("course.search.coalesce.in-flight", inFlight, Map::size)
+                .description("Distinct searches currently running against Elasticsearch")
+                .register(registry);
+    }
+
+    private record InFlight(long generation, CompletableFuture<CourseSearchResponse> response) {
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.coursesearch.service;
+
+import com.example.coursesearch.dto.CourseSearchRequest;
+import com.example.coursesearch.exception.InvalidSearchRequestException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Opaque pagination cursor: the point-in-time id plus the sort values of the last hit returned, and the
+ * signature of the search (query, filters, sort) it was created for. search_after values only make sense
+ * for that sort, so a cursor sent with a different search is rejected.
+ * Encoded as URL-safe base64 JSON so clients can pass it back unchanged as a query parameter.
+ */
+record SearchCursor(String pointInTimeId, List<Object> searchAfter, String search) {
+
+    /** Cursor value a client sends to start cursor pagination. */
+    static final String START = "*";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    String encode() {
+        try {
+            byte[] json = MAPPER.writeValueAsBytes(Map.of("pit", pointInTimeId, "after", searchAfter, "search", search));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not encode search cursor", e);
+        }
+    }
+
+    /**
+     * Decodes a cursor and checks that it belongs to {@code request}.
+     */
+    static SearchCursor decode(String cursor, CourseSearchRequest request) {
+        SearchCursor decoded;
+        try {
+            Map<String, Object> values = MAPPER.readValue(Base64.getUrlDecoder().decode(cursor), MAP_TYPE);
+            if (!(values.get("pit") instanceof String pit) || !(values.get("after") instanceof List<?> after)
+                    || !(values.get("search") instanceof String search)) {
+                throw new InvalidSearchRequestException("Invalid cursor");
+            }
+            // Sort values may contain nulls for documents missing the sort field
+            decoded = new SearchCursor(pit, new ArrayList<>(after), search);
+        } catch (IllegalArgumentException | IOException e) {
+            throw new InvalidSearchRequestException("Invalid cursor", e);
+        }
+        if (!decoded.search().equals(signature(request))) {
+            throw new InvalidSearchRequestException(
+                    "The cursor belongs to a search with a different query, filters or sort; restart with cursor=*");
+        }
+        return decoded;
+    }
+
+    // Everything that shapes the hit order; page, size and the response shape may change between pages
+    static String signature(CourseSearchRequest request) {
+        SearchRequestKey key = SearchRequestKey.from(request);
+        String identity = Arrays.asList(key.query(), key.category(), key.type(), key.gradeRange(), key.minAge(),
+                key.maxAge(), key.minPrice(), key.maxPrice(), key.nextSessionDate(), key.sortBy(), key.sortDirection())
+                .toString();
+        CRC32 crc = new CRC32();
+        crc.update(identity.getBytes(StandardCharsets.UTF_8));
+        return Long.toHexString(crc.getValue());
+    }
+}
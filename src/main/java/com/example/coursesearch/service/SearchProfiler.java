@@ -0,0 +1,102 @@
+package com.example.coursesearch.service;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.json.JsonData;
+import co.elastic.clients.json.JsonpUtils;
+import com.example.coursesearch.dto.CourseSearchRequest;
+import com.example.coursesearch.exception.InvalidSearchRequestException;
+import com.example.coursesearch.model.CourseDocument;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs a search with the Elasticsearch profile API switched on and returns the per-shard breakdown of
+ * the query clauses, collectors and aggregations as Elasticsearch reports it.
+ *
+ * The query is the one CourseService would send for the request (same text mode, filter context, facets,
+ * sort and page), but it goes straight through the client, bypassing the result cache and single-flight.
+ * Profiling adds overhead to the search itself, so it is a debugging aid and off unless enabled.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SearchProfiler {
+
+    private final CourseService courseService;
+    private final ElasticsearchClient elasticsearchClient;
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final ObjectMapper objectMapper;
+
+    @Value("${course-search.search.profile.enabled:false}")
+    private boolean enabled;
+
+    public Map<String, Object> profile(CourseSearchRequest request, List<String> sourceIncludes) {
+        if (!enabled) {
+            throw new InvalidSearchRequestException("Search profiling is disabled (course-search.search.profile.enabled)");
+        }
+        int page = request.getPage() != null ? request.getPage() : 0;
+        int size = request.getSize() != null ? request.getSize() : 10;
+        Pageable pageable = PageRequest.of(page, size, CourseQueryBuilder.sort(request));
+        NativeQuery query = courseService.buildSearchQuery(request, pageable, sourceIncludes);
+        String index = elasticsearchOperations.getIndexCoordinatesFor(CourseDocument.class).getIndexName();
+
+        SearchResponse<JsonData> response;
+        try {
+            response = elasticsearchClient.search(s -> {
+                s.index(index)
+                        .query(query.getQuery())
+                        .from((int) pageable.getOffset())
+                        .size(pageable.getPageSize())
+                        .aggregations(query.getAggregations())
+                        .source(src -> src.fetch(false))
+                        .profile(true);
+                if (query.getFilter() != null) {
+                    s.postFilter(query.getFilter());
+                }
+                for (Sort.Order order : pageable.getSort()) {
+                    s.sort(so -> so.field(f -> f
+                            .field(order.getProperty())
+                            .order(order.isAscending() ? SortOrder.Asc : SortOrder.Desc)));
+                }
+                return s;
+            }, JsonData.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Profiled search failed", e);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("tookMs", response.took());
+        result.put("totalHits", response.hits().total() != null ? response.hits().total().value() : null);
+        result.put("query", toMap(JsonpUtils.toString(query.getQuery(), new StringBuilder()).toString()));
+        result.put("shards", response.profile() != null
+                ? toMap(JsonpUtils.toString(response.profile(), new StringBuilder()).toString()).get("shards")
+                : List.of());
+        return result;
+    }
+
+    private Map<String, Object> toMap(String json) {
+        try {
+            return objectMapper.readValue(json, new TypeReference<>() {
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read profile output", e);
+        }
+    }
+}
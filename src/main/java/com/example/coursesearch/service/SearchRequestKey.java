@@ -0,0 +1,78 @@
+package com.example.coursesearch.service;
+
+import com.example.coursesearch.dto.CourseSearchRequest;
+
+import java.util.List;
+
+/**
+ * Normalized identity of a search request.
+ * Only the fields that influence the Elasticsearch query, sort and page are part of the key,
+ * so two requests that differ in whitespace, blank filters or ignored legacy fields share it.
+ * The requested _source fields are part of it because they change the cached documents.
+ */
+public record SearchRequestKey(
+        String query,
+        String category,
+        String type,
+        String gradeRange,
+        Integer minAge,
+        Integer maxAge,
+        Double minPrice,
+        Double maxPrice,
+        String nextSessionDate,
+        int page,
+        int size,
+        String sortBy,
+        String sortDirection,
+        List<String> sourceIncludes,
+        boolean facets) {
+
+    public static SearchRequestKey from(CourseSearchRequest request) {
+        return from(request, null);
+    }
+
+    public static SearchRequestKey from(CourseSearchRequest request, List<String> sourceIncludes) {
+        String sortBy = normalize(request.getSortBy());
+        String sortDirection;
+        if (sortBy == null) {
+            // Same as createSort's default: soonest upcoming session first
+            sortBy = "nextSessionDate";
+            sortDirection = "asc";
+        } else if ("priceAsc".equals(sortBy) || "priceDesc".equals(sortBy)) {
+            // Direction is implied by the sort mode and ignored by createSort
+            sortDirection = null;
+        } else {
+            sortDirection = "desc".equalsIgnoreCase(request.getSortDirection()) ? "desc" : "asc";
+        }
+
+        return new SearchRequestKey(
+                normalizeQuery(request.getQuery()),
+                normalize(request.getCategory()),
+                normalize(request.getType()),
+                normalize(request.getGradeRange()),
+                request.getMinAge(),
+                request.getMaxAge(),
+                request.getMinPrice(),
+                request.getMaxPrice(),
+                normalize(request.getNextSessionDate()),
+                request.getPage() != null ? request.getPage() : 0,
+                request.getSize() != null ? request.getSize() : 10,
+                sortBy,
+                sortDirection,
+                sourceIncludes != null ? List.copyOf(sourceIncludes) : null,
+                request.isIncludeFacets());
+    }
+
+    private static String normalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private static String normalizeQuery(String query) {
+        String trimmed = normalize(query);
+        return trimmed == null ? null : trimmed.replaceAll("\\s+", " ");
+    }
+}
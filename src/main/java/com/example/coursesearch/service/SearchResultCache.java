@@ -0,0 +1,152 @@
+package com.example.coursesearch.service;
+
+import com.example.coursesearch.dto.CourseSearchResponse;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded TTL + LRU cache of search results keyed on {@link SearchRequestKey}.
+ *
+ * Every batch of writes on the {@link CourseChangeFeed} calls {@link #invalidateAll()}, which also bumps
+ * a generation counter. A search records the generation before it queries Elasticsearch and {@link #put} drops
+ * the result if a write happened in between, so a slow search can never re-populate the cache with
+ * hits that predate the write.
+ */
+@Component
+@Slf4j
+public class SearchResultCache implements MeterBinder, CourseChangeListener {
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+
+    private final Map<SearchRequestKey, Entry> entries;
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @Autowired
+    public SearchResultCache(
+            @Value("${course-search.cache.enabled:true}") boolean enabled,
+            @Value("${course-search.cache.max-entries:1000}") int maxEntries,
+            @Value("${course-search.cache.ttl:30s}") Duration ttl) {
+        this(enabled, maxEntries, ttl, System::nanoTime);
+    }
+
+    SearchResultCache(boolean enabled, int maxEntries, Duration ttl, LongSupplier clock) {
+        this.enabled = enabled && maxEntries > 0 && !ttl.isZero() && !ttl.isNegative();
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.clock = clock;
+        // Access-ordered so the eldest entry is always the least recently used one
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<SearchRequestKey, Entry> eldest) {
+                if (size() > SearchResultCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached response for the key, or null on a miss or an expired entry.
+     */
+    public CourseSearchResponse get(SearchRequestKey key) {
+        if (!enabled) {
+            return null;
+        }
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && clock.getAsLong() - entry.createdAt() < ttlNanos) {
+                hits.increment();
+                return entry.response();
+            }
+            if (entry != null) {
+                entries.remove(key);
+                evictions.increment();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Current write generation; capture it before querying Elasticsearch and pass it to {@link #put}.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    public void put(SearchRequestKey key, long observedGeneration, CourseSearchResponse response) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (entries) {
+            // Checked under the lock so it cannot interleave with invalidateAll()
+            if (observedGeneration != generation.get()) {
+                return;
+            }
+            entries.put(key, new Entry(response, clock.getAsLong()));
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            if (!entries.isEmpty()) {
+                log.debug("Invalidating {} cached search results", entries.size());
+                entries.clear();
+            }
+        }
+    }
+
+    @Override
+    public void onChanges(List<CourseChange> changes) {
+        invalidateAll();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("course.search.cache.hits", hits, LongAdder::sum)
+                .description("Search requests answered from the result cache")
+                .register(registry);
+        FunctionCounter.builder("course.search.cache.misses", misses, LongAdder::sum)
+                .description("Search requests that had to query Elasticsearch")
+                .register(registry);
+        FunctionCounter.builder("course.search.cache.evictions", evictions, LongAdder::sum)
+                .description("Cached search results dropped because of size or TTL")
+                .register(registry);
+        Gauge.builder("course.search.cache.size", this, SearchResultCache::size)
+                .description("Search results currently cached")
+                .register(registry);
+    }
+
+    private record Entry(CourseSearchResponse response, long createdAt) {
+    }
+}
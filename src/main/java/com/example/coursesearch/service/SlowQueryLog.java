@@ -0,0 +1,101 @@
+package com.example.coursesearch.service;
+
+import co.elastic.clients.json.JsonpSerializable;
+import co.elastic.clients.json.JsonpUtils;
+import com.example.coursesearch.dto.CourseSearchRequest;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Logs searches whose Elasticsearch round trip exceeds a threshold as one JSON line: the operation,
+ * elapsed time, endpoint, normalized request parameters and the generated query (query, post_filter,
+ * aggregation names, sort and paging), so slow clauses can be found and replayed with profile=true.
+ */
+@Component
+@Slf4j
+public class SlowQueryLog {
+
+    private final ObjectMapper objectMapper;
+    private final long thresholdNanos;
+
+    public SlowQueryLog(
+            ObjectMapper objectMapper,
+            @Value("${course-search.search.slow-query-threshold:500ms}") Duration threshold) {
+        this.objectMapper = objectMapper.copy().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        this.thresholdNanos = threshold.toNanos();
+    }
+
+    public boolean isSlow(long elapsedNanos) {
+        return thresholdNanos > 0 && elapsedNanos >= thresholdNanos;
+    }
+
+    /**
+     * @param requests the searches sent together (one, or all searches of an msearch) and their queries
+     */
+    public void record(String operation, long elapsedNanos, List<CourseSearchRequest> requests, List<NativeQuery> queries) {
+        record(operation, CourseMetrics.currentEndpoint(), elapsedNanos, requests, queries);
+    }
+
+    /**
+     * @param endpoint read on the request thread, for searches that complete off it
+     */
+    public void record(String operation, String endpoint, long elapsedNanos, List<CourseSearchRequest> requests,
+                       List<NativeQuery> queries) {
+        if (!isSlow(elapsedNanos) || !log.isWarnEnabled()) {
+            return;
+        }
+        ObjectNode entry = objectMapper.createObjectNode();
+        entry.put("operation", operation);
+        entry.put("tookMs", elapsedNanos / 1_000_000);
+        entry.put("thresholdMs", thresholdNanos / 1_000_000);
+        entry.put("endpoint", endpoint);
+        ArrayNode searches = entry.putArray("searches");
+        for (int i = 0; i < requests.size(); i++) {
+            ObjectNode search = searches.addObject();
+            search.set("params", objectMapper.valueToTree(SearchRequestKey.from(requests.get(i))));
+            search.set("request", toJson(queries.get(i)));
+        }
+        log.warn("Slow search {}", entry);
+    }
+
+    private ObjectNode toJson(NativeQuery query) {
+        ObjectNode json = objectMapper.createObjectNode();
+        json.set("query", parse(query.getQuery()));
+        if (query.getFilter() != null) {
+            json.set("post_filter", parse(query.getFilter()));
+        }
+        if (!query.getAggregations().isEmpty()) {
+            json.putPOJO("aggs", query.getAggregations().keySet());
+        }
+        if (query.getPageable().isPaged()) {
+            json.put("from", query.getPageable().getOffset());
+            json.put("size", query.getPageable().getPageSize());
+        }
+        ArrayNode sort = json.putArray("sort");
+        for (Sort.Order order : query.getPageable().getSort()) {
+            sort.addObject().put(order.getProperty(), order.getDirection().name().toLowerCase());
+        }
+        return json;
+    }
+
+    private JsonNode parse(JsonpSerializable value) {
+        String json = JsonpUtils.toString(value, new StringBuilder()).toString();
+        try {
+            return objectMapper.readTree(json);
+        } catch (JsonProcessingException e) {
+            return objectMapper.getNodeFactory().textNode(json);
+        }
+    }
+}
@@ -0,0 +1,382 @@
+package com.example.coursesearch.service;
+
+import com.example.coursesearch.model.CourseDocument;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.core.query.SeqNoPrimaryTerm;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * In-process prefix index over course titles for autocomplete.
+ *
+ * Every word start of every lower-cased title is one entry, encoded as (document ordinal, offset) in a
+ * sorted {@code long[]}; no suffix strings are materialized. A lookup is a binary search for the first
+ * entry whose suffix is not smaller than the prefix followed by a scan while the prefix still matches.
+ * Readers work on an immutable {@link Snapshot} published through a volatile field. Writers derive the next
+ * snapshot under the lock: only courses whose title or category changed are touched, their old entries are
+ * dropped and their new ones sorted and merged into the existing array, so a write costs a linear merge
+ * rather than a full re-sort; ordinals of replaced courses are reclaimed by a full build once they outnumber
+ * the live ones. Entries are sorted as primitives with a merge sort. A full {@link #rebuild} reads the
+ * catalog outside the lock and replays the writes that arrived meanwhile, so saves are never blocked behind
+ * an Elasticsearch scan. Writes arrive through the {@link CourseChangeFeed}.
+ *
+ * The index is always maintained, because it doubles as the degraded-mode snapshot autocomplete falls
+ * back to when Elasticsearch is failing. {@link #servesAutocomplete()} only decides whether it is also
+ * the primary source.
+ */
+@Component
+@Slf4j
+public class SuggestionIndex implements CourseChangeListener {
+
+    private final boolean primary;
+
+    // Source of truth for snapshots and each course's ordinal in the current snapshot, guarded by this
+    private final Map<String, Course> coursesById = new HashMap<>();
+    private final Map<String, Integer> ordinals = new HashMap<>();
+
+    // Writes that arrived while a rebuild was reading the catalog, guarded by this
+    private List<CourseDocument> writesDuringRebuild;
+    private boolean clearedDuringRebuild;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private volatile boolean warm;
+
+    public SuggestionIndex(@Value("${course-search.autocomplete.local-index.enabled:true}") boolean primary) {
+        this.primary = primary;
+    }
+
+    /**
+     * Whether autocomplete should be answered from this index whenever it is warm.
+     */
+    public boolean servesAutocomplete() {
+        return primary;
+    }
+
+    /**
+     * True once the index has been loaded from the full catalog and can answer on its own.
+     */
+    public boolean isWarm() {
+        return warm;
+    }
+
+    public int size() {
+        return snapshot.live;
+    }
+
+    public List<String> suggest(String prefix, String category, int limit) {
+        Snapshot current = snapshot;
+        String needle = prefix.trim().toLowerCase(Locale.ROOT);
+        String categoryFilter = category == null || category.isBlank() ? null : category.trim();
+
+        Set<String> suggestions = new LinkedHashSet<>();
+        for (int i = current.lowerBound(needle); i < current.entries.length && suggestions.size() < limit; i++) {
+            long entry = current.entries[i];
+            int doc = (int) (entry >>> 32);
+            int offset = (int) entry;
+            if (!current.lowerTitles[doc].startsWith(needle, offset)) {
+                break;
+            }
+            if (categoryFilter == null || categoryFilter.equals(current.categories[doc])) {
+                suggestions.add(current.titles[doc]);
+            }
+        }
+        return new ArrayList<>(suggestions);
+    }
+
+    /**
+     * Replaces the whole index with the given catalog and marks it warm.
+     */
+    public void rebuild(Stream<CourseDocument> courses) {
+        synchronized (this) {
+            if (writesDuringRebuild != null) {
+                log.debug("Suggestion index rebuild already running, skipping");
+                return;
+            }
+            writesDuringRebuild = new ArrayList<>();
+            clearedDuringRebuild = false;
+        }
+
+        Map<String, Course> loaded = new HashMap<>();
+        try {
+            courses.forEach(course -> put(loaded, course));
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                writesDuringRebuild = null;
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            coursesById.clear();
+            if (!clearedDuringRebuild) {
+                coursesById.putAll(loaded);
+            }
+            writesDuringRebuild.forEach(course -> put(coursesById, course));
+            writesDuringRebuild = null;
+            publishAll();
+            warm = true;
+        }
+        log.info("Suggestion index built with {} titles", snapshot.live);
+    }
+
+    public synchronized void upsert(Collection<CourseDocument> courses) {
+        if (courses.isEmpty()) {
+            return;
+        }
+        Set<String> changed = new HashSet<>();
+        for (CourseDocument course : courses) {
+            if (put(coursesById, course)) {
+                changed.add(course.getId());
+            }
+        }
+        if (writesDuringRebuild != null) {
+            writesDuringRebuild.addAll(courses);
+        }
+        if (!changed.isEmpty()) {
+            publish(changed);
+        }
+    }
+
+    public synchronized void clear() {
+        coursesById.clear();
+        ordinals.clear();
+        if (writesDuringRebuild != null) {
+            writesDuringRebuild.clear();
+            clearedDuringRebuild = true;
+        }
+        snapshot = Snapshot.EMPTY;
+    }
+
+    @Override
+    public void onChanges(List<CourseChange> changes) {
+        CourseChangeListener.apply(changes, this::clear, this::upsert);
+    }
+
+    /**
+     * Applies one course; a course older than the one held (by seq_no) is a late publish and is dropped.
+     *
+     * @return whether the indexed title or category changed
+     */
+    private static boolean put(Map<String, Course> target, CourseDocument course) {
+        if (course.getId() == null) {
+            return false;
+        }
+        Course held = target.get(course.getId());
+        if (held != null && CourseChange.isOlder(course.getSeqNoPrimaryTerm(), held.written())) {
+            return false;
+        }
+        if (course.getTitle() == null || course.getTitle().isBlank()) {
+            return target.remove(course.getId()) != null;
+        }
+        Course updated = new Course(course.getTitle().trim(), course.getCategory(), course.getSeqNoPrimaryTerm());
+        target.put(course.getId(), updated);
+        return held == null || !held.title().equals(updated.title()) || !Objects.equals(held.category(), updated.category());
+    }
+
+    // Guarded by this
+    private void publishAll() {
+        ordinals.clear();
+        List<Course> courses = new ArrayList<>(coursesById.size());
+        coursesById.forEach((id, course) -> {
+            ordinals.put(id, courses.size());
+            courses.add(course);
+        });
+        snapshot = Snapshot.EMPTY.with(new BitSet(), courses);
+    }
+
+    // Guarded by this: replaces the entries of the changed courses and keeps everything else as sorted
+    private void publish(Set<String> changedIds) {
+        Snapshot current = snapshot;
+        BitSet removed = new BitSet();
+        List<Course> added = new ArrayList<>();
+        for (String id : changedIds) {
+            Integer ordinal = ordinals.remove(id);
+            if (ordinal != null) {
+                removed.set(ordinal);
+            }
+            Course course = coursesById.get(id);
+            if (course != null) {
+                ordinals.put(id, current.titles.length + added.size());
+                added.add(course);
+            }
+        }
+        int dead = current.titles.length - current.live + removed.cardinality();
+        if (dead > coursesById.size()) {
+            publishAll();
+        } else {
+            snapshot = current.with(removed, added);
+        }
+    }
+
+    private record Course(String title, String category, SeqNoPrimaryTerm written) {
+    }
+
+    private static final class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(new String[0], new String[0], new String[0], new long[0], 0);
+
+        // Indexed by ordinal; null for ordinals of courses that were replaced or removed
+        final String[] titles;
+        final String[] lowerTitles;
+        final String[] categories;
+        final long[] entries;
+        final int live;
+
+        private Snapshot(String[] titles, String[] lowerTitles, String[] categories, long[] entries, int live) {
+            this.titles = titles;
+            this.lowerTitles = lowerTitles;
+            this.categories = categories;
+            this.entries = entries;
+            this.live = live;
+        }
+
+        /**
+         * A snapshot without the entries of the {@code removed} ordinals and with {@code added} appended as new
+         * ordinals. Only the new entries are sorted; they are merged with the (still sorted) kept ones.
+         */
+        Snapshot with(BitSet removed, List<Course> added) {
+            int base = titles.length;
+            String[] nextTitles = Arrays.copyOf(titles, base + added.size());
+            String[] nextLowerTitles = Arrays.copyOf(lowerTitles, base + added.size());
+            String[] nextCategories = Arrays.copyOf(categories, base + added.size());
+            for (int doc = removed.nextSetBit(0); doc >= 0; doc = removed.nextSetBit(doc + 1)) {
+                nextTitles[doc] = null;
+                nextLowerTitles[doc] = null;
+                nextCategories[doc] = null;
+            }
+
+            int addedCount = 0;
+            for (int i = 0; i < added.size(); i++) {
+                Course course = added.get(i);
+                nextTitles[base + i] = course.title();
+                nextLowerTitles[base + i] = course.title().toLowerCase(Locale.ROOT);
+                nextCategories[base + i] = course.category();
+                addedCount += wordStarts(nextLowerTitles[base + i], base + i, null, 0);
+            }
+            long[] addedEntries = new long[addedCount];
+            int filled = 0;
+            for (int i = 0; i < added.size(); i++) {
+                filled += wordStarts(nextLowerTitles[base + i], base + i, addedEntries, filled);
+            }
+            sort(addedEntries, nextLowerTitles);
+
+            long[] kept = entries;
+            if (!removed.isEmpty()) {
+                kept = new long[entries.length];
+                int keptCount = 0;
+                for (long entry : entries) {
+                    if (!removed.get((int) (entry >>> 32))) {
+                        kept[keptCount++] = entry;
+                    }
+                }
+                kept = Arrays.copyOf(kept, keptCount);
+            }
+
+            long[] merged = new long[kept.length + addedEntries.length];
+            merge(kept, 0, kept.length, addedEntries, 0, addedEntries.length, merged, 0, nextLowerTitles);
+            return new Snapshot(nextTitles, nextLowerTitles, nextCategories, merged, live - removed.cardinality() + added.size());
+        }
+
+        // Writes the word starts of one title as (doc, offset) entries from position from, or only counts them
+        private static int wordStarts(String lower, int doc, long[] target, int from) {
+            int count = 0;
+            for (int offset = 0; offset < lower.length(); offset++) {
+                boolean wordStart = offset == 0 || Character.isWhitespace(lower.charAt(offset - 1));
+                if (wordStart && !Character.isWhitespace(lower.charAt(offset))) {
+                    if (target != null) {
+                        target[from + count] = ((long) doc << 32) | offset;
+                    }
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        // Merge sort of packed entries by their suffix, with one scratch array
+        private static void sort(long[] entries, String[] lowerTitles) {
+            mergeSort(entries.clone(), entries, 0, entries.length, lowerTitles);
+        }
+
+        // Sorts [from, to) into dst; src and dst hold the same values in that range on entry
+        private static void mergeSort(long[] src, long[] dst, int from, int to, String[] lowerTitles) {
+            if (to - from < 2) {
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            mergeSort(dst, src, from, mid, lowerTitles);
+            mergeSort(dst, src, mid, to, lowerTitles);
+            merge(src, from, mid, src, mid, to, dst, from, lowerTitles);
+        }
+
+        private static void merge(long[] left, int leftFrom, int leftTo, long[] right, int rightFrom, int rightTo,
+                                  long[] target, int targetFrom, String[] lowerTitles) {
+            int i = leftFrom;
+            int j = rightFrom;
+            int k = targetFrom;
+            while (i < leftTo && j < rightTo) {
+                target[k++] = compareSuffixes(lowerTitles, left[i], right[j]) <= 0 ? left[i++] : right[j++];
+            }
+            while (i < leftTo) {
+                target[k++] = left[i++];
+            }
+            while (j < rightTo) {
+                target[k++] = right[j++];
+            }
+        }
+
+        int lowerBound(String needle) {
+            int low = 0;
+            int high = entries.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                long entry = entries[mid];
+                if (compareRegion(lowerTitles[(int) (entry >>> 32)], (int) entry, needle) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private static int compareSuffixes(String[] lowerTitles, long a, long b) {
+            String left = lowerTitles[(int) (a >>> 32)];
+            String right = lowerTitles[(int) (b >>> 32)];
+            int leftOffset = (int) a;
+            int rightOffset = (int) b;
+            int length = Math.min(left.length() - leftOffset, right.length() - rightOffset);
+            for (int i = 0; i < length; i++) {
+                int diff = left.charAt(leftOffset + i) - right.charAt(rightOffset + i);
+                if (diff != 0) {
+                    return diff;
+                }
+            }
+            return (left.length() - leftOffset) - (right.length() - rightOffset);
+        }
+
+        private static int compareRegion(String text, int offset, String needle) {
+            int length = Math.min(text.length() - offset, needle.length());
+            for (int i = 0; i < length; i++) {
+                int diff = text.charAt(offset + i) - needle.charAt(i);
+                if (diff != 0) {
+                    return diff;
+                }
+            }
+            return (text.length() - offset) - needle.length();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.coursesearch.component;
+
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch._types.ErrorResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.elasticsearch.UncategorizedElasticsearchException;
+import org.springframework.data.elasticsearch.annotations.Document.VersionType;
+import org.springframework.data.elasticsearch.core.reindex.ReindexRequest;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CourseIndexMigratorTest {
+
+    private static final Map<String, Object> EXPECTED = Map.of("properties", Map.of(
+            "title", Map.of("type", "text"),
+            "nextSessionDate", Map.of("type", "date", "format", "date_optional_time||epoch_millis"),
+            "titleSuggest", Map.of("type", "completion", "contexts", List.of(
+                    Map.of("name", "category", "type", "category", "path", "category")))));
+
+    @Test
+    void testDriftedFields_WithKeywordDateAndMissingContexts_ShouldReportBoth() {
+        // Given - the mapping created before nextSessionDate became a date
+        Map<String, Object> actual = Map.of("properties", Map.of(
+                "title", Map.of("type", "text"),
+                "nextSessionDate", Map.of("type", "keyword"),
+                "titleSuggest", Map.of("type", "completion")));
+
+        // Then
+        assertThat(CourseIndexMigrator.driftedFields(EXPECTED, actual))
+                .containsExactlyInAnyOrder("nextSessionDate", "titleSuggest");
+    }
+
+    @Test
+    void testDriftedFields_WithCurrentMapping_ShouldReportNothing() {
+        // Given - as returned by Elasticsearch, which upper-cases context types
+        Map<String, Object> actual = Map.of("properties", Map.of(
+                "title", Map.of("type", "text"),
+                "nextSessionDate", Map.of("type", "date", "format", "date_optional_time||epoch_millis"),
+                "titleSuggest", Map.of("type", "completion", "contexts", List.of(
+                        Map.of("name", "category", "type", "CATEGORY", "path", "category")))));
+
+        // Then
+        assertThat(CourseIndexMigrator.driftedFields(EXPECTED, actual)).isEmpty();
+    }
+
+    @Test
+    void testAlreadyExists_ShouldFindTheElasticsearchErrorBehindTheTranslatedException() {
+        // Given - as thrown by IndexOperations.create when another instance created the index first
+        ElasticsearchException exists = new ElasticsearchException("es/indices.create", ErrorResponse.of(r -> r
+                .status(400)
+                .error(e -> e.type("resource_already_exists_exception").reason("index [courses_v2] already exists"))));
+        ElasticsearchException other = new ElasticsearchException("es/indices.create", ErrorResponse.of(r -> r
+                .status(400)
+                .error(e -> e.type("illegal_argument_exception").reason("bad mapping"))));
+
+        // Then
+        assertThat(CourseIndexMigrator.alreadyExists(
+                new UncategorizedElasticsearchException(exists.getMessage(), 400, null, exists))).isTrue();
+        assertThat(CourseIndexMigrator.alreadyExists(
+                new UncategorizedElasticsearchException(other.getMessage(), 400, null, other))).isFalse();
+    }
+
+    @Test
+    void testReindexRequest_ShouldOnlyOverwriteDocumentsChangedInTheSource() {
+        // When
+        ReindexRequest request = CourseIndexMigrator.reindexRequest("courses", "courses_v2");
+
+        // Then - a second pass skips documents already copied at their current version
+        assertThat(request.getDest().getIndex().getIndexName()).isEqualTo("courses_v2");
+        assertThat(request.getDest().getVersionType()).isEqualTo(VersionType.EXTERNAL);
+        assertThat(request.getConflicts()).isEqualTo(ReindexRequest.Conflicts.PROCEED);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.coursesearch.integration;
+
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * The same scenarios with the embedded search engine; needs no Elasticsearch (or Docker) at all.
+ */
+@ActiveProfiles("embedded")
+public class EmbeddedCourseSearchIntegrationTest extends AbstractCourseSearchIntegrationTest {
+}
@@ -0,0 +1,100 @@
+package com.example.coursesearch.service;
+
+import com.example.coursesearch.dto.BulkIngestResponse;
+import com.example.coursesearch.model.CourseDocument;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BulkIngestServiceTest {
+
+    @Mock
+    private CourseService courseService;
+
+    private BulkIngestService bulkIngestService;
+
+    @BeforeEach
+    void setUp() {
+        bulkIngestService = new BulkIngestService(courseService, new ObjectMapper(), 2, DataSize.ofMegabytes(1), 2);
+        when(courseService.indexBatch(anyInt(), anyList())).thenAnswer(invocation -> {
+            List<CourseDocument> batch = invocation.getArgument(1);
+            BulkIngestResponse.BatchResult result = new BulkIngestResponse.BatchResult();
+            result.setBatch(invocation.getArgument(0));
+            result.setDocuments(batch.size());
+            result.setIndexed(batch.size());
+            return result;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        bulkIngestService.shutdown();
+    }
+
+    @Test
+    void testIngest_WithNdjson_ShouldIndexInBoundedBatches() {
+        // Given
+        String ndjson = IntStream.rangeClosed(1, 5)
+                .mapToObj(i -> "{\"id\":\"" + i + "\",\"title\":\"Course " + i + "\",\"price\":10.0}")
+                .collect(Collectors.joining("\n"));
+
+        // When
+        BulkIngestResponse response = bulkIngestService.ingest(stream(ndjson));
+
+        // Then
+        assertThat(response.getError()).isNull();
+        assertThat(response.getDocuments()).isEqualTo(5);
+        assertThat(response.getIndexed()).isEqualTo(5);
+        assertThat(response.getBatches()).extracting(BulkIngestResponse.BatchResult::getDocuments)
+                .containsExactly(2, 2, 1);
+        verify(courseService, times(3)).indexBatch(anyInt(), anyList());
+        verify(courseService).refreshIndex();
+        verify(courseService).rebuildLocalIndexes();
+    }
+
+    @Test
+    void testIngest_WithJsonArray_ShouldBeAcceptedToo() {
+        // When
+        BulkIngestResponse response = bulkIngestService.ingest(
+                stream("[{\"id\":\"1\",\"title\":\"A\"},{\"id\":\"2\",\"title\":\"B\"}]"));
+
+        // Then
+        assertThat(response.getError()).isNull();
+        assertThat(response.getIndexed()).isEqualTo(2);
+    }
+
+    @Test
+    void testIngest_WithMalformedLine_ShouldReportErrorAndKeepParsedDocuments() {
+        // When
+        BulkIngestResponse response = bulkIngestService.ingest(
+                stream("{\"id\":\"1\",\"title\":\"A\"}\n{\"id\":\"2\",\"title\":\n"));
+
+        // Then
+        assertThat(response.getError()).isNotNull();
+        assertThat(response.getDocuments()).isEqualTo(1);
+        assertThat(response.getIndexed()).isEqualTo(1);
+    }
+
+    private ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
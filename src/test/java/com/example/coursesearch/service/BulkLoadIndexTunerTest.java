@@ -0,0 +1,124 @@
+package com.example.coursesearch.service;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch.indices.ElasticsearchIndicesClient;
+import co.elastic.clients.elasticsearch.indices.GetIndicesSettingsRequest;
+import co.elastic.clients.elasticsearch.indices.GetIndicesSettingsResponse;
+import co.elastic.clients.elasticsearch.indices.IndexState;
+import co.elastic.clients.elasticsearch.indices.PutIndicesSettingsRequest;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import co.elastic.clients.util.ObjectBuilder;
+import com.example.coursesearch.model.CourseDocument;
+import jakarta.json.stream.JsonGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.Query;
+
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BulkLoadIndexTunerTest {
+
+    @Mock
+    private ElasticsearchClient elasticsearchClient;
+
+    @Mock
+    private ElasticsearchIndicesClient indicesClient;
+
+    @Mock
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRunRelaxed_ShouldRelaxAndThenRestoreOnlyWhatWasSet() throws Exception {
+        // Given - replicas set on the index, refresh_interval left at its default
+        when(elasticsearchClient.indices()).thenReturn(indicesClient);
+        when(elasticsearchOperations.getIndexCoordinatesFor(CourseDocument.class)).thenReturn(IndexCoordinates.of("courses"));
+        when(indicesClient.getSettings(any(Function.class))).thenReturn(GetIndicesSettingsResponse.of(r -> r
+                .result(Map.of("courses", IndexState.of(s -> s.settings(i -> i.index(x -> x.numberOfReplicas("2"))))))));
+        BulkLoadIndexTuner tuner = new BulkLoadIndexTuner(elasticsearchClient, elasticsearchOperations);
+
+        // When - the load fails
+        assertThatThrownBy(() -> tuner.runRelaxed(() -> {
+            throw new IllegalStateException("bulk failed");
+        })).hasMessage("bulk failed");
+
+        // Then
+        ArgumentCaptor<Function<PutIndicesSettingsRequest.Builder, ObjectBuilder<PutIndicesSettingsRequest>>> puts =
+                ArgumentCaptor.forClass(Function.class);
+        verify(indicesClient, times(2)).putSettings(puts.capture());
+        List<String> settings = puts.getAllValues().stream().map(BulkLoadIndexTunerTest::settingsJson).toList();
+        assertThat(settings).containsExactly(
+                "{\"index.refresh_interval\":\"-1\",\"index.number_of_replicas\":\"0\"}",
+                "{\"index.refresh_interval\":null,\"index.number_of_replicas\":\"2\"}");
+
+        ArgumentCaptor<Function<GetIndicesSettingsRequest.Builder, ObjectBuilder<GetIndicesSettingsRequest>>> get =
+                ArgumentCaptor.forClass(Function.class);
+        verify(indicesClient).getSettings(get.capture());
+        assertThat(get.getValue().apply(new GetIndicesSettingsRequest.Builder()).build().includeDefaults()).isNull();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRunRelaxed_ShouldNotRestoreAnotherLoadsSettings() throws Exception {
+        // Given - a concurrent load has relaxed the index already
+        when(elasticsearchClient.indices()).thenReturn(indicesClient);
+        when(elasticsearchOperations.getIndexCoordinatesFor(CourseDocument.class)).thenReturn(IndexCoordinates.of("courses"));
+        when(indicesClient.getSettings(any(Function.class))).thenReturn(GetIndicesSettingsResponse.of(r -> r
+                .result(Map.of("courses", IndexState.of(s -> s.settings(i -> i.index(x -> x
+                        .refreshInterval(t -> t.time("-1"))
+                        .numberOfReplicas("0"))))))));
+        BulkLoadIndexTuner tuner = new BulkLoadIndexTuner(elasticsearchClient, elasticsearchOperations);
+
+        // When
+        assertThat(tuner.runRelaxed(() -> "loaded")).isEqualTo("loaded");
+
+        // Then - both settings go back to their defaults
+        ArgumentCaptor<Function<PutIndicesSettingsRequest.Builder, ObjectBuilder<PutIndicesSettingsRequest>>> puts =
+                ArgumentCaptor.forClass(Function.class);
+        verify(indicesClient, times(2)).putSettings(puts.capture());
+        assertThat(settingsJson(puts.getAllValues().get(1)))
+                .isEqualTo("{\"index.refresh_interval\":null,\"index.number_of_replicas\":null}");
+    }
+
+    @Test
+    void testRunRelaxed_ShouldLeaveAnIndexWithCoursesAlone() {
+        // Given
+        when(elasticsearchOperations.getIndexCoordinatesFor(CourseDocument.class)).thenReturn(IndexCoordinates.of("courses"));
+        when(elasticsearchOperations.count(any(Query.class), eq(CourseDocument.class))).thenReturn(120L);
+        BulkLoadIndexTuner tuner = new BulkLoadIndexTuner(elasticsearchClient, elasticsearchOperations);
+
+        // When
+        assertThat(tuner.runRelaxed(() -> "loaded")).isEqualTo("loaded");
+
+        // Then
+        verifyNoInteractions(elasticsearchClient);
+    }
+
+    private static String settingsJson(Function<PutIndicesSettingsRequest.Builder, ObjectBuilder<PutIndicesSettingsRequest>> put) {
+        PutIndicesSettingsRequest request = put.apply(new PutIndicesSettingsRequest.Builder()).build();
+        JacksonJsonpMapper mapper = new JacksonJsonpMapper();
+        StringWriter json = new StringWriter();
+        try (JsonGenerator generator = mapper.jsonProvider().createGenerator(json)) {
+            request.settings().serialize(generator, mapper);
+        }
+        return json.toString();
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.coursesearch.service;
+
+import com.example.coursesearch.model.CourseDocument;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogSnapshotFileTest {
+
+    private static final Instant NOW = Instant.parse("2025-06-01T12:00:00Z");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testWriteAndRead_ShouldRestoreEveryFieldIncludingNulls() {
+        // Given
+        CatalogSnapshotFile snapshot = snapshotAt(NOW);
+        CourseDocument full = course("1", "Robotics Engineering Club", 180.0);
+        full.setTags(List.of("robots", "stem"));
+        full.setRating(4.5f);
+        full.setIsActive(true);
+        CourseDocument sparse = new CourseDocument();
+        sparse.setId("2");
+        sparse.setTitle("Kunst für Anfänger");
+
+        // When
+        snapshot.write(List.of(full, sparse));
+        List<CourseDocument> restored = snapshot.read();
+
+        // Then
+        assertThat(restored).containsExactly(full, sparse);
+    }
+
+    @Test
+    void testWrite_FromTwoInstancesAtOnce_ShouldLeaveOneCompleteFile() throws Exception {
+        // Given - two instances sharing the snapshot path
+        CatalogSnapshotFile first = snapshotAt(NOW);
+        CatalogSnapshotFile second = snapshotAt(NOW);
+        List<CourseDocument> small = List.of(course("1", "Beginner Math Adventures", 75.0));
+        List<CourseDocument> large = IntStream.range(0, 500)
+                .mapToObj(i -> course(String.valueOf(i), "Course " + i, i))
+                .collect(Collectors.toList());
+
+        // When
+        Thread writer = new Thread(() -> IntStream.range(0, 50).forEach(i -> first.write(large)));
+        writer.start();
+        IntStream.range(0, 50).forEach(i -> second.write(small));
+        writer.join();
+
+        // Then
+        assertThat(first.read()).satisfiesAnyOf(
+                restored -> assertThat(restored).isEqualTo(small),
+                restored -> assertThat(restored).isEqualTo(large));
+        try (Stream<Path> files = Files.list(dir)) {
+            assertThat(files).containsExactly(dir.resolve("catalog.snap"));
+        }
+    }
+
+    @Test
+    void testRead_WithOldFile_ShouldIgnoreIt() {
+        // Given
+        snapshotAt(NOW).write(List.of(course("1", "Beginner Math Adventures", 75.0)));
+
+        // When
+        List<CourseDocument> restored = snapshotAt(NOW.plus(Duration.ofHours(25))).read();
+
+        // Then
+        assertThat(restored).isEmpty();
+    }
+
+    @Test
+    void testReadIgnoringAge_WithOldFile_ShouldRestoreIt() {
+        // Given - the embedded engine's catalog, written long ago
+        snapshotAt(NOW).write(List.of(course("1", "Beginner Math Adventures", 75.0)));
+
+        // When
+        List<CourseDocument> restored = snapshotAt(NOW.plus(Duration.ofDays(30))).readIgnoringAge();
+
+        // Then
+        assertThat(restored).extracting(CourseDocument::getId).containsExactly("1");
+    }
+
+    @Test
+    void testRead_WithTruncatedFile_ShouldIgnoreIt() throws Exception {
+        // Given
+        CatalogSnapshotFile snapshot = snapshotAt(NOW);
+        snapshot.write(List.of(course("1", "Beginner Math Adventures", 75.0), course("2", "Chess Club", 40.0)));
+        Path file = dir.resolve("catalog.snap");
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 10));
+
+        // When
+        List<CourseDocument> restored = snapshot.read();
+
+        // Then
+        assertThat(restored).isEmpty();
+    }
+
+    @Test
+    void testRead_WhenDisabled_ShouldNotTouchTheFile() {
+        // Given
+        snapshotAt(NOW).write(List.of(course("1", "Beginner Math Adventures", 75.0)));
+        CatalogSnapshotFile disabled = new CatalogSnapshotFile(false, dir.resolve("catalog.snap"), Duration.ofHours(24),
+                Clock.fixed(NOW, ZoneOffset.UTC));
+
+        // When / Then
+        assertThat(disabled.read()).isEmpty();
+    }
+
+    private CatalogSnapshotFile snapshotAt(Instant now) {
+        return new CatalogSnapshotFile(true, dir.resolve("catalog.snap"), Duration.ofHours(24), Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    private static CourseDocument course(String id, String title, double price) {
+        CourseDocument course = new CourseDocument();
+        course.setId(id);
+        course.setTitle(title);
+        course.setDescription("Test description for " + title);
+        course.setCategory("Technology");
+        course.setType("CLUB");
+        course.setGradeRange("6th-12th");
+        course.setMinAge(11);
+        course.setMaxAge(17);
+        course.setPrice(price);
+        course.setNextSessionDate("2025-06-15T10:00:00Z");
+        return course;
+    }
+}
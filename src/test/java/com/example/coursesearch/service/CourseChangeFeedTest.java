@@ -0,0 +1,143 @@
+package com.example.coursesearch.service;
+
+import com.example.coursesearch.model.CourseDocument;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CourseChangeFeedTest {
+
+    @Test
+    void testUpserted_ShouldBeAppliedBeforeReturning() {
+        // Given
+        SuggestionIndex suggestionIndex = new SuggestionIndex(true);
+        CourseChangeFeed feed = new CourseChangeFeed(4, 2, List.of(suggestionIndex));
+
+        // When
+        long version = feed.upserted(List.of(course("1", "Young Artists Club")));
+
+        // Then
+        assertThat(version).isEqualTo(1);
+        assertThat(feed.appliedVersion()).isEqualTo(1);
+        assertThat(suggestionIndex.suggest("you", null, 10)).containsExactly("Young Artists Club");
+    }
+
+    @Test
+    void testConcurrentWriters_ShouldApplyEveryChangeOnceInVersionOrder() throws Exception {
+        // Given - a buffer much smaller than the number of writes, so writers wait on a full buffer
+        List<Long> versions = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        CourseChangeFeed feed = new CourseChangeFeed(8, 4, List.of(changes -> {
+            batchSizes.add(changes.size());
+            changes.forEach(change -> versions.add(change.version()));
+        }));
+        int writers = 8;
+        int writesPerWriter = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // When
+        List<Future<?>> futures = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < writesPerWriter; i++) {
+                    feed.upserted(List.of());
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Then
+        assertThat(versions).containsExactlyElementsOf(
+                LongStream.rangeClosed(1, writers * writesPerWriter).boxed().toList());
+        assertThat(batchSizes).allMatch(size -> size <= 4);
+        assertThat(feed.appliedVersion()).isEqualTo(writers * writesPerWriter);
+    }
+
+    @Test
+    void testDrainingWriter_ShouldStopAfterItsOwnChangeWhileOthersPark() throws Exception {
+        // Given - the first batch blocks until a second writer has published behind it
+        CountDownLatch firstBatchStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+        List<String> applyingThreads = Collections.synchronizedList(new ArrayList<>());
+        CourseChangeFeed feed = new CourseChangeFeed(8, 1, List.of(changes -> {
+            applyingThreads.add(Thread.currentThread().getName());
+            if (changes.get(0).version() == 1) {
+                firstBatchStarted.countDown();
+                await(releaseFirstBatch);
+            }
+        }));
+        Thread first = new Thread(() -> feed.upserted(List.of()), "first-writer");
+        Thread second = new Thread(() -> feed.upserted(List.of()), "second-writer");
+
+        // When
+        first.start();
+        assertThat(firstBatchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        second.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (second.getState() != Thread.State.TIMED_WAITING && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        Thread.State waitingState = second.getState();
+        releaseFirstBatch.countDown();
+        first.join(5000);
+        second.join(5000);
+
+        // Then - the second writer parked, and each writer applied only its own change
+        assertThat(waitingState).isEqualTo(Thread.State.TIMED_WAITING);
+        assertThat(applyingThreads).containsExactly("first-writer", "second-writer");
+        assertThat(feed.appliedVersion()).isEqualTo(2);
+    }
+
+    @Test
+    void testFailingListener_ShouldNotStopTheOthers() {
+        // Given
+        SuggestionIndex suggestionIndex = new SuggestionIndex(true);
+        CourseChangeListener failing = changes -> {
+            throw new IllegalStateException("broken consumer");
+        };
+        CourseChangeFeed feed = new CourseChangeFeed(4, 2, List.of(failing, suggestionIndex));
+
+        // When
+        feed.upserted(List.of(course("1", "Young Artists Club")));
+        feed.deletedAll();
+        feed.upserted(List.of(course("2", "Mathematics Fun")));
+
+        // Then
+        assertThat(feed.appliedVersion()).isEqualTo(3);
+        assertThat(suggestionIndex.suggest("you", null, 10)).isEmpty();
+        assertThat(suggestionIndex.suggest("mat", null, 10)).containsExactly("Mathematics Fun");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static CourseDocument course(String id, String title) {
+        CourseDocument course = new CourseDocument();
+        course.setId(id);
+        course.setTitle(title);
+        course.setCategory("Art");
+        return course;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.coursesearch.service;
+
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
+import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import com.example.coursesearch.dto.CourseSearchRequest;
+import com.example.coursesearch.service.CourseQueryBuilder.TextMode;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CourseFacetsTest {
+
+    @Test
+    void testAggregations_ShouldCountEachFacetWithoutItsOwnFilter() {
+        // Given
+        CourseSearchRequest request = new CourseSearchRequest();
+        request.setCategory("Math");
+        request.setType("CLUB");
+        request.setMinPrice(20.0);
+
+        // When
+        Map<String, Aggregation> aggregations = CourseFacets.aggregations(CourseQueryBuilder.facetFilters(request));
+
+        // Then
+        assertThat(aggregations).containsOnlyKeys("category", "type", "gradeRange", "age", "price");
+        assertThat(filterFields(aggregations.get("category"))).containsExactly("type", "price");
+        assertThat(filterFields(aggregations.get("type"))).containsExactly("category", "price");
+        assertThat(filterFields(aggregations.get("price"))).containsExactly("category", "type");
+        assertThat(filterFields(aggregations.get("gradeRange"))).containsExactly("category", "type", "price");
+        assertThat(aggregations.get("category").aggregations().get("buckets").terms().field()).isEqualTo("category");
+        assertThat(aggregations.get("price").aggregations().get("buckets").range().ranges()).hasSize(5);
+    }
+
+    @Test
+    void testAggregations_WithoutFilters_ShouldCountAllMatches() {
+        // When
+        Map<String, Aggregation> aggregations = CourseFacets.aggregations(
+                CourseQueryBuilder.facetFilters(new CourseSearchRequest()));
+
+        // Then
+        assertThat(aggregations.get("category").filter().isMatchAll()).isTrue();
+        assertThat(CourseFacets.postFilter(CourseQueryBuilder.facetFilters(new CourseSearchRequest()))).isNull();
+    }
+
+    @Test
+    void testFacetedQuery_ShouldMoveFacetFiltersToPostFilter() {
+        // Given
+        CourseSearchRequest request = new CourseSearchRequest();
+        request.setQuery("math");
+        request.setCategory("Math");
+        request.setMinAge(8);
+        request.setNextSessionDate("2025-06-15");
+
+        // When
+        BoolQuery query = CourseQueryBuilder.build(request, TextMode.MULTI_MATCH, true, false).bool();
+        BoolQuery postFilter = CourseFacets.postFilter(CourseQueryBuilder.facetFilters(request)).bool();
+
+        // Then: the date is not a facet and keeps narrowing the facet counts
+        assertThat(query.must()).hasSize(1);
+        assertThat(query.filter()).extracting(Query::_kind).containsExactly(Query.Kind.Range);
+        assertThat(query.filter().get(0).range().field()).isEqualTo("nextSessionDate");
+        assertThat(postFilter.filter()).extracting(Query::_kind).containsExactly(Query.Kind.Term, Query.Kind.Range);
+    }
+
+    private static List<String> filterFields(Aggregation aggregation) {
+        return aggregation.filter().bool().filter().stream()
+                .map(query -> query.isTerm() ? query.term().field() : query.range().field())
+                .toList();
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.coursesearch.service;
+
+import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.MultiMatchQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import com.example.coursesearch.dto.CourseSearchRequest;
+import com.example.coursesearch.exception.InvalidSearchRequestException;
+import com.example.coursesearch.service.CourseQueryBuilder.TextMode;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CourseQueryBuilderTest {
+
+    @Test
+    void testBuild_WithTextAndFilters_ShouldOnlyScoreTheTextMatch() {
+        // Given
+        CourseSearchRequest request = new CourseSearchRequest();
+        request.setQuery("math");
+        request.setCategory("Math");
+        request.setMinAge(8);
+        request.setMaxPrice(100.0);
+
+        // When
+        BoolQuery bool = CourseQueryBuilder.build(request, TextMode.MULTI_MATCH, true).bool();
+
+        // Then
+        assertThat(bool.must()).hasSize(1);
+        MultiMatchQuery text = bool.must().get(0).multiMatch();
+        assertThat(text.query()).isEqualTo("math");
+        assertThat(text.fields()).containsExactly("title^3", "description");
+        assertThat(text.fuzziness()).isEqualTo("AUTO");
+        assertThat(text.prefixLength()).isEqualTo(1);
+        assertThat(bool.filter()).extracting(Query::_kind)
+                .containsExactly(Query.Kind.Term, Query.Kind.Range, Query.Kind.Range);
+        assertThat(bool.filter().get(0).term().value().stringValue()).isEqualTo("Math");
+    }
+
+    @Test
+    void testBuild_WithFilterContextDisabled_ShouldScoreAllClauses() {
+        // Given
+        CourseSearchRequest request = new CourseSearchRequest();
+        request.setQuery("math");
+        request.setCategory("Math");
+
+        // When
+        BoolQuery bool = CourseQueryBuilder.build(request, TextMode.MULTI_MATCH, false).bool();
+
+        // Then
+        assertThat(bool.must()).hasSize(2);
+        assertThat(bool.filter()).isEmpty();
+    }
+
+    @Test
+    void testBuild_WithContainsMode_ShouldKeepWildcardAndFuzzyClauses() {
+        // Given
+        CourseSearchRequest request = new CourseSearchRequest();
+        request.setQuery("math");
+
+        // When
+        BoolQuery text = CourseQueryBuilder.build(request, TextMode.CONTAINS, true).bool().must().get(0).bool();
+
+        // Then
+        assertThat(text.should()).extracting(Query::_kind)
+                .containsExactly(Query.Kind.QueryString, Query.Kind.QueryString, Query.Kind.Fuzzy);
+        assertThat(text.should().get(0).queryString().query()).isEqualTo("*math*");
+    }
+
+    @Test
+    void testBuild_WithIsoDates_ShouldFilterOnDateRange() {
+        // Given
+        CourseSearchRequest dateOnly = new CourseSearchRequest();
+        dateOnly.setNextSessionDate("2025-06-15");
+        CourseSearchRequest dateTime = new CourseSearchRequest();
+        dateTime.setNextSessionDate(" 2025-06-15T10:00:00+02:00 ");
+
+        // Then
+        assertThat(CourseQueryBuilder.build(dateOnly, TextMode.MULTI_MATCH, true).bool().filter().get(0).range().gte()
+                .to(String.class)).isEqualTo("2025-06-15");
+        assertThat(CourseQueryBuilder.build(dateTime, TextMode.MULTI_MATCH, true).bool().filter().get(0).range().gte()
+                .to(String.class)).isEqualTo("2025-06-15T10:00:00+02:00");
+    }
+
+    @Test
+    void testBuild_WithInvalidDate_ShouldRejectRequest() {
+        // Given
+        CourseSearchRequest request = new CourseSearchRequest();
+        request.setNextSessionDate("next tuesday");
+
+        // Then
+        assertThatThrownBy(() -> CourseQueryBuilder.build(request, TextMode.MULTI_MATCH, true))
+                .isInstanceOf(InvalidSearchRequestException.class)
+                .hasMessageContaining("next tuesday");
+    }
+
+    @Test
+    void testBuild_WithoutCriteria_ShouldMatchAll() {
+        assertThat(CourseQueryBuilder.build(new CourseSearchRequest(), TextMode.MULTI_MATCH, true).isMatchAll())
+                .isTrue();
+    }
+}
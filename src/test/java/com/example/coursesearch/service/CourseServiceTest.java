@@ -1,26 +1,45 @@
 package com.example.coursesearch.service;
 
+import co.elastic.clients.elasticsearch.core.search.CompletionSuggester;
 import com.example.coursesearch.dto.CourseSearchRequest;
 import com.example.coursesearch.dto.CourseSearchResponse;
+import com.example.coursesearch.exception.ExpiredCursorException;
+import com.example.coursesearch.exception.InvalidSearchRequestException;
 import com.example.coursesearch.model.CourseDocument;
 import com.example.coursesearch.repository.CourseRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.elasticsearch.ResourceNotFoundException;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
 import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
 import org.springframework.data.elasticsearch.core.SearchHit;
 import org.springframework.data.elasticsearch.core.SearchHits;
-import org.springframework.data.elasticsearch.core.query.CriteriaQuery;
+import org.springframework.data.elasticsearch.core.query.Query;
+import org.springframework.data.elasticsearch.core.suggest.response.CompletionSuggestion;
+import org.springframework.data.elasticsearch.core.suggest.response.Suggest;
+import org.springframework.data.elasticsearch.support.ScoreDoc;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,11 +54,13 @@ class CourseServiceTest {
     @Mock
     private SearchHits<CourseDocument> searchHits;
 
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     private CourseService courseService;
 
     @BeforeEach
     void setUp() {
-        courseService = new CourseService(courseRepository, elasticsearchOperations);
+        courseService = courseService(new SuggestionIndex(true), new EmbeddedCourseIndex(false, false));
     }
 
     @Test
@@ -63,7 +84,7 @@ class CourseServiceTest {
 
         when(searchHits.getTotalHits()).thenReturn(2L);
         when(searchHits.getSearchHits()).thenReturn(Arrays.asList(hit1, hit2));
-        when(elasticsearchOperations.search(any(CriteriaQuery.class), eq(CourseDocument.class)))
+        when(elasticsearchOperations.search(any(NativeQuery.class), eq(CourseDocument.class)))
                 .thenReturn(searchHits);
 
         // When
@@ -78,6 +99,10 @@ class CourseServiceTest {
         assertThat(response.getTotalPages()).isEqualTo(1);
         assertThat(response.isHasNext()).isFalse();
         assertThat(response.isHasPrevious()).isFalse();
+        assertThat(meterRegistry.get("course.search")
+                .tags("endpoint", "none", "sort", "upcoming", "query", "true", "results", "1-10", "outcome", "success")
+                .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("course.elasticsearch").tags("operation", "search").timer().count()).isEqualTo(1);
     }
 
     @Test
@@ -95,7 +120,7 @@ class CourseServiceTest {
 
         when(searchHits.getTotalHits()).thenReturn(12L); // 12 total courses
         when(searchHits.getSearchHits()).thenReturn(Arrays.asList(hit));
-        when(elasticsearchOperations.search(any(CriteriaQuery.class), eq(CourseDocument.class)))
+        when(elasticsearchOperations.search(any(NativeQuery.class), eq(CourseDocument.class)))
                 .thenReturn(searchHits);
 
         // When
@@ -111,7 +136,7 @@ class CourseServiceTest {
     }
 
     @Test
-    void testAutocompleteSuggestions_WithValidQuery_ShouldReturnMatchingTitles() {
+    void testAutocompleteSuggestions_WhenElasticsearchFails_ShouldServeFromSnapshot() {
         // Given
         String query = "art";
         List<CourseDocument> allCourses = Arrays.asList(
@@ -121,14 +146,17 @@ class CourseServiceTest {
             createTestCourse("4", "Martial Arts Training", "Sports", 120.0)
         );
 
-        // Mock Elasticsearch search to fail/throw exception so it falls back to repository
-        when(elasticsearchOperations.search(any(CriteriaQuery.class), eq(CourseDocument.class)))
+        // Snapshot loaded, but not used as the primary autocomplete source
+        SuggestionIndex snapshot = new SuggestionIndex(false);
+        snapshot.rebuild(allCourses.stream());
+        CourseService service = courseService(snapshot, new EmbeddedCourseIndex(false, false));
+
+        // Mock Elasticsearch search to fail/throw exception so it falls back to the snapshot
+        when(elasticsearchOperations.search(any(Query.class), eq(CourseDocument.class)))
             .thenThrow(new RuntimeException("Elasticsearch not available"));
-        
-        when(courseRepository.findAll()).thenReturn(allCourses);
 
         // When
-        List<String> suggestions = courseService.getAutocompleteSuggestions(query);
+        List<String> suggestions = service.getAutocompleteSuggestions(query);
 
         // Then
         assertThat(suggestions).hasSize(3);
@@ -138,6 +166,132 @@ class CourseServiceTest {
             "Martial Arts Training"
         );
         assertThat(suggestions).doesNotContain("Mathematics Fun");
+        verify(courseRepository, never()).findAll();
+    }
+
+    @Test
+    void testAutocompleteSuggestions_WhenCircuitOpen_ShouldStopCallingElasticsearch() {
+        // Given - two failing requests (completion + title search each) trip the breaker
+        when(elasticsearchOperations.search(any(Query.class), eq(CourseDocument.class)))
+            .thenThrow(new RuntimeException("Elasticsearch not available"));
+        courseService.getAutocompleteSuggestions("art");
+        courseService.getAutocompleteSuggestions("art");
+
+        // When
+        List<String> suggestions = courseService.getAutocompleteSuggestions("art");
+
+        // Then
+        assertThat(suggestions).isEmpty();
+        verify(elasticsearchOperations, times(4)).search(any(Query.class), eq(CourseDocument.class));
+    }
+
+    @Test
+    void testAutocompleteSuggestions_WithCategory_ShouldUseCompletionSuggesterContext() {
+        // Given
+        CompletionSuggestion.Entry.Option<CourseDocument> option1 = completionOption("Math Adventures");
+        CompletionSuggestion.Entry.Option<CourseDocument> option2 = completionOption("Math Adventures");
+        CompletionSuggestion.Entry.Option<CourseDocument> option3 = completionOption("Mathematics Fun");
+        CompletionSuggestion<CourseDocument> completion = new CompletionSuggestion<>("title-suggest", 1,
+                List.of(new CompletionSuggestion.Entry<>("mat", 0, 3, List.of(option1, option2, option3))));
+
+        when(searchHits.getSuggest()).thenReturn(new Suggest(List.of(completion), false));
+        when(elasticsearchOperations.search(any(NativeQuery.class), eq(CourseDocument.class)))
+                .thenReturn(searchHits);
+
+        // When
+        List<String> suggestions = courseService.getAutocompleteSuggestions("mat", "Math");
+
+        // Then
+        assertThat(suggestions).containsExactly("Math Adventures", "Mathematics Fun");
+
+        ArgumentCaptor<NativeQuery> queryCaptor = ArgumentCaptor.forClass(NativeQuery.class);
+        verify(elasticsearchOperations).search(queryCaptor.capture(), eq(CourseDocument.class));
+        CompletionSuggester suggester = queryCaptor.getValue().getSuggester()
+                .suggesters().get("title-suggest").completion();
+        assertThat(suggester.field()).isEqualTo("titleSuggest");
+        assertThat(suggester.contexts().get("category").get(0).context().category()).isEqualTo("Math");
+    }
+
+    @Test
+    void testSaveAllCourses_ShouldDeriveCompletionInputsFromTitle() {
+        // Given
+        CourseDocument course = createTestCourse("1", "Young Artists Club", "Art", 85.0);
+        when(courseRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        courseService.saveAllCourses(List.of(course));
+
+        // Then
+        assertThat(course.getTitleSuggest().getInput())
+                .containsExactly("Young Artists Club", "Artists Club", "Club");
+    }
+
+    @Test
+    void testAutocompleteSuggestions_WithWarmLocalIndex_ShouldNotQueryElasticsearch() {
+        // Given
+        when(courseRepository.findAllBy()).thenReturn(Stream.of(
+            createTestCourse("1", "Young Artists Club", "Art", 85.0),
+            createTestCourse("2", "Mathematics Fun", "Math", 75.0)
+        ));
+        courseService.rebuildLocalIndexes();
+        when(courseRepository.save(any(CourseDocument.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        courseService.saveCourse(createTestCourse("3", "Martial Arts Training", "Sports", 120.0));
+
+        // When
+        List<String> suggestions = courseService.getAutocompleteSuggestions("ar");
+        List<String> sportsOnly = courseService.getAutocompleteSuggestions("ar", "Sports");
+
+        // Then
+        assertThat(suggestions).containsExactly("Young Artists Club", "Martial Arts Training");
+        assertThat(sportsOnly).containsExactly("Martial Arts Training");
+        verify(elasticsearchOperations, never()).search(any(Query.class), eq(CourseDocument.class));
+    }
+
+    @Test
+    void testRebuildLocalIndexes_WhileAnotherReloadRuns_ShouldReadTheCatalogAgain() {
+        // Given - a bulk upload asks for a reload while the scheduled one is reading the catalog
+        when(courseRepository.findAllBy())
+                .thenAnswer(invocation -> {
+                    courseService.rebuildLocalIndexes();
+                    return Stream.of(createTestCourse("1", "Young Artists Club", "Art", 85.0));
+                })
+                .thenAnswer(invocation -> Stream.of(
+                        createTestCourse("1", "Young Artists Club", "Art", 85.0),
+                        createTestCourse("2", "Advanced Art History", "Art", 60.0)));
+
+        // When
+        courseService.rebuildLocalIndexes();
+
+        // Then - the running reload picked up the queued one
+        verify(courseRepository, times(2)).findAllBy();
+        assertThat(courseService.getAutocompleteSuggestions("a"))
+                .containsExactlyInAnyOrder("Young Artists Club", "Advanced Art History");
+    }
+
+    @Test
+    void testSearchCourses_FilterOnlyWithWarmMirror_ShouldNotQueryElasticsearch() {
+        // Given - the filter index mirrors the catalog, loaded by the same scroll as the suggestion index
+        CourseService service = courseService(new SuggestionIndex(true), new EmbeddedCourseIndex(false, true));
+        when(courseRepository.streamAllBy()).thenReturn(Stream.of(
+            createTestCourse("1", "Young Artists Club", "Art", 85.0),
+            createTestCourse("2", "Mathematics Fun", "Math", 75.0)
+        ));
+        service.rebuildLocalIndexes();
+        when(courseRepository.save(any(CourseDocument.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        service.saveCourse(createTestCourse("3", "Digital Art Workshop", "Art", 95.0));
+
+        CourseSearchRequest request = new CourseSearchRequest();
+        request.setCategory("Art");
+        request.setSortBy("priceDesc");
+
+        // When
+        CourseSearchResponse response = service.searchCourses(request);
+
+        // Then
+        assertThat(response.getCourses()).extracting(CourseDocument::getId).containsExactly("3", "1");
+        assertThat(response.getTotalElements()).isEqualTo(2);
+        verify(courseRepository, never()).findAllBy();
+        verify(elasticsearchOperations, never()).search(any(Query.class), eq(CourseDocument.class));
     }
 
     @Test
@@ -168,7 +322,7 @@ class CourseServiceTest {
 
         when(searchHits.getTotalHits()).thenReturn(0L);
         when(searchHits.getSearchHits()).thenReturn(Arrays.asList());
-        when(elasticsearchOperations.search(any(CriteriaQuery.class), eq(CourseDocument.class)))
+        when(elasticsearchOperations.search(any(NativeQuery.class), eq(CourseDocument.class)))
                 .thenReturn(searchHits);
 
         // When
@@ -184,6 +338,206 @@ class CourseServiceTest {
         assertThat(response.isHasPrevious()).isFalse();
     }
 
+    @Test
+    void testSearchCourses_RepeatedRequest_ShouldBeServedFromCacheUntilWrite() {
+        // Given
+        CourseSearchRequest request = new CourseSearchRequest();
+        request.setCategory("Math");
+
+        CourseSearchRequest sameRequestWithWhitespace = new CourseSearchRequest();
+        sameRequestWithWhitespace.setCategory(" Math ");
+        sameRequestWithWhitespace.setQuery("  ");
+
+        when(searchHits.getTotalHits()).thenReturn(0L);
+        when(searchHits.getSearchHits()).thenReturn(Arrays.asList());
+        when(elasticsearchOperations.search(any(NativeQuery.class), eq(CourseDocument.class)))
+                .thenReturn(searchHits);
+        when(courseRepository.save(any(CourseDocument.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        CourseSearchResponse first = courseService.searchCourses(request);
+        CourseSearchResponse second = courseService.searchCourses(sameRequestWithWhitespace);
+        courseService.saveCourse(createTestCourse("9", "New Math Course", "Math", 50.0));
+        courseService.searchCourses(request);
+
+        // Then - one round trip before the write, one after it
+        assertThat(second).isSameAs(first);
+        verify(elasticsearchOperations, times(2)).search(any(NativeQuery.class), eq(CourseDocument.class));
+    }
+
+    @Test
+    void testSearchCourses_WithSourceIncludes_ShouldOnlyFetchThoseFields() {
+        // Given
+        CourseSearchRequest request = new CourseSearchRequest();
+        request.setCategory("Math");
+
+        when(searchHits.getTotalHits()).thenReturn(0L);
+        when(searchHits.getSearchHits()).thenReturn(List.of());
+        when(elasticsearchOperations.search(any(NativeQuery.class), eq(CourseDocument.class)))
+                .thenReturn(searchHits);
+
+        // When
+        courseService.searchCourses(request, List.of("title", "price"));
+        courseService.searchCourses(request);
+
+        // Then - both are sent, the projection is part of the cache key
+        ArgumentCaptor<NativeQuery> queries = ArgumentCaptor.forClass(NativeQuery.class);
+        verify(elasticsearchOperations, times(2)).search(queries.capture(), eq(CourseDocument.class));
+        assertThat(queries.getAllValues().get(0).getSourceFilter().getIncludes()).containsExactly("title", "price");
+        assertThat(queries.getAllValues().get(1).getSourceFilter().getIncludes()).isNull();
+        assertThat(queries.getAllValues().get(1).getSourceFilter().getExcludes()).containsExactly("titleSuggest");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSearchCoursesBatch_ShouldSendCacheMissesInOneMultiSearch() {
+        // Given
+        CourseSearchRequest cachedRequest = new CourseSearchRequest();
+        cachedRequest.setCategory("Math");
+        CourseSearchRequest science = new CourseSearchRequest();
+        science.setCategory("Science");
+        CourseSearchRequest art = new CourseSearchRequest();
+        art.setCategory("Art");
+        art.setSortBy("priceDesc");
+        art.setPage(1);
+        art.setSize(2);
+
+        when(searchHits.getTotalHits()).thenReturn(0L);
+        when(searchHits.getSearchHits()).thenReturn(List.of());
+        when(elasticsearchOperations.search(any(NativeQuery.class), eq(CourseDocument.class)))
+                .thenReturn(searchHits);
+        CourseSearchResponse cached = courseService.searchCourses(cachedRequest);
+
+        SearchHits<CourseDocument> artHits = mock(SearchHits.class);
+        SearchHit<CourseDocument> artHit = mock(SearchHit.class);
+        when(artHit.getContent()).thenReturn(createTestCourse("3", "Painting", "Art", 120.0));
+        when(artHits.getSearchHits()).thenReturn(List.of(artHit));
+        when(artHits.getTotalHits()).thenReturn(3L);
+        when(elasticsearchOperations.multiSearch(any(List.class), eq(CourseDocument.class)))
+                .thenReturn(List.of(searchHits, artHits));
+
+        // When
+        List<CourseSearchResponse> responses = courseService.searchCoursesBatch(
+                List.of(cachedRequest, science, art), null);
+
+        // Then - the cached search is answered locally, the other two keep their own paging and sort
+        ArgumentCaptor<List<NativeQuery>> queries = ArgumentCaptor.forClass(List.class);
+        verify(elasticsearchOperations).multiSearch(queries.capture(), eq(CourseDocument.class));
+        assertThat(queries.getValue()).hasSize(2);
+        assertThat(queries.getValue().get(1).getPageable().getPageNumber()).isEqualTo(1);
+        assertThat(queries.getValue().get(1).getSort().getOrderFor("price").isDescending()).isTrue();
+        assertThat(responses).hasSize(3);
+        assertThat(responses.get(0)).isSameAs(cached);
+        assertThat(responses.get(1).getTotalElements()).isZero();
+        assertThat(responses.get(2).getCurrentPage()).isEqualTo(1);
+        assertThat(responses.get(2).getTotalPages()).isEqualTo(2);
+        assertThat(responses.get(2).getCourses()).extracting(CourseDocument::getId).containsExactly("3");
+    }
+
+    @Test
+    void testSearchCourses_WithCursor_ShouldPageWithPointInTimeAndSearchAfter() {
+        // Given
+        CourseSearchRequest request = new CourseSearchRequest();
+        request.setSortBy("priceAsc");
+        request.setSize(1);
+        request.setCursor("*");
+
+        @SuppressWarnings("unchecked")
+        SearchHit<CourseDocument> hit = mock(SearchHit.class);
+        when(hit.getContent()).thenReturn(createTestCourse("1", "Math Adventures", "Math", 85.0));
+        when(hit.getSortValues()).thenReturn(List.of(85.0, 7L));
+
+        @SuppressWarnings("unchecked")
+        SearchHits<CourseDocument> lastPage = mock(SearchHits.class);
+        when(lastPage.getSearchHits()).thenReturn(List.of());
+
+        when(elasticsearchOperations.openPointInTime(any(), any(Duration.class))).thenReturn("pit-1");
+        when(searchHits.getSearchHits()).thenReturn(List.of(hit));
+        when(searchHits.getPointInTimeId()).thenReturn("pit-2");
+        when(elasticsearchOperations.search(any(NativeQuery.class), eq(CourseDocument.class)))
+                .thenReturn(searchHits, lastPage);
+
+        // When
+        CourseSearchResponse first = courseService.searchCourses(request);
+        request.setCursor(first.getNextCursor());
+        CourseSearchResponse second = courseService.searchCourses(request);
+
+        // Then
+        ArgumentCaptor<NativeQuery> queries = ArgumentCaptor.forClass(NativeQuery.class);
+        verify(elasticsearchOperations, times(2)).search(queries.capture(), eq(CourseDocument.class));
+        assertThat(queries.getAllValues().get(0).getPointInTime().id()).isEqualTo("pit-1");
+        assertThat(queries.getAllValues().get(0).getSearchAfter()).isNull();
+        assertThat(queries.getAllValues().get(1).getPointInTime().id()).isEqualTo("pit-2");
+        assertThat(queries.getAllValues().get(1).getSearchAfter()).containsExactly(85.0, 7);
+
+        assertThat(first.getCourses()).hasSize(1);
+        assertThat(first.isHasNext()).isTrue();
+        assertThat(second.getNextCursor()).isNull();
+        assertThat(second.isHasNext()).isFalse();
+        verify(elasticsearchOperations).closePointInTime("pit-2");
+    }
+
+    @Test
+    void testSearchCourses_WithCursorOfAnotherSortOrExpiredPointInTime_ShouldBeRejected() {
+        // Given - a cursor handed out for a price-sorted search
+        CourseSearchRequest request = new CourseSearchRequest();
+        request.setSortBy("priceAsc");
+        request.setSize(1);
+        request.setCursor("*");
+        @SuppressWarnings("unchecked")
+        SearchHit<CourseDocument> hit = mock(SearchHit.class);
+        when(hit.getContent()).thenReturn(createTestCourse("1", "Math Adventures", "Math", 85.0));
+        when(hit.getSortValues()).thenReturn(List.of(85.0, 7L));
+        when(elasticsearchOperations.openPointInTime(any(), any(Duration.class))).thenReturn("pit-1");
+        when(searchHits.getSearchHits()).thenReturn(List.of(hit));
+        when(elasticsearchOperations.search(any(NativeQuery.class), eq(CourseDocument.class)))
+                .thenReturn(searchHits)
+                .thenThrow(new ResourceNotFoundException("all shards failed"));
+        String cursor = courseService.searchCourses(request).getNextCursor();
+
+        // When - the client switches the sort mid-scroll
+        CourseSearchRequest resorted = new CourseSearchRequest();
+        resorted.setSortBy("nextSessionDate");
+        resorted.setSize(1);
+        resorted.setCursor(cursor);
+
+        // Then
+        assertThatThrownBy(() -> courseService.searchCourses(resorted))
+                .isInstanceOf(InvalidSearchRequestException.class)
+                .hasMessageContaining("cursor=*");
+        request.setCursor(cursor);
+        assertThatThrownBy(() -> courseService.searchCourses(request))
+                .isInstanceOf(ExpiredCursorException.class);
+    }
+
+    @Test
+    void testSearchCourses_WhenFirstCursorPageFails_ShouldClosePointInTime() {
+        // Given
+        CourseSearchRequest request = new CourseSearchRequest();
+        request.setCursor("*");
+        when(elasticsearchOperations.openPointInTime(any(), any(Duration.class))).thenReturn("pit-1");
+        when(elasticsearchOperations.search(any(NativeQuery.class), eq(CourseDocument.class)))
+                .thenThrow(new DataAccessResourceFailureException("Elasticsearch unreachable"));
+
+        // When / Then
+        assertThatThrownBy(() -> courseService.searchCourses(request))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+        verify(elasticsearchOperations).closePointInTime("pit-1");
+    }
+
+    private CompletionSuggestion.Entry.Option<CourseDocument> completionOption(String text) {
+        return new CompletionSuggestion.Entry.Option<>(text, null, 1.0, false, Map.of(),
+                new ScoreDoc(1.0, null, null), null, null);
+    }
+
+    private CourseService courseService(SuggestionIndex suggestionIndex, EmbeddedCourseIndex embeddedIndex) {
+        SearchResultCache cache = new SearchResultCache(true, 100, Duration.ofMinutes(1));
+        return new CourseService(courseRepository, elasticsearchOperations, cache, suggestionIndex,
+                new ElasticsearchCircuitBreaker(2, Duration.ofMinutes(1)), new SearchCoalescer(true),
+                new CourseMetrics(meterRegistry), new SlowQueryLog(new ObjectMapper(), Duration.ZERO),
+                embeddedIndex, new CourseChangeFeed(16, 8, List.of(cache, suggestionIndex, embeddedIndex)));
+    }
+
     private CourseDocument createTestCourse(String id, String title, String category, double price) {
         CourseDocument course = new CourseDocument();
         course.setId(id);
@@ -0,0 +1,184 @@
+package com.example.coursesearch.service;
+
+import com.example.coursesearch.dto.BulkUpdateResponse;
+import com.example.coursesearch.exception.CourseNotFoundException;
+import com.example.coursesearch.exception.InvalidCourseUpdateException;
+import com.example.coursesearch.model.CourseDocument;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.MultiGetItem;
+import org.springframework.data.elasticsearch.core.convert.MappingElasticsearchConverter;
+import org.springframework.data.elasticsearch.core.mapping.SimpleElasticsearchMappingContext;
+import org.springframework.data.elasticsearch.core.query.Query;
+import org.springframework.data.elasticsearch.core.query.SeqNoPrimaryTerm;
+import org.springframework.data.elasticsearch.core.query.UpdateQuery;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CourseUpdateServiceTest {
+
+    @Mock
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Test
+    void testUpdateCourse_OnSeqNoConflict_ShouldMergeAgainAndSendOnlyTheChangedField() {
+        // Given - a price updater wins the race between our read and our write
+        CourseUpdateService service = service(new EmbeddedCourseIndex(false, false));
+        stubConverter();
+        CourseDocument read = course("1", 75.0, "2025-06-15T10:00:00Z", 5);
+        CourseDocument reread = course("1", 80.0, "2025-06-15T10:00:00Z", 6);
+        when(elasticsearchOperations.multiGet(any(Query.class), eq(CourseDocument.class)))
+                .thenReturn(List.of(MultiGetItem.of(read, null)), List.of(MultiGetItem.of(reread, null)));
+        doThrow(new BulkFailureException("conflict", Map.of("1", new BulkFailureException.FailureDetails(409, "version conflict"))))
+                .doNothing()
+                .when(elasticsearchOperations).bulkUpdate(anyList(), eq(CourseDocument.class));
+
+        // When
+        CourseDocument updated = service.updateCourse("1", Map.of("nextSessionDate", "2025-07-01T10:00:00Z"));
+
+        // Then - the session date is ours, the price is the other writer's
+        assertThat(updated.getNextSessionDate()).isEqualTo("2025-07-01T10:00:00Z");
+        assertThat(updated.getPrice()).isEqualTo(80.0);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<UpdateQuery>> queries = ArgumentCaptor.forClass(List.class);
+        verify(elasticsearchOperations, times(2)).bulkUpdate(queries.capture(), eq(CourseDocument.class));
+        UpdateQuery retry = queries.getAllValues().get(1).get(0);
+        assertThat(retry.getIfSeqNo()).isEqualTo(6);
+        assertThat(retry.getIfPrimaryTerm()).isEqualTo(1);
+        assertThat(retry.getDocument()).containsOnlyKeys("nextSessionDate");
+        assertThat(updated.getSeqNoPrimaryTerm()).isEqualTo(new SeqNoPrimaryTerm(7, 1));
+    }
+
+    @Test
+    void testUpdateCourses_ShouldReportFailuresPerCourse() {
+        // Given
+        CourseUpdateService service = service(new EmbeddedCourseIndex(false, false));
+        stubConverter();
+        when(elasticsearchOperations.multiGet(any(Query.class), eq(CourseDocument.class))).thenReturn(List.of(
+                MultiGetItem.of(course("1", 75.0, null, 1), null),
+                MultiGetItem.of(null, null),
+                MultiGetItem.of(course("3", 25.0, null, 1), null)));
+        doNothing().when(elasticsearchOperations).bulkUpdate(anyList(), eq(CourseDocument.class));
+
+        // When
+        BulkUpdateResponse response = service.updateCourses(List.of(
+                Map.of("id", "1", "price", 70.0),
+                Map.of("id", "2", "price", 90.0),
+                Map.of("id", "3", "colour", "blue")));
+
+        // Then
+        assertThat(response.getUpdated()).isEqualTo(1);
+        assertThat(response.getFailed()).isEqualTo(2);
+        assertThat(response.getFailures()).containsOnlyKeys("2", "3");
+        assertThat(response.getFailures().get("3")).contains("colour");
+    }
+
+    @Test
+    void testUpdateCourses_WithSeqNoBeyondInt_ShouldFailOnlyThatCourse() {
+        // Given
+        CourseUpdateService service = service(new EmbeddedCourseIndex(false, false));
+        stubConverter();
+        when(elasticsearchOperations.multiGet(any(Query.class), eq(CourseDocument.class))).thenReturn(List.of(
+                MultiGetItem.of(course("1", 75.0, null, Integer.MAX_VALUE + 1L), null),
+                MultiGetItem.of(course("2", 25.0, null, 1), null)));
+        doNothing().when(elasticsearchOperations).bulkUpdate(anyList(), eq(CourseDocument.class));
+
+        // When
+        BulkUpdateResponse response = service.updateCourses(List.of(
+                Map.of("id", "1", "price", 70.0),
+                Map.of("id", "2", "price", 20.0)));
+
+        // Then
+        assertThat(response.getUpdated()).isEqualTo(1);
+        assertThat(response.getFailures()).containsOnlyKeys("1");
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<UpdateQuery>> queries = ArgumentCaptor.forClass(List.class);
+        verify(elasticsearchOperations).bulkUpdate(queries.capture(), eq(CourseDocument.class));
+        assertThat(queries.getValue()).extracting(UpdateQuery::getId).containsExactly("2");
+    }
+
+    @Test
+    void testUpdateCourse_WithFailureWithoutStatus_ShouldFailWithoutNullPointer() {
+        // Given
+        CourseUpdateService service = service(new EmbeddedCourseIndex(false, false));
+        stubConverter();
+        when(elasticsearchOperations.multiGet(any(Query.class), eq(CourseDocument.class)))
+                .thenReturn(List.of(MultiGetItem.of(course("1", 75.0, null, 1), null)));
+        doThrow(new BulkFailureException("failed", Map.of("1", new BulkFailureException.FailureDetails(null, "shard failure"))))
+                .when(elasticsearchOperations).bulkUpdate(anyList(), eq(CourseDocument.class));
+
+        // When / Then
+        assertThatThrownBy(() -> service.updateCourse("1", Map.of("price", 70.0)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("shard failure");
+    }
+
+    @Test
+    void testUpdateCourse_WithEmbeddedEngine_ShouldUpdateInPlace() {
+        // Given
+        EmbeddedCourseIndex embeddedIndex = new EmbeddedCourseIndex(true, false);
+        embeddedIndex.save(List.of(course("1", 75.0, "2025-06-15T10:00:00Z", 1)));
+        CourseUpdateService service = service(embeddedIndex);
+        Map<String, Object> clearDate = new HashMap<>();
+        clearDate.put("nextSessionDate", null);
+
+        // When
+        CourseDocument updated = service.updateCourse("1", clearDate);
+
+        // Then
+        assertThat(updated.getNextSessionDate()).isNull();
+        assertThat(updated.getPrice()).isEqualTo(75.0);
+        assertThat(embeddedIndex.findAll()).containsExactly(updated);
+        assertThatThrownBy(() -> service.updateCourse("9", Map.of("price", 10.0)))
+                .isInstanceOf(CourseNotFoundException.class);
+        assertThatThrownBy(() -> service.updateCourse("1", Map.of("price", "cheap")))
+                .isInstanceOf(InvalidCourseUpdateException.class);
+    }
+
+    private CourseUpdateService service(EmbeddedCourseIndex embeddedIndex) {
+        return new CourseUpdateService(elasticsearchOperations, embeddedIndex,
+                new CourseChangeFeed(16, 8, List.of(embeddedIndex)),
+                new CourseMetrics(new SimpleMeterRegistry()), new ObjectMapper());
+    }
+
+    private void stubConverter() {
+        MappingElasticsearchConverter converter = new MappingElasticsearchConverter(new SimpleElasticsearchMappingContext());
+        converter.afterPropertiesSet();
+        when(elasticsearchOperations.getElasticsearchConverter()).thenReturn(converter);
+    }
+
+    private static CourseDocument course(String id, double price, String nextSessionDate, long seqNo) {
+        CourseDocument course = new CourseDocument();
+        course.setId(id);
+        course.setTitle("Beginner Math Adventures");
+        course.setCategory("Math");
+        course.setType("COURSE");
+        course.setMinAge(5);
+        course.setMaxAge(8);
+        course.setPrice(price);
+        course.setNextSessionDate(nextSessionDate);
+        course.setSeqNoPrimaryTerm(new SeqNoPrimaryTerm(seqNo, 1));
+        return course;
+    }
+}
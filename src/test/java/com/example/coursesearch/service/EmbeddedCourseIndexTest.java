@@ -0,0 +1,258 @@
+package com.example.coursesearch.service;
+
+import com.example.coursesearch.dto.CourseSearchRequest;
+import com.example.coursesearch.dto.CourseSearchResponse;
+import com.example.coursesearch.dto.FacetBucket;
+import com.example.coursesearch.exception.InvalidSearchRequestException;
+import com.example.coursesearch.model.CourseDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.core.query.SeqNoPrimaryTerm;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class EmbeddedCourseIndexTest {
+
+    private EmbeddedCourseIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new EmbeddedCourseIndex(true, false);
+        index.save(List.of(
+                course("1", "Beginner Math Adventures", "Counting and shapes", "Math", "COURSE", 5, 8, 75.0, "2025-06-15T10:00:00Z"),
+                course("2", "Advanced Mathematics Challenge", "Algebra and geometry for gifted students", "Math", "COURSE", 12, 17, 135.0, "2025-07-01T15:00:00Z"),
+                course("3", "Science Spectacular Workshop", "Exciting experiments", "Science", "ONE_TIME", 8, 13, 25.0, "2025-06-20T14:00:00Z"),
+                course("4", "Robotics Engineering Club", "Build and program robots", "Technology", "CLUB", 11, 17, 180.0, null)));
+    }
+
+    @Test
+    void testSearch_WithTypo_ShouldMatchLikeFuzzyMultiMatch() {
+        // Given - one edit away from "robots" in the description, and from "science" in the title
+        CourseSearchRequest request = new CourseSearchRequest();
+        request.setQuery("robbots sciense");
+
+        // When
+        CourseSearchResponse response = index.search(request, PageRequest.of(0, 10, CourseQueryBuilder.sort(request)));
+
+        // Then
+        assertThat(response.getCourses()).extracting(CourseDocument::getId).containsExactly("3", "4");
+        assertThat(response.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    void testSearch_WithFiltersAndPriceSort_ShouldPageThroughSortedHits() {
+        // Given
+        CourseSearchRequest request = new CourseSearchRequest();
+        request.setMinAge(10);
+        request.setMaxAge(12);
+        request.setSortBy("priceDesc");
+
+        // When
+        CourseSearchResponse first = index.search(request, PageRequest.of(0, 1, CourseQueryBuilder.sort(request)));
+        CourseSearchResponse second = index.search(request, PageRequest.of(1, 1, CourseQueryBuilder.sort(request)));
+
+        // Then - ages 10-12 overlap courses 2, 3 and 4
+        assertThat(first.getTotalElements()).isEqualTo(3);
+        assertThat(first.getCourses()).extracting(CourseDocument::getId).containsExactly("4");
+        assertThat(second.getCourses()).extracting(CourseDocument::getId).containsExactly("2");
+        assertThat(second.isHasNext()).isTrue();
+    }
+
+    @Test
+    void testSearch_ByDate_ShouldFilterAndSortMissingDatesLast() {
+        // Given
+        CourseSearchRequest upcoming = new CourseSearchRequest();
+        CourseSearchRequest fromDate = new CourseSearchRequest();
+        fromDate.setNextSessionDate("2025-06-16");
+
+        // When
+        CourseSearchResponse all = index.search(upcoming, PageRequest.of(0, 10, CourseQueryBuilder.sort(upcoming)));
+        CourseSearchResponse later = index.search(fromDate, PageRequest.of(0, 10, CourseQueryBuilder.sort(fromDate)));
+
+        // Then
+        assertThat(all.getCourses()).extracting(CourseDocument::getId).containsExactly("1", "3", "2", "4");
+        assertThat(later.getCourses()).extracting(CourseDocument::getId).containsExactly("3", "2");
+    }
+
+    @Test
+    void testSearch_WithFacets_ShouldCountEachFacetWithoutItsOwnFilter() {
+        // Given
+        CourseSearchRequest request = new CourseSearchRequest();
+        request.setCategory("Math");
+        request.setIncludeFacets(true);
+
+        // When
+        CourseSearchResponse response = index.search(request, PageRequest.of(0, 10, CourseQueryBuilder.sort(request)));
+
+        // Then
+        assertThat(response.getTotalElements()).isEqualTo(2);
+        assertThat(response.getFacets().get("category")).containsExactly(
+                FacetBucket.of("Math", 2), FacetBucket.of("Science", 1), FacetBucket.of("Technology", 1));
+        assertThat(response.getFacets().get("type")).containsExactly(FacetBucket.of("COURSE", 2));
+        assertThat(response.getFacets().get("price")).extracting(FacetBucket::key, FacetBucket::count).containsExactly(
+                tuple("*-25.0", 0L), tuple("25.0-50.0", 0L), tuple("50.0-100.0", 1L), tuple("100.0-200.0", 1L),
+                tuple("200.0-*", 0L));
+        assertThat(response.getFacets().get("age")).extracting(FacetBucket::count).containsExactly(1L, 1L, 0L, 1L, 1L);
+    }
+
+    @Test
+    void testSearch_ByUnsupportedSortField_ShouldBeRejected() {
+        // Given
+        CourseSearchRequest request = new CourseSearchRequest();
+        request.setSortBy("_score");
+
+        // When / Then
+        assertThatThrownBy(() -> index.search(request, PageRequest.of(0, 10, CourseQueryBuilder.sort(request))))
+                .isInstanceOf(InvalidSearchRequestException.class);
+    }
+
+    @Test
+    void testServesFilterSearch_ShouldTakeOnlyFilterSearchesOnceWarm() {
+        // Given
+        EmbeddedCourseIndex mirror = new EmbeddedCourseIndex(false, true);
+        CourseSearchRequest filters = new CourseSearchRequest();
+        filters.setCategory("Math");
+        CourseSearchRequest text = new CourseSearchRequest();
+        text.setQuery("math");
+        CourseSearchRequest byRating = new CourseSearchRequest();
+        byRating.setSortBy("rating");
+
+        // When
+        boolean servedCold = mirror.servesFilterSearch(filters);
+        mirror.rebuild(index.findAll().stream());
+
+        // Then
+        assertThat(servedCold).isFalse();
+        assertThat(mirror.servesFilterSearch(filters)).isTrue();
+        assertThat(mirror.servesFilterSearch(text)).isFalse();
+        assertThat(mirror.servesFilterSearch(byRating)).isFalse();
+        assertThat(index.servesFilterSearch(filters)).isFalse();
+    }
+
+    @Test
+    void testRebuild_ShouldKeepWritesThatArriveWhileReading() {
+        // Given
+        EmbeddedCourseIndex mirror = new EmbeddedCourseIndex(false, true);
+        CourseDocument written = course("5", "Chess Club", "Strategy games", "Games", "CLUB", 7, 12, 40.0, null);
+
+        // When - a save lands while the rebuild is still reading the catalog
+        mirror.rebuild(index.findAll().stream().peek(course -> {
+            if (course.getId().equals("4")) {
+                mirror.mirror(List.of(written));
+            }
+        }));
+
+        // Then
+        assertThat(mirror.isWarm()).isTrue();
+        assertThat(mirror.findAll()).extracting(CourseDocument::getId).containsExactly("1", "2", "3", "4", "5");
+    }
+
+    @Test
+    void testMirror_ShouldDropAnUpsertOlderThanTheCourseHeld() {
+        // Given - two updaters of course 1; the newer write is published first
+        EmbeddedCourseIndex mirror = new EmbeddedCourseIndex(false, true);
+        CourseDocument older = course("1", "Beginner Math Adventures", "Counting and shapes", "Math", "COURSE", 5, 8, 80.0, "2025-06-15T10:00:00Z");
+        older.setSeqNoPrimaryTerm(new SeqNoPrimaryTerm(7, 1));
+        CourseDocument newer = course("1", "Beginner Math Adventures", "Counting and shapes", "Math", "COURSE", 5, 8, 75.0, "2025-09-01T10:00:00Z");
+        newer.setSeqNoPrimaryTerm(new SeqNoPrimaryTerm(8, 1));
+
+        // When
+        mirror.mirror(List.of(newer));
+        mirror.mirror(List.of(older));
+
+        // Then
+        assertThat(mirror.findAll()).extracting(CourseDocument::getPrice, CourseDocument::getNextSessionDate)
+                .containsExactly(tuple(75.0, "2025-09-01T10:00:00Z"));
+    }
+
+    @Test
+    void testWrites_ShouldAnswerLikeAFullBuild() {
+        // Given - many single writes, with few distinct values so sorts tie and facets overlap
+        String[] words = {"art", "math", "music", "robots", "science", "chess", "coding", "drama"};
+        String[] categories = {"Art", "Math", "Music", "Science", "Technology"};
+        Random random = new Random(7);
+        EmbeddedCourseIndex incremental = new EmbeddedCourseIndex(true, false);
+        Map<String, CourseDocument> catalog = new LinkedHashMap<>();
+
+        // When
+        for (int i = 0; i < 600; i++) {
+            CourseDocument written = course(String.valueOf(random.nextInt(250)),
+                    words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)],
+                    random.nextInt(4) == 0 ? null : words[random.nextInt(words.length)],
+                    categories[random.nextInt(categories.length)], random.nextBoolean() ? "COURSE" : "CLUB",
+                    3 + random.nextInt(6), 9 + random.nextInt(9), 10.0 * random.nextInt(20),
+                    random.nextInt(5) == 0 ? null : "2025-06-" + (10 + random.nextInt(20)) + "T10:00:00Z");
+            catalog.put(written.getId(), written);
+            incremental.save(List.of(written));
+        }
+        EmbeddedCourseIndex built = new EmbeddedCourseIndex(true, false);
+        built.save(new ArrayList<>(catalog.values()));
+
+        // Then - dense and sparse hits, so both the walk and the top-k pick a page
+        assertThat(incremental.findAll()).containsExactlyElementsOf(catalog.values());
+        for (String sortBy : new String[]{"nextSessionDate", "priceAsc", "priceDesc"}) {
+            for (String category : new String[]{null, "Math"}) {
+                for (String query : new String[]{null, "robots", "sciense"}) {
+                    for (int page = 0; page < 3; page++) {
+                        CourseSearchRequest request = new CourseSearchRequest();
+                        request.setSortBy(sortBy);
+                        request.setCategory(category);
+                        request.setQuery(query);
+                        request.setIncludeFacets(true);
+                        PageRequest pageable = PageRequest.of(page, 7, CourseQueryBuilder.sort(request));
+                        CourseSearchResponse expected = built.search(request, pageable);
+                        CourseSearchResponse actual = incremental.search(request, pageable);
+                        assertThat(actual.getCourses()).containsExactlyElementsOf(expected.getCourses());
+                        assertThat(actual.getTotalElements()).isEqualTo(expected.getTotalElements());
+                        assertThat(actual.getFacets()).isEqualTo(expected.getFacets());
+                        if (query == null) {
+                            assertThat(actual.getCourses()).containsExactlyElementsOf(
+                                    sorted(catalog.values(), category, sortBy).stream().skip(page * 7L).limit(7).toList());
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // Filter and sort by brute force: missing values last, ties in write order
+    private static List<CourseDocument> sorted(Collection<CourseDocument> courses, String category, String sortBy) {
+        List<CourseDocument> inOrder = new ArrayList<>(courses);
+        Function<CourseDocument, Double> value = "nextSessionDate".equals(sortBy)
+                ? course -> course.getNextSessionDate() != null ? EmbeddedCourseIndex.epochMillis(course.getNextSessionDate()) : null
+                : CourseDocument::getPrice;
+        Comparator<Double> direction = "priceDesc".equals(sortBy) ? Comparator.reverseOrder() : Comparator.naturalOrder();
+        return inOrder.stream()
+                .filter(course -> category == null || category.equals(course.getCategory()))
+                .sorted(Comparator.comparing(value, Comparator.nullsLast(direction))
+                        .thenComparingInt(inOrder::indexOf))
+                .toList();
+    }
+
+    private static CourseDocument course(String id, String title, String description, String category, String type,
+                                         int minAge, int maxAge, double price, String nextSessionDate) {
+        CourseDocument course = new CourseDocument();
+        course.setId(id);
+        course.setTitle(title);
+        course.setDescription(description);
+        course.setCategory(category);
+        course.setType(type);
+        course.setMinAge(minAge);
+        course.setMaxAge(maxAge);
+        course.setPrice(price);
+        course.setNextSessionDate(nextSessionDate);
+        return course;
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.coursesearch.service;
+
+import com.example.coursesearch.dto.CourseSearchRequest;
+import com.example.coursesearch.dto.CourseSearchResponse;
+import com.example.coursesearch.exception.InvalidSearchRequestException;
+import com.example.coursesearch.model.CourseDocument;
+import com.example.coursesearch.repository.CourseRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.ReactiveElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.ReactiveSearchHits;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveCourseSearchServiceTest {
+
+    @Mock
+    private CourseRepository courseRepository;
+
+    @Mock
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Mock
+    private ReactiveElasticsearchOperations reactiveElasticsearchOperations;
+
+    @Mock
+    private ReactiveSearchHits<CourseDocument> searchHits;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ReactiveCourseSearchService reactiveCourseSearchService;
+
+    @BeforeEach
+    void setUp() {
+        setUp(new EmbeddedCourseIndex(false, false));
+    }
+
+    private void setUp(EmbeddedCourseIndex embeddedIndex) {
+        SearchResultCache cache = new SearchResultCache(true, 100, Duration.ofMinutes(1));
+        SuggestionIndex suggestionIndex = new SuggestionIndex(true);
+        SearchCoalescer coalescer = new SearchCoalescer(true);
+        CourseMetrics metrics = new CourseMetrics(meterRegistry);
+        SlowQueryLog slowQueryLog = new SlowQueryLog(new ObjectMapper(), Duration.ZERO);
+        CourseService courseService = new CourseService(courseRepository, elasticsearchOperations, cache,
+                suggestionIndex, new ElasticsearchCircuitBreaker(2, Duration.ofMinutes(1)),
+                coalescer, metrics, slowQueryLog, embeddedIndex,
+                new CourseChangeFeed(16, 8, List.of(cache, suggestionIndex, embeddedIndex)));
+        reactiveCourseSearchService = new ReactiveCourseSearchService(courseService, reactiveElasticsearchOperations,
+                cache, coalescer, metrics, slowQueryLog);
+    }
+
+    @Test
+    void testSearchCourses_ShouldMapHitsAndCacheResponse() {
+        // Given
+        CourseSearchRequest request = new CourseSearchRequest();
+        request.setQuery("math");
+        request.setPage(0);
+        request.setSize(10);
+
+        CourseDocument course = new CourseDocument();
+        course.setId("1");
+        course.setTitle("Math Adventures");
+        @SuppressWarnings("unchecked")
+        SearchHit<CourseDocument> hit = mock(SearchHit.class);
+        when(hit.getContent()).thenReturn(course);
+        when(searchHits.getSearchHits()).thenReturn(Flux.just(hit));
+        when(searchHits.getTotalHits()).thenReturn(11L);
+        when(reactiveElasticsearchOperations.searchForHits(any(NativeQuery.class), eq(CourseDocument.class)))
+                .thenReturn(Mono.just(searchHits));
+
+        // When
+        CourseSearchResponse response = reactiveCourseSearchService.searchCourses(request, null).block();
+        CourseSearchResponse cached = reactiveCourseSearchService.searchCourses(request, null).block();
+
+        // Then
+        assertThat(response).isNotNull();
+        assertThat(response.getCourses()).containsExactly(course);
+        assertThat(response.getTotalElements()).isEqualTo(11L);
+        assertThat(response.getTotalPages()).isEqualTo(2);
+        assertThat(response.isHasNext()).isTrue();
+        assertThat(cached).isSameAs(response);
+        verify(reactiveElasticsearchOperations, times(1)).searchForHits(any(Query.class), eq(CourseDocument.class));
+        assertThat(meterRegistry.get(CourseMetrics.SEARCH).timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.get(CourseMetrics.ELASTICSEARCH).tag("outcome", "success").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testSearchCourses_WhileAnIdenticalSearchIsInFlight_ShouldShareItsResponse() {
+        // Given - Elasticsearch has not answered the first search yet
+        CourseSearchRequest request = new CourseSearchRequest();
+        request.setQuery("math");
+        Sinks.One<ReactiveSearchHits<CourseDocument>> answer = Sinks.one();
+        when(reactiveElasticsearchOperations.searchForHits(any(NativeQuery.class), eq(CourseDocument.class)))
+                .thenReturn(answer.asMono());
+        when(searchHits.getSearchHits()).thenReturn(Flux.empty());
+
+        // When
+        CompletableFuture<CourseSearchResponse> first = reactiveCourseSearchService.searchCourses(request, null).toFuture();
+        CompletableFuture<CourseSearchResponse> second = reactiveCourseSearchService.searchCourses(request, null).toFuture();
+        answer.tryEmitValue(searchHits);
+
+        // Then
+        assertThat(first.join()).isSameAs(second.join());
+        verify(reactiveElasticsearchOperations, times(1)).searchForHits(any(Query.class), eq(CourseDocument.class));
+    }
+
+    @Test
+    void testSearchCourses_WithFilterMirror_ShouldAnswerFromMemory() {
+        // Given
+        EmbeddedCourseIndex mirror = new EmbeddedCourseIndex(false, true);
+        CourseDocument course = new CourseDocument();
+        course.setId("1");
+        course.setTitle("Math Adventures");
+        course.setCategory("Math");
+        mirror.rebuild(Stream.of(course));
+        setUp(mirror);
+        CourseSearchRequest request = new CourseSearchRequest();
+        request.setCategory("Math");
+
+        // When
+        CourseSearchResponse response = reactiveCourseSearchService.searchCourses(request, null).block();
+
+        // Then
+        assertThat(response.getCourses()).extracting(CourseDocument::getId).containsExactly("1");
+        verifyNoInteractions(reactiveElasticsearchOperations);
+        assertThat(meterRegistry.get(CourseMetrics.SEARCH).timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testSearchCourses_WithInvalidDate_ShouldFailTheMono() {
+        // Given
+        CourseSearchRequest request = new CourseSearchRequest();
+        request.setNextSessionDate("next week");
+
+        // When
+        Mono<CourseSearchResponse> result = reactiveCourseSearchService.searchCourses(request, null);
+
+        // Then
+        assertThatThrownBy(result::block).isInstanceOf(InvalidSearchRequestException.class);
+    }
+}
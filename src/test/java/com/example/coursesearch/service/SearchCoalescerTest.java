@@ -0,0 +1,116 @@
+package com.example.coursesearch.service;
+
+import com.example.coursesearch.dto.CourseSearchRequest;
+import com.example.coursesearch.dto.CourseSearchResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SearchCoalescerTest {
+
+    private final SearchCoalescer coalescer = new SearchCoalescer(true);
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testExecute_WithConcurrentIdenticalSearches_ShouldRunOneSearch() throws Exception {
+        // Given
+        SearchRequestKey key = key("Science");
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger searches = new AtomicInteger();
+        CourseSearchResponse result = new CourseSearchResponse();
+
+        // When
+        Future<CourseSearchResponse> leader = executor.submit(() -> coalescer.execute(key, 0, () -> {
+            searches.incrementAndGet();
+            leaderStarted.countDown();
+            await(release);
+            return result;
+        }));
+        assertThat(leaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        List<Future<CourseSearchResponse>> followers = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            followers.add(executor.submit(() -> coalescer.execute(key, 0, () -> {
+                searches.incrementAndGet();
+                return new CourseSearchResponse();
+            })));
+        }
+        // Followers have either joined the leader or are about to; let the leader finish
+        Thread.sleep(200);
+        release.countDown();
+
+        // Then
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isSameAs(result);
+        for (Future<CourseSearchResponse> follower : followers) {
+            assertThat(follower.get(5, TimeUnit.SECONDS)).isSameAs(result);
+        }
+        assertThat(searches).hasValue(1);
+    }
+
+    @Test
+    void testExecute_AfterWrite_ShouldNotJoinOlderSearch() throws Exception {
+        // Given
+        SearchRequestKey key = key("Science");
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<CourseSearchResponse> leader = executor.submit(() -> coalescer.execute(key, 0, () -> {
+            leaderStarted.countDown();
+            await(release);
+            return new CourseSearchResponse();
+        }));
+        assertThat(leaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When: the cache generation moved on while the leader was running
+        CourseSearchResponse fresh = new CourseSearchResponse();
+        CourseSearchResponse response = coalescer.execute(key, 1, () -> fresh);
+        release.countDown();
+
+        // Then
+        assertThat(response).isSameAs(fresh);
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isNotSameAs(fresh);
+    }
+
+    @Test
+    void testExecute_WhenSearchFails_ShouldRethrowAndForgetIt() {
+        // Given
+        SearchRequestKey key = key("Math");
+
+        // When / Then
+        assertThatThrownBy(() -> coalescer.execute(key, 0, () -> {
+            throw new IllegalStateException("Elasticsearch unavailable");
+        })).isInstanceOf(IllegalStateException.class);
+        CourseSearchResponse next = new CourseSearchResponse();
+        assertThat(coalescer.execute(key, 0, () -> next)).isSameAs(next);
+    }
+
+    private static SearchRequestKey key(String category) {
+        CourseSearchRequest request = new CourseSearchRequest();
+        request.setCategory(category);
+        return SearchRequestKey.from(request);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.coursesearch.service;
+
+import com.example.coursesearch.dto.CourseSearchRequest;
+import com.example.coursesearch.dto.CourseSearchResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchResultCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void testGet_AfterTtl_ShouldMiss() {
+        // Given
+        SearchResultCache cache = new SearchResultCache(true, 10, Duration.ofSeconds(30), now::get);
+        SearchRequestKey key = keyForPage(0);
+        cache.put(key, cache.generation(), new CourseSearchResponse());
+
+        // When
+        now.addAndGet(Duration.ofSeconds(31).toNanos());
+
+        // Then
+        assertThat(cache.get(key)).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void testPut_OverCapacity_ShouldEvictLeastRecentlyUsed() {
+        // Given
+        SearchResultCache cache = new SearchResultCache(true, 2, Duration.ofSeconds(30), now::get);
+        cache.put(keyForPage(0), cache.generation(), new CourseSearchResponse());
+        cache.put(keyForPage(1), cache.generation(), new CourseSearchResponse());
+
+        // When - touch page 0 so page 1 becomes the eldest entry
+        cache.get(keyForPage(0));
+        cache.put(keyForPage(2), cache.generation(), new CourseSearchResponse());
+
+        // Then
+        assertThat(cache.get(keyForPage(0))).isNotNull();
+        assertThat(cache.get(keyForPage(1))).isNull();
+        assertThat(cache.get(keyForPage(2))).isNotNull();
+    }
+
+    @Test
+    void testPut_WithGenerationBeforeInvalidation_ShouldBeDropped() {
+        // Given - a search that started before a write
+        SearchResultCache cache = new SearchResultCache(true, 10, Duration.ofSeconds(30), now::get);
+        long generation = cache.generation();
+
+        // When
+        cache.invalidateAll();
+        cache.put(keyForPage(0), generation, new CourseSearchResponse());
+
+        // Then
+        assertThat(cache.get(keyForPage(0))).isNull();
+    }
+
+    private SearchRequestKey keyForPage(int page) {
+        CourseSearchRequest request = new CourseSearchRequest();
+        request.setPage(page);
+        return SearchRequestKey.from(request);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.coursesearch.service;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.example.coursesearch.dto.CourseSearchRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlowQueryLogTest {
+
+    private final SlowQueryLog slowQueryLog = new SlowQueryLog(new ObjectMapper(), Duration.ofMillis(100));
+
+    // Read the events directly: console output goes through an async appender once a Spring context has started
+    private final Logger logger = (Logger) LoggerFactory.getLogger(SlowQueryLog.class);
+    private final ListAppender<ILoggingEvent> events = new ListAppender<>();
+
+    @BeforeEach
+    void captureEvents() {
+        events.start();
+        logger.addAppender(events);
+    }
+
+    @AfterEach
+    void releaseEvents() {
+        logger.detachAppender(events);
+    }
+
+    @Test
+    void testRecord_AboveThreshold_ShouldLogParametersAndQueryAsJson() {
+        // Given
+        CourseSearchRequest request = new CourseSearchRequest();
+        request.setQuery("dinasaur");
+        request.setCategory("Science");
+        NativeQuery query = NativeQuery.builder()
+                .withQuery(CourseQueryBuilder.build(request, CourseQueryBuilder.TextMode.MULTI_MATCH, true))
+                .withPageable(PageRequest.of(2, 5, Sort.by(Sort.Direction.ASC, "nextSessionDate")))
+                .build();
+
+        // When
+        slowQueryLog.record("search", Duration.ofMillis(250).toNanos(), List.of(request), List.of(query));
+
+        // Then
+        assertThat(events.list).hasSize(1);
+        String output = events.list.get(0).getFormattedMessage();
+        assertThat(output).contains("Slow search {\"operation\":\"search\",\"tookMs\":250,\"thresholdMs\":100");
+        assertThat(output).contains("\"params\":{\"query\":\"dinasaur\",\"category\":\"Science\"");
+        assertThat(output).contains("\"multi_match\":{");
+        assertThat(output).contains("\"from\":10,\"size\":5,\"sort\":[{\"nextSessionDate\":\"asc\"}]");
+    }
+
+    @Test
+    void testRecord_BelowThresholdOrDisabled_ShouldNotLog() {
+        // Given
+        CourseSearchRequest request = new CourseSearchRequest();
+        NativeQuery query = NativeQuery.builder()
+                .withQuery(CourseQueryBuilder.build(request, CourseQueryBuilder.TextMode.MULTI_MATCH, true))
+                .build();
+
+        // When
+        slowQueryLog.record("search", Duration.ofMillis(50).toNanos(), List.of(request), List.of(query));
+        new SlowQueryLog(new ObjectMapper(), Duration.ZERO)
+                .record("search", Duration.ofSeconds(5).toNanos(), List.of(request), List.of(query));
+
+        // Then
+        assertThat(events.list).isEmpty();
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.coursesearch.service;
+
+import com.example.coursesearch.model.CourseDocument;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SuggestionIndexTest {
+
+    @Test
+    void testUpsert_ShouldReplaceOnlyTheChangedTitles() {
+        // Given
+        SuggestionIndex index = new SuggestionIndex(true);
+        index.rebuild(Stream.of(
+                course("1", "Young Artists Club", "Art"),
+                course("2", "Mathematics Fun", "Math"),
+                course("3", "Advanced Math Challenge", "Math")));
+
+        // When
+        index.upsert(List.of(course("2", "Music Makers", "Music"), course("4", "Math Olympiad", "Math")));
+        index.upsert(List.of(course("1", null, "Art")));
+
+        // Then
+        assertThat(index.size()).isEqualTo(3);
+        assertThat(index.suggest("ma", null, 10)).containsExactly("Music Makers", "Advanced Math Challenge", "Math Olympiad");
+        assertThat(index.suggest("you", null, 10)).isEmpty();
+    }
+
+    @Test
+    void testUpserts_ShouldAnswerLikeAFullRebuild() {
+        // Given - many small writes, enough to trigger compactions of replaced ordinals
+        String[] words = {"art", "math", "music", "robotics", "science", "chess", "coding", "drama"};
+        Random random = new Random(42);
+        SuggestionIndex incremental = new SuggestionIndex(true);
+        List<CourseDocument> catalog = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            catalog.add(course(String.valueOf(i), title(words, random), "Art"));
+        }
+        incremental.rebuild(catalog.stream());
+
+        // When
+        for (int round = 0; round < 300; round++) {
+            CourseDocument changed = course(String.valueOf(random.nextInt(250)), title(words, random), "Art");
+            catalog.removeIf(course -> course.getId().equals(changed.getId()));
+            catalog.add(changed);
+            incremental.upsert(List.of(changed));
+        }
+        SuggestionIndex rebuilt = new SuggestionIndex(true);
+        rebuilt.rebuild(catalog.stream());
+
+        // Then
+        assertThat(incremental.size()).isEqualTo(rebuilt.size());
+        for (String word : words) {
+            String prefix = word.substring(0, 2);
+            assertThat(incremental.suggest(prefix, null, 1000))
+                    .containsExactlyInAnyOrderElementsOf(rebuilt.suggest(prefix, null, 1000));
+        }
+    }
+
+    private static String title(String[] words, Random random) {
+        return words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)] + " " + random.nextInt(1000);
+    }
+
+    private static CourseDocument course(String id, String title, String category) {
+        CourseDocument course = new CourseDocument();
+        course.setId(id);
+        course.setTitle(title);
+        course.setCategory(category);
+        return course;
+    }
+}